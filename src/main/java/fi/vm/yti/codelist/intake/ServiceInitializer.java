@@ -1,8 +1,14 @@
 package fi.vm.yti.codelist.intake;
 
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.inject.Inject;
 
-import fi.vm.yti.codelist.intake.configuration.ContentIntakeServiceProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.ApplicationArguments;
@@ -11,12 +17,22 @@ import org.springframework.stereotype.Component;
 
 import com.google.common.base.Stopwatch;
 
+import fi.vm.yti.codelist.intake.configuration.ContentIntakeServiceProperties;
 import fi.vm.yti.codelist.intake.configuration.VersionInformation;
 import fi.vm.yti.codelist.intake.data.YtiDataAccess;
 import fi.vm.yti.codelist.intake.groupmanagement.OrganizationUpdater;
 import fi.vm.yti.codelist.intake.indexing.Indexing;
 import fi.vm.yti.codelist.intake.service.UserService;
 
+/**
+ * Starts the service in stages.
+ * <p>
+ * Organizations and users are synced from the group management service concurrently with the database
+ * initialization, which only waits for the organizations before loading the code registries that reference them. The
+ * service accepts requests as soon as the database content is consistent. The startup reindex then runs in the
+ * background into new indices that are aliased in when complete, so searches keep using the previous indices until
+ * then. The state of each stage is exposed through health indicators.
+ */
 @Component
 public class ServiceInitializer implements ApplicationRunner {
 
@@ -28,7 +44,8 @@ public class ServiceInitializer implements ApplicationRunner {
     private final VersionInformation versionInformation;
     private final ContentIntakeServiceProperties contentIntakeServiceProperties;
 
-    private boolean initializing;
+    private volatile boolean databaseReady;
+    private volatile boolean indexReady;
 
     @Inject
     public ServiceInitializer(final VersionInformation versionInformation,
@@ -51,32 +68,98 @@ public class ServiceInitializer implements ApplicationRunner {
     }
 
     private void initialize() {
-        initializing = true;
         printLogo();
-        LOG.info("*** Initializing data. ***");
-        LOG.info("*** Updating organizations. ***");
-        organizationUpdater.updateOrganizations();
-        LOG.info("*** Updating users. ***");
-        userService.updateUsers();
         final Stopwatch watch = Stopwatch.createStarted();
-        ytiDataAccess.initializeOrRefresh();
-        LOG.info("*** Database population took: {}. ***", watch);
+        final ExecutorService executor = createExecutor();
+        try {
+            LOG.info("*** Updating organizations and users. ***");
+            final CompletableFuture<Void> organizationSync = CompletableFuture.runAsync(() -> {
+                organizationUpdater.updateOrganizations();
+                LOG.info("*** Organization sync took: {}. ***", watch);
+            }, executor);
+            CompletableFuture.runAsync(() -> {
+                try {
+                    userService.updateUsers();
+                    LOG.info("*** User sync took: {}. ***", watch);
+                } catch (final RuntimeException e) {
+                    LOG.error("User sync failed on startup, users are synced again on the next scheduled run.", e);
+                }
+            }, executor);
 
-        if (contentIntakeServiceProperties.isReIndexOnStartup()) {
+            LOG.info("*** Initializing data. ***");
+            final Stopwatch databaseWatch = Stopwatch.createStarted();
+            ytiDataAccess.initializeOrRefresh(organizationSync::join);
+            organizationSync.join();
+            LOG.info("*** Database population took: {}. ***", databaseWatch);
             indexing.cleanRunningIndexingBookkeeping();
-            final Stopwatch indexWatch = Stopwatch.createStarted();
+            databaseReady = true;
+            LOG.info("*** Service ready for requests, took {}. ***", watch);
+
+            if (contentIntakeServiceProperties.isReIndexOnStartup()) {
+                executor.execute(this::reIndex);
+            } else {
+                LOG.info("Indexing skipped on startup");
+                indexReady = true;
+                executor.execute(this::reIndexChangedMappings);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void reIndex() {
+        final Stopwatch indexWatch = Stopwatch.createStarted();
+        try {
+            updateIndexTemplates();
             indexing.reIndexEverything();
             LOG.info("*** Elastic indexing took: {}. ***", indexWatch);
-        } else {
-            LOG.info("Indexing skipped on startup");
+        } catch (final RuntimeException e) {
+            LOG.error("Elastic indexing failed on startup.", e);
+        } finally {
+            indexReady = true;
+        }
+    }
+
+    /**
+     * Rebuilds only the indexes whose mapping has changed since they were built, or that do not exist at all.
+     */
+    private void reIndexChangedMappings() {
+        final Set<String> outdatedAliases = updateIndexTemplates();
+        if (!outdatedAliases.isEmpty()) {
+            final Stopwatch indexWatch = Stopwatch.createStarted();
+            indexing.reIndex(outdatedAliases);
+            LOG.info("*** Elastic indexing of changed mappings {} took: {}. ***", outdatedAliases, indexWatch);
+        }
+    }
+
+    private Set<String> updateIndexTemplates() {
+        try {
+            return indexing.updateIndexTemplates();
+        } catch (final RuntimeException e) {
+            LOG.error("Updating ElasticSearch index templates failed.", e);
+            return Collections.emptySet();
         }
+    }
 
-        LOG.info("*** Data initialization complete, took {}. ***", watch);
-        initializing = false;
+    private static ExecutorService createExecutor() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(2, runnable -> {
+            final Thread thread = new Thread(runnable, "service-initializer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     public boolean isInitializing() {
-        return initializing;
+        return !databaseReady;
+    }
+
+    public boolean isDatabaseReady() {
+        return databaseReady;
+    }
+
+    public boolean isIndexReady() {
+        return indexReady;
     }
 
     private void printLogo() {
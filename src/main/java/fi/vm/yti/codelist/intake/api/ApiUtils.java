@@ -101,7 +101,11 @@ public class ApiUtils {
     }
 
     public String createCodeRegistryUri(final CodeRegistry codeRegistry) {
-        return createResourceUri(codeRegistry.getCodeValue());
+        return createCodeRegistryUri(codeRegistry.getCodeValue());
+    }
+
+    public String createCodeRegistryUri(final String codeRegistryCodeValue) {
+        return createResourceUri(codeRegistryCodeValue);
     }
 
     public String createCodeRegistryUrl(final CodeRegistryDTO codeRegistry) {
@@ -118,7 +122,12 @@ public class ApiUtils {
 
     public String createCodeSchemeUri(final CodeRegistry codeRegistry,
                                       final CodeScheme codeScheme) {
-        return createResourceUri(codeRegistry.getCodeValue() + "/" + codeScheme.getCodeValue());
+        return createCodeSchemeUri(codeRegistry.getCodeValue(), codeScheme.getCodeValue());
+    }
+
+    public String createCodeSchemeUri(final String codeRegistryCodeValue,
+                                      final String codeSchemeCodeValue) {
+        return createResourceUri(codeRegistryCodeValue + "/" + codeSchemeCodeValue);
     }
 
     private String createCodeSchemeUrl(final CodeRegistryDTO codeRegistry,
@@ -133,16 +142,44 @@ public class ApiUtils {
     public String createCodeUri(final CodeRegistry codeRegistry,
                                 final CodeScheme codeScheme,
                                 final Code code) {
-        return createResourceUri(codeRegistry.getCodeValue() + "/" + codeScheme.getCodeValue() + "/code/" + urlEncodeCodeValue(code.getCodeValue()));
+        return createCodeUri(codeRegistry, codeScheme, code.getCodeValue());
+    }
+
+    public String createCodeUri(final CodeRegistry codeRegistry,
+                                final CodeScheme codeScheme,
+                                final String codeValue) {
+        return createCodeUri(codeRegistry.getCodeValue(), codeScheme.getCodeValue(), codeValue);
+    }
+
+    public String createCodeUri(final String codeRegistryCodeValue,
+                                final String codeSchemeCodeValue,
+                                final String codeValue) {
+        return createResourceUri(codeRegistryCodeValue + "/" + codeSchemeCodeValue + "/code/" + urlEncodeCodeValue(codeValue));
     }
 
     public String createExtensionUri(final Extension extension) {
-        return createResourceUri(extension.getParentCodeScheme().getCodeRegistry().getCodeValue() + "/" + extension.getParentCodeScheme().getCodeValue() + "/extension/" + urlEncodeCodeValue(extension.getCodeValue()));
+        return createExtensionUri(extension.getParentCodeScheme().getCodeRegistry().getCodeValue(), extension.getParentCodeScheme().getCodeValue(), extension.getCodeValue());
+    }
+
+    public String createExtensionUri(final String codeRegistryCodeValue,
+                                     final String codeSchemeCodeValue,
+                                     final String extensionCodeValue) {
+        return createResourceUri(codeRegistryCodeValue + "/" + codeSchemeCodeValue + "/extension/" + urlEncodeCodeValue(extensionCodeValue));
     }
 
     public String createMemberUri(final Member member) {
         String theEndOfUri = member.getSequenceId() == null ? member.getId().toString() : member.getSequenceId().toString();
-        return createResourceUri(member.getExtension().getParentCodeScheme().getCodeRegistry().getCodeValue() + "/" + member.getExtension().getParentCodeScheme().getCodeValue() + "/extension/" + urlEncodeCodeValue(member.getExtension().getCodeValue()) + "/member/" + theEndOfUri);
+        return createMemberUriPrefix(member.getExtension()) + theEndOfUri;
+    }
+
+    public String createMemberUriPrefix(final Extension extension) {
+        return createMemberUriPrefix(extension.getParentCodeScheme().getCodeRegistry().getCodeValue(), extension.getParentCodeScheme().getCodeValue(), extension.getCodeValue());
+    }
+
+    public String createMemberUriPrefix(final String codeRegistryCodeValue,
+                                        final String codeSchemeCodeValue,
+                                        final String extensionCodeValue) {
+        return createExtensionUri(codeRegistryCodeValue, codeSchemeCodeValue, extensionCodeValue) + "/member/";
     }
 
     public String createCodeUrl(final CodeDTO code) {
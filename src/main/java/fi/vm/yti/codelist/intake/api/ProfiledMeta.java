@@ -0,0 +1,31 @@
+package fi.vm.yti.codelist.intake.api;
+
+import java.util.Map;
+
+import org.springframework.beans.BeanUtils;
+
+import fi.vm.yti.codelist.common.dto.Meta;
+
+public class ProfiledMeta extends Meta {
+
+    private Map<String, Object> profile;
+
+    public ProfiledMeta() {
+    }
+
+    public ProfiledMeta(final Meta meta,
+                        final Map<String, Object> profile) {
+        if (meta != null) {
+            BeanUtils.copyProperties(meta, this);
+        }
+        this.profile = profile;
+    }
+
+    public Map<String, Object> getProfile() {
+        return profile;
+    }
+
+    public void setProfile(final Map<String, Object> profile) {
+        this.profile = profile;
+    }
+}
@@ -0,0 +1,104 @@
+package fi.vm.yti.codelist.intake.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import fi.vm.yti.codelist.intake.model.CodeRegistry;
+import fi.vm.yti.codelist.intake.model.Organization;
+import fi.vm.yti.codelist.intake.model.PropertyType;
+import fi.vm.yti.codelist.intake.model.ValueType;
+
+/**
+ * Explicit invalidation and statistics for the second-level cache regions of the reference entities.
+ * <p>
+ * Hibernate keeps the regions consistent for changes made through the entity manager, these hooks additionally drop the
+ * regions after a committed write or a reload from the source data, so that data changed outside the persistence
+ * context is never served from the cache. Eviction is deferred to transaction completion when a transaction is active.
+ * The statistics are only collected when secondlevelcache.statistics is enabled.
+ */
+@Component
+public class ReferenceDataCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReferenceDataCache.class);
+    private static final Class<?>[] REFERENCE_ENTITIES = { PropertyType.class, ValueType.class, CodeRegistry.class, Organization.class };
+
+    private final SessionFactory sessionFactory;
+
+    @Inject
+    public ReferenceDataCache(final EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    public void evictPropertyTypes() {
+        evict(PropertyType.class);
+    }
+
+    public void evictValueTypes() {
+        evict(ValueType.class);
+    }
+
+    public void evictCodeRegistries() {
+        evict(CodeRegistry.class);
+    }
+
+    public void evictOrganizations() {
+        evict(Organization.class);
+    }
+
+    public Map<String, Map<String, Object>> getStatistics() {
+        final Statistics statistics = sessionFactory.getStatistics();
+        final Map<String, Map<String, Object>> regions = new LinkedHashMap<>();
+        for (final Class<?> entityClass : REFERENCE_ENTITIES) {
+            final CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(entityClass.getName());
+            if (regionStatistics == null) {
+                continue;
+            }
+            final Map<String, Object> region = new LinkedHashMap<>();
+            region.put("hits", regionStatistics.getHitCount());
+            region.put("misses", regionStatistics.getMissCount());
+            region.put("puts", regionStatistics.getPutCount());
+            region.put("elementsInMemory", regionStatistics.getElementCountInMemory());
+            regions.put(entityClass.getSimpleName(), region);
+        }
+        final Map<String, Object> queries = new LinkedHashMap<>();
+        queries.put("hits", statistics.getQueryCacheHitCount());
+        queries.put("misses", statistics.getQueryCacheMissCount());
+        queries.put("puts", statistics.getQueryCachePutCount());
+        regions.put("queries", queries);
+        return regions;
+    }
+
+    private void evict(final Class<?> entityClass) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(final int status) {
+                    evictNow(entityClass);
+                }
+            });
+        } else {
+            evictNow(entityClass);
+        }
+    }
+
+    private void evictNow(final Class<?> entityClass) {
+        final Cache cache = sessionFactory.getCache();
+        cache.evictEntityData(entityClass);
+        cache.evictCollectionData();
+        cache.evictDefaultQueryRegion();
+        LOG.debug(String.format("Evicted second-level cache for %s.", entityClass.getSimpleName()));
+    }
+}
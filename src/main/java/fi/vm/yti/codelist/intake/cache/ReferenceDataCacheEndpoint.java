@@ -0,0 +1,26 @@
+package fi.vm.yti.codelist.intake.cache;
+
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+@Component
+@Endpoint(id = "referencedatacache")
+public class ReferenceDataCacheEndpoint {
+
+    private final ReferenceDataCache referenceDataCache;
+
+    @Inject
+    public ReferenceDataCacheEndpoint(final ReferenceDataCache referenceDataCache) {
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> statistics() {
+        return referenceDataCache.getStatistics();
+    }
+}
@@ -0,0 +1,42 @@
+package fi.vm.yti.codelist.intake.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compiled value type patterns keyed by the regular expression.
+ * <p>
+ * Member values are validated against the regular expression of their value type for every row of an upload, so each
+ * expression is compiled once and shared. Entries are keyed by the expression itself and a changed expression simply
+ * compiles into a new entry, eviction on value type writes keeps the cache bounded to the expressions in use.
+ */
+@Component
+public class ValueTypePatternCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ValueTypePatternCache.class);
+
+    private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+    public Pattern getPattern(final String regexp) {
+        if (regexp == null || regexp.isEmpty()) {
+            return null;
+        }
+        return patterns.computeIfAbsent(regexp, Pattern::compile);
+    }
+
+    public boolean matches(final String regexp,
+                           final String value) {
+        final Pattern pattern = getPattern(regexp);
+        return pattern == null || pattern.matcher(value).matches();
+    }
+
+    public void evict() {
+        patterns.clear();
+        LOG.debug("Evicted compiled value type patterns.");
+    }
+}
@@ -5,6 +5,7 @@ public interface ApplicationConstants {
     String YTI_DATACLASSIFICATION_INFODOMAIN_CODESCHEME = "serviceclassification";
     String YTI_LANGUAGECODE_CODESCHEME = "languagecodes";
     String DCAT_CODESCHEME = "dcat";
+    int BATCH_FETCH_SIZE = 100;
     String[] INITIALIZATION_CODE_SCHEMES = { YTI_DATACLASSIFICATION_INFODOMAIN_CODESCHEME, YTI_LANGUAGECODE_CODESCHEME, DCAT_CODESCHEME };
 
     static String[] initializationCodeSchemes() {
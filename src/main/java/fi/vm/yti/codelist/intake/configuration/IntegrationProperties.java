@@ -0,0 +1,51 @@
+package fi.vm.yti.codelist.intake.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties("integration")
+@Component
+@Validated
+public class IntegrationProperties {
+
+    private int maxConcurrentCalls = 20;
+
+    private long maxWaitMillis = 500;
+
+    private int failureThreshold = 5;
+
+    private long openDurationSeconds = 30;
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public void setMaxConcurrentCalls(final int maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public void setMaxWaitMillis(final long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(final int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public long getOpenDurationSeconds() {
+        return openDurationSeconds;
+    }
+
+    public void setOpenDurationSeconds(final long openDurationSeconds) {
+        this.openDurationSeconds = openDurationSeconds;
+    }
+}
@@ -17,6 +17,7 @@ import fi.vm.yti.codelist.intake.exception.exceptionmapping.YtiCodeListException
 import fi.vm.yti.codelist.intake.filter.CacheFilter;
 import fi.vm.yti.codelist.intake.filter.CharsetResponseFilter;
 import fi.vm.yti.codelist.intake.filter.DataInitializationFilter;
+import fi.vm.yti.codelist.intake.filter.ImportProfilingFilter;
 import fi.vm.yti.codelist.intake.filter.RequestLoggingFilter;
 import fi.vm.yti.codelist.intake.resource.AdminResource;
 import fi.vm.yti.codelist.intake.resource.AuthenticatedUserResource;
@@ -94,6 +95,9 @@ public class JerseyConfig extends ResourceConfig {
         // Logging
         register(RequestLoggingFilter.class);
 
+        // Opt-in import profiling
+        register(ImportProfilingFilter.class);
+
         // Health
         register(PingResource.class);
 
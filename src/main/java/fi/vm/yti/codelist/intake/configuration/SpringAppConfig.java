@@ -3,15 +3,23 @@ package fi.vm.yti.codelist.intake.configuration;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 
 import org.apache.catalina.connector.Connector;
 import org.apache.coyote.ajp.AjpNioProtocol;
 import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestClientBuilder;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
@@ -22,7 +30,7 @@ import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.stereotype.Component;
@@ -30,14 +38,20 @@ import org.springframework.web.client.RestTemplate;
 
 import com.zaxxer.hikari.HikariDataSource;
 
+import fi.vm.yti.codelist.intake.metrics.FlushMetricsSessionListener;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+
 @Component
 @Configuration
 @EnableScheduling
 @PropertySource(value = "classpath", ignoreResourceNotFound = true)
 public class SpringAppConfig {
 
-    private static final int CONNECTION_TIMEOUT = 30000;
     private static final int ES_CONNECTION_TIMEOUT = 300000;
+    private static final String HTTP_CLIENT_POOL_NAME = "outbound";
+
+    private final HttpClientProperties httpClientProperties;
 
     @Value("${yti_codelist_content_intake_service_elastic_host}")
     private String elasticsearchHost;
@@ -48,6 +62,10 @@ public class SpringAppConfig {
     @Value(value = "${application.contextPath}")
     private String contextPath;
 
+    public SpringAppConfig(final HttpClientProperties httpClientProperties) {
+        this.httpClientProperties = httpClientProperties;
+    }
+
     @Bean
     public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
         return new PropertySourcesPlaceholderConfigurer();
@@ -81,6 +99,24 @@ public class SpringAppConfig {
         return new HikariDataSource();
     }
 
+    @Bean
+    HibernatePropertiesCustomizer secondLevelCacheCustomizer(@Value("${secondlevelcache.statistics:false}") final boolean statistics) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            hibernateProperties.put("hibernate.javax.cache.provider", "org.ehcache.jsr107.EhcacheCachingProvider");
+            hibernateProperties.put("hibernate.javax.cache.uri", "ehcache.xml");
+            hibernateProperties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+            hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, statistics);
+        };
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer sessionMetricsCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, FlushMetricsSessionListener.class.getName());
+    }
+
     @Bean
     @SuppressWarnings("resource")
     protected RestHighLevelClient elasticSearchRestHighLevelClient() {
@@ -93,12 +129,39 @@ public class SpringAppConfig {
         return new RestHighLevelClient(builder);
     }
 
+    @Bean(destroyMethod = "close")
+    PoolingHttpClientConnectionManager httpClientConnectionManager() {
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(httpClientProperties.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(httpClientProperties.getMaxConnectionsPerRoute());
+        connectionManager.setValidateAfterInactivity(httpClientProperties.getValidateAfterInactivity());
+        return connectionManager;
+    }
+
+    @Bean
+    MeterBinder httpClientConnectionPoolMetrics() {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(httpClientConnectionManager(), HTTP_CLIENT_POOL_NAME);
+    }
+
+    @Bean(destroyMethod = "close")
+    CloseableHttpClient httpClient() {
+        final RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout(httpClientProperties.getConnectTimeout())
+            .setSocketTimeout(httpClientProperties.getReadTimeout())
+            .setConnectionRequestTimeout(httpClientProperties.getConnectionRequestTimeout())
+            .build();
+        return HttpClients.custom()
+            .setConnectionManager(httpClientConnectionManager())
+            .setDefaultRequestConfig(requestConfig)
+            .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+            .evictExpiredConnections()
+            .evictIdleConnections(httpClientProperties.getIdleTimeout(), TimeUnit.MILLISECONDS)
+            .build();
+    }
+
     @Bean
     ClientHttpRequestFactory httpRequestFactory() {
-        final SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
-        requestFactory.setConnectTimeout(CONNECTION_TIMEOUT);
-        requestFactory.setReadTimeout(CONNECTION_TIMEOUT);
-        return requestFactory;
+        return new HttpComponentsClientHttpRequestFactory(httpClient());
     }
 
     @Bean
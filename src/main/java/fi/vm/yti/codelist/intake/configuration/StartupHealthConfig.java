@@ -0,0 +1,133 @@
+package fi.vm.yti.codelist.intake.configuration;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.endpoint.SecurityContext;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthEndpointGroup;
+import org.springframework.boot.actuate.health.HealthEndpointGroups;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.HttpCodeStatusMapper;
+import org.springframework.boot.actuate.health.StatusAggregator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import fi.vm.yti.codelist.intake.ServiceInitializer;
+import fi.vm.yti.codelist.intake.groupmanagement.GroupManagementSyncStatus;
+import fi.vm.yti.codelist.intake.indexing.Indexing;
+
+/**
+ * Health indicators for the startup stages and the health groups "writes", "search" and "groupmanagement" that expose
+ * them.
+ * <p>
+ * The groups are defined here instead of in the configuration files, because deployments replace the default config
+ * locations. The search index and group management indicators are left out of the aggregate health, a slow reindex or
+ * an unreachable group management service must not take the whole service out of rotation.
+ */
+@Configuration
+public class StartupHealthConfig {
+
+    private static final String DATABASE_INITIALIZATION = "databaseInitialization";
+    private static final String SEARCH_INDEX = "searchIndex";
+    private static final String GROUP_MANAGEMENT_SYNC = "groupManagementSync";
+    private static final Set<String> NON_AGGREGATED_INDICATORS = new HashSet<>(Arrays.asList(SEARCH_INDEX, GROUP_MANAGEMENT_SYNC));
+
+    @Bean
+    HealthIndicator databaseInitializationHealthIndicator(final ServiceInitializer serviceInitializer) {
+        return () -> serviceInitializer.isDatabaseReady() ? Health.up().build() : Health.outOfService().build();
+    }
+
+    @Bean
+    HealthIndicator searchIndexHealthIndicator(final ServiceInitializer serviceInitializer,
+                                               final Indexing indexing) {
+        return () -> {
+            Health.Builder builder;
+            try {
+                builder = indexing.isSearchAvailable() ? Health.up() : Health.outOfService();
+            } catch (final RuntimeException e) {
+                builder = Health.outOfService().withException(e);
+            }
+            return builder.withDetail("reindexing", !serviceInitializer.isIndexReady()).build();
+        };
+    }
+
+    @Bean
+    HealthIndicator groupManagementSyncHealthIndicator(final GroupManagementSyncStatus groupManagementSyncStatus) {
+        return () -> (groupManagementSyncStatus.isOrganizationsSynced() && groupManagementSyncStatus.isUsersSynced() ? Health.up() : Health.outOfService())
+            .withDetail("organizations", groupManagementSyncStatus.isOrganizationsSynced())
+            .withDetail("users", groupManagementSyncStatus.isUsersSynced())
+            .build();
+    }
+
+    @Bean
+    static BeanPostProcessor startupHealthGroupsPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(final Object bean,
+                                                         final String beanName) {
+                if (bean instanceof HealthEndpointGroups) {
+                    return withStartupGroups((HealthEndpointGroups) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static HealthEndpointGroups withStartupGroups(final HealthEndpointGroups groups) {
+        final HealthEndpointGroup primary = groups.getPrimary();
+        final Map<String, HealthEndpointGroup> additional = new LinkedHashMap<>();
+        for (final String name : groups.getNames()) {
+            additional.put(name, groups.get(name));
+        }
+        additional.putIfAbsent("writes", new StageHealthGroup(primary, name -> DATABASE_INITIALIZATION.equals(name) || "db".equals(name)));
+        additional.putIfAbsent("search", new StageHealthGroup(primary, SEARCH_INDEX::equals));
+        additional.putIfAbsent("groupmanagement", new StageHealthGroup(primary, GROUP_MANAGEMENT_SYNC::equals));
+        return HealthEndpointGroups.of(new StageHealthGroup(primary, name -> primary.isMember(name) && !NON_AGGREGATED_INDICATORS.contains(name)), additional);
+    }
+
+    /**
+     * Health group with its own members that otherwise behaves like the primary group.
+     */
+    private static final class StageHealthGroup implements HealthEndpointGroup {
+
+        private final HealthEndpointGroup primary;
+        private final Predicate<String> members;
+
+        private StageHealthGroup(final HealthEndpointGroup primary,
+                                 final Predicate<String> members) {
+            this.primary = primary;
+            this.members = members;
+        }
+
+        @Override
+        public boolean isMember(final String name) {
+            return members.test(name);
+        }
+
+        @Override
+        public boolean showComponents(final SecurityContext securityContext) {
+            return primary.showComponents(securityContext);
+        }
+
+        @Override
+        public boolean showDetails(final SecurityContext securityContext) {
+            return primary.showDetails(securityContext);
+        }
+
+        @Override
+        public StatusAggregator getStatusAggregator() {
+            return primary.getStatusAggregator();
+        }
+
+        @Override
+        public HttpCodeStatusMapper getHttpCodeStatusMapper() {
+            return primary.getHttpCodeStatusMapper();
+        }
+    }
+}
@@ -17,6 +17,10 @@ public class TerminologyProperties {
     @NotNull
     private String publicUrl;
 
+    private long cacheTtlSeconds = 60;
+
+    private long cacheMaxSize = 1000;
+
     public String getUrl() {
         return url;
     }
@@ -32,4 +36,20 @@ public class TerminologyProperties {
     public void setPublicUrl(final String publicUrl) {
         this.publicUrl = publicUrl;
     }
+
+    public long getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public void setCacheTtlSeconds(final long cacheTtlSeconds) {
+        this.cacheTtlSeconds = cacheTtlSeconds;
+    }
+
+    public long getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public void setCacheMaxSize(final long cacheMaxSize) {
+        this.cacheMaxSize = cacheMaxSize;
+    }
 }
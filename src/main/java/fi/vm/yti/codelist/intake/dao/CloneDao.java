@@ -0,0 +1,16 @@
+package fi.vm.yti.codelist.intake.dao;
+
+import java.util.Map;
+import java.util.UUID;
+
+import fi.vm.yti.codelist.intake.model.CodeScheme;
+import fi.vm.yti.codelist.intake.model.Extension;
+import fi.vm.yti.codelist.intake.model.ExternalReference;
+
+public interface CloneDao {
+
+    Map<UUID, UUID> cloneCodeSchemeContent(final CodeScheme originalCodeScheme,
+                                           final CodeScheme newCodeScheme,
+                                           final Map<UUID, ExternalReference> externalReferenceMap,
+                                           final Map<UUID, Extension> extensionMap);
+}
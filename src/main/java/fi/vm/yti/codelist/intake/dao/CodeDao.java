@@ -54,6 +54,9 @@ public interface CodeDao {
 
     Set<Code> findAll(final PageRequest pageRequest);
 
+    Set<Code> findAllAfter(final UUID afterId,
+                           final int pageSize);
+
     Set<Code> updateCodeFromDto(final CodeScheme codeScheme,
                                 final CodeDTO codeDto);
 
@@ -1,6 +1,7 @@
 package fi.vm.yti.codelist.intake.dao;
 
 import java.util.Date;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
@@ -23,6 +24,8 @@ public interface CodeSchemeDao {
 
     CodeScheme findByUri(final String uri);
 
+    List<CodeScheme> findVersionChain(final UUID id);
+
     Set<CodeScheme> findAll();
 
     Set<CodeScheme> findByCodeRegistryCodeValue(final String codeRegistryCodeValue);
@@ -0,0 +1,16 @@
+package fi.vm.yti.codelist.intake.dao;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+public interface IndexConsistencyDao {
+
+    Map<UUID, Date> findModifiedAfter(final Class<?> entityClass,
+                                      final UUID afterId,
+                                      final int pageSize);
+
+    Set<UUID> findExistingIds(final Class<?> entityClass,
+                              final Set<UUID> ids);
+}
@@ -28,6 +28,9 @@ public interface MemberDao {
 
     Set<Member> findAll(final PageRequest pageRequest);
 
+    Set<Member> findAllAfter(final UUID afterId,
+                             final int pageSize);
+
     Member findById(final UUID id);
 
     Set<Member> findByCodeId(final UUID id);
@@ -0,0 +1,14 @@
+package fi.vm.yti.codelist.intake.dao;
+
+public interface UriRewriteDao {
+
+    int rewriteCodeRegistryUris();
+
+    int rewriteCodeSchemeUris();
+
+    int rewriteCodeUris();
+
+    int rewriteExtensionUris();
+
+    int rewriteMemberUris();
+}
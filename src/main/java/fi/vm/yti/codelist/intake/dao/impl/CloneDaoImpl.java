@@ -0,0 +1,300 @@
+package fi.vm.yti.codelist.intake.dao.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.apache.commons.collections4.ListUtils;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.google.common.base.Stopwatch;
+
+import fi.vm.yti.codelist.common.dto.ErrorModel;
+import fi.vm.yti.codelist.common.model.Status;
+import fi.vm.yti.codelist.intake.api.ApiUtils;
+import fi.vm.yti.codelist.intake.dao.CloneDao;
+import fi.vm.yti.codelist.intake.exception.YtiCodeListException;
+import fi.vm.yti.codelist.intake.log.EntityChangeLogger;
+import fi.vm.yti.codelist.intake.log.EntityPayloadLogger;
+import fi.vm.yti.codelist.intake.model.Code;
+import fi.vm.yti.codelist.intake.model.CodeScheme;
+import fi.vm.yti.codelist.intake.model.Extension;
+import fi.vm.yti.codelist.intake.model.ExternalReference;
+import fi.vm.yti.codelist.intake.model.Member;
+import static fi.vm.yti.codelist.intake.exception.ErrorConstants.ERR_MSG_USER_500;
+
+/**
+ * Set based copy of the codes, members and their child rows of a code scheme into a new version.
+ * <p>
+ * UUID remap tables (old id to new id) are built once as temporary tables, rows are copied with INSERT ... SELECT
+ * statements joined against them, and the self references (broader code, related member) are fixed in a single
+ * UPDATE pass afterwards. The copied rows are then read back in batches for the payload log, and the new code scheme and
+ * extensions are refreshed so that their collections contain the copies.
+ */
+@Component
+public class CloneDaoImpl implements CloneDao {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CloneDaoImpl.class);
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String[] CREATE_REMAP_TABLES = {
+        "DROP TABLE IF EXISTS pg_temp.clone_code_map",
+        "DROP TABLE IF EXISTS pg_temp.clone_externalreference_map",
+        "DROP TABLE IF EXISTS pg_temp.clone_extension_map",
+        "DROP TABLE IF EXISTS pg_temp.clone_member_map",
+        "CREATE TEMPORARY TABLE clone_code_map (old_id uuid PRIMARY KEY, new_id uuid NOT NULL, uri text NOT NULL) ON COMMIT DROP",
+        "CREATE TEMPORARY TABLE clone_externalreference_map (old_id uuid PRIMARY KEY, new_id uuid NOT NULL) ON COMMIT DROP",
+        "CREATE TEMPORARY TABLE clone_extension_map (old_id uuid PRIMARY KEY, new_id uuid NOT NULL, member_uri_prefix text NOT NULL) ON COMMIT DROP",
+        "CREATE TEMPORARY TABLE clone_member_map (old_id uuid PRIMARY KEY, new_id uuid NOT NULL, extension_id uuid NOT NULL) ON COMMIT DROP"
+    };
+
+    private static final String SELECT_CODES = "SELECT id, codevalue FROM code WHERE codescheme_id = ?";
+    private static final String INSERT_CODE_MAP = "INSERT INTO clone_code_map (old_id, new_id, uri) VALUES (?, ?, ?)";
+    private static final String INSERT_EXTERNALREFERENCE_MAP = "INSERT INTO clone_externalreference_map (old_id, new_id) VALUES (?, ?)";
+    private static final String INSERT_EXTENSION_MAP = "INSERT INTO clone_extension_map (old_id, new_id, member_uri_prefix) VALUES (?, ?, ?)";
+    private static final String INSERT_MEMBER_MAP = "INSERT INTO clone_member_map (old_id, new_id, extension_id) " +
+        "SELECT m.id, uuid_generate_v4(), e.new_id FROM member AS m JOIN clone_extension_map AS e ON e.old_id = m.extension_id";
+
+    private static final String INSERT_CODES = "INSERT INTO code (id, uri, codevalue, status, shortname, startdate, enddate, codescheme_id, broadercode_id, hierarchylevel, flatorder, vocabularies_uri, created, modified) " +
+        "SELECT m.new_id, m.uri, c.codevalue, ?, c.shortname, c.startdate, c.enddate, ?, c.broadercode_id, c.hierarchylevel, c.flatorder, c.vocabularies_uri, ?, ? " +
+        "FROM code AS c JOIN clone_code_map AS m ON m.old_id = c.id";
+    private static final String INSERT_CODE_PREFLABELS = "INSERT INTO code_preflabel (code_id, language, preflabel) " +
+        "SELECT m.new_id, l.language, l.preflabel FROM code_preflabel AS l JOIN clone_code_map AS m ON m.old_id = l.code_id";
+    private static final String INSERT_CODE_DEFINITIONS = "INSERT INTO code_definition (code_id, language, definition) " +
+        "SELECT m.new_id, l.language, l.definition FROM code_definition AS l JOIN clone_code_map AS m ON m.old_id = l.code_id";
+    private static final String INSERT_CODE_DESCRIPTIONS = "INSERT INTO code_description (code_id, language, description) " +
+        "SELECT m.new_id, l.language, l.description FROM code_description AS l JOIN clone_code_map AS m ON m.old_id = l.code_id";
+    private static final String INSERT_CODE_EXTERNALREFERENCES = "INSERT INTO code_externalreference (code_id, externalreference_id) " +
+        "SELECT m.new_id, COALESCE(r.new_id, ce.externalreference_id) FROM code_externalreference AS ce " +
+        "JOIN clone_code_map AS m ON m.old_id = ce.code_id LEFT JOIN clone_externalreference_map AS r ON r.old_id = ce.externalreference_id";
+    private static final String REMAP_BROADER_CODES = "UPDATE code AS c SET broadercode_id = m.new_id FROM clone_code_map AS m " +
+        "WHERE c.codescheme_id = ? AND c.broadercode_id = m.old_id";
+
+    private static final String INSERT_MEMBERS = "INSERT INTO member (id, uri, memberorder, code_id, extension_id, startdate, enddate, created, modified, sequence_id) " +
+        "SELECT mm.new_id, e.member_uri_prefix || COALESCE(CAST(m.sequence_id AS text), CAST(mm.new_id AS text)), m.memberorder, COALESCE(c.new_id, m.code_id), mm.extension_id, m.startdate, m.enddate, ?, ?, m.sequence_id " +
+        "FROM member AS m JOIN clone_member_map AS mm ON mm.old_id = m.id JOIN clone_extension_map AS e ON e.new_id = mm.extension_id " +
+        "LEFT JOIN clone_code_map AS c ON c.old_id = m.code_id";
+    private static final String INSERT_MEMBER_PREFLABELS = "INSERT INTO member_preflabel (member_id, language, preflabel) " +
+        "SELECT mm.new_id, l.language, l.preflabel FROM member_preflabel AS l JOIN clone_member_map AS mm ON mm.old_id = l.member_id";
+    private static final String INSERT_MEMBERVALUES = "INSERT INTO membervalue (id, value, created, modified, valuetype_id, member_id) " +
+        "SELECT uuid_generate_v4(), mv.value, ?, ?, mv.valuetype_id, mm.new_id FROM membervalue AS mv JOIN clone_member_map AS mm ON mm.old_id = mv.member_id";
+    private static final String REMAP_RELATED_MEMBERS = "UPDATE member AS n SET relatedmember_id = r.new_id " +
+        "FROM clone_member_map AS mm, member AS o, clone_member_map AS r " +
+        "WHERE n.id = mm.new_id AND o.id = mm.old_id AND r.old_id = o.relatedmember_id";
+    private static final String RESET_MEMBER_SEQUENCES = "SELECT setval(CAST('seq_for_ext_' || replace(CAST(m.extension_id AS text), '-', '_') AS regclass), MAX(m.sequence_id)) " +
+        "FROM member AS m JOIN clone_extension_map AS e ON e.new_id = m.extension_id WHERE m.sequence_id IS NOT NULL GROUP BY m.extension_id";
+
+    private static final String SELECT_MEMBER_IDS = "SELECT new_id FROM clone_member_map";
+    private static final String INSERT_CODE_EDITEDENTITIES = "INSERT INTO editedentity (id, commit_id, code_id) SELECT uuid_generate_v4(), ?, new_id FROM clone_code_map";
+    private static final String INSERT_MEMBER_EDITEDENTITIES = "INSERT INTO editedentity (id, commit_id, member_id) SELECT uuid_generate_v4(), ?, new_id FROM clone_member_map";
+
+    private final ApiUtils apiUtils;
+    private final EntityChangeLogger entityChangeLogger;
+    private final EntityPayloadLogger entityPayloadLogger;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CloneDaoImpl(final ApiUtils apiUtils,
+                        final EntityChangeLogger entityChangeLogger,
+                        final EntityPayloadLogger entityPayloadLogger) {
+        this.apiUtils = apiUtils;
+        this.entityChangeLogger = entityChangeLogger;
+        this.entityPayloadLogger = entityPayloadLogger;
+    }
+
+    @Transactional
+    public Map<UUID, UUID> cloneCodeSchemeContent(final CodeScheme originalCodeScheme,
+                                                  final CodeScheme newCodeScheme,
+                                                  final Map<UUID, ExternalReference> externalReferenceMap,
+                                                  final Map<UUID, Extension> extensionMap) {
+        final Stopwatch watch = Stopwatch.createStarted();
+        final UUID commitId = entityChangeLogger.getOrCreateCommit().getId();
+        final Map<UUID, UUID> codeIdMap = new HashMap<>();
+        final List<UUID> memberIds = new ArrayList<>();
+        entityManager.flush();
+        try {
+            entityManager.unwrap(Session.class).doWork(connection -> {
+                executeStatements(connection, CREATE_REMAP_TABLES);
+                buildCodeMap(connection, originalCodeScheme, newCodeScheme, codeIdMap);
+                buildExternalReferenceMap(connection, externalReferenceMap);
+                buildExtensionMap(connection, extensionMap);
+                executeStatements(connection, INSERT_MEMBER_MAP, "ANALYZE clone_code_map", "ANALYZE clone_member_map");
+                final Timestamp timeStamp = new Timestamp(System.currentTimeMillis());
+                copyCodes(connection, newCodeScheme, timeStamp);
+                copyMembers(connection, timeStamp);
+                logChanges(connection, commitId);
+                collectMemberIds(connection, memberIds);
+            });
+        } catch (final HibernateException e) {
+            LOG.error("Bulk cloning of code scheme content failed: ", e);
+            throw new YtiCodeListException(new ErrorModel(HttpStatus.INTERNAL_SERVER_ERROR.value(), ERR_MSG_USER_500));
+        }
+        refresh(CodeScheme.class, newCodeScheme.getId());
+        extensionMap.values().forEach(extension -> refresh(Extension.class, extension.getId()));
+        logPayloads(new ArrayList<>(codeIdMap.values()), memberIds);
+        LOG.debug("Cloned {} codes from code scheme {} to {} in {}", codeIdMap.size(), originalCodeScheme.getId(), newCodeScheme.getId(), watch);
+        return codeIdMap;
+    }
+
+    private void buildCodeMap(final Connection connection,
+                              final CodeScheme originalCodeScheme,
+                              final CodeScheme newCodeScheme,
+                              final Map<UUID, UUID> codeIdMap) throws SQLException {
+        try (final PreparedStatement select = connection.prepareStatement(SELECT_CODES);
+             final PreparedStatement insert = connection.prepareStatement(INSERT_CODE_MAP)) {
+            select.setObject(1, originalCodeScheme.getId());
+            try (final ResultSet results = select.executeQuery()) {
+                int count = 0;
+                while (results.next()) {
+                    final UUID oldId = (UUID) results.getObject(1);
+                    final UUID newId = UUID.randomUUID();
+                    codeIdMap.put(oldId, newId);
+                    insert.setObject(1, oldId);
+                    insert.setObject(2, newId);
+                    insert.setString(3, apiUtils.createCodeUri(newCodeScheme.getCodeRegistry(), newCodeScheme, results.getString(2)));
+                    insert.addBatch();
+                    if (++count % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private void buildExternalReferenceMap(final Connection connection,
+                                           final Map<UUID, ExternalReference> externalReferenceMap) throws SQLException {
+        try (final PreparedStatement insert = connection.prepareStatement(INSERT_EXTERNALREFERENCE_MAP)) {
+            for (final Map.Entry<UUID, ExternalReference> entry : externalReferenceMap.entrySet()) {
+                insert.setObject(1, entry.getKey());
+                insert.setObject(2, entry.getValue().getId());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private void buildExtensionMap(final Connection connection,
+                                   final Map<UUID, Extension> extensionMap) throws SQLException {
+        try (final PreparedStatement insert = connection.prepareStatement(INSERT_EXTENSION_MAP)) {
+            for (final Map.Entry<UUID, Extension> entry : extensionMap.entrySet()) {
+                insert.setObject(1, entry.getKey());
+                insert.setObject(2, entry.getValue().getId());
+                insert.setString(3, apiUtils.createMemberUriPrefix(entry.getValue()));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private void copyCodes(final Connection connection,
+                           final CodeScheme newCodeScheme,
+                           final Timestamp timeStamp) throws SQLException {
+        try (final PreparedStatement insert = connection.prepareStatement(INSERT_CODES)) {
+            insert.setString(1, Status.DRAFT.toString());
+            insert.setObject(2, newCodeScheme.getId());
+            insert.setTimestamp(3, timeStamp);
+            insert.setTimestamp(4, timeStamp);
+            insert.executeUpdate();
+        }
+        executeStatements(connection, INSERT_CODE_PREFLABELS, INSERT_CODE_DEFINITIONS, INSERT_CODE_DESCRIPTIONS, INSERT_CODE_EXTERNALREFERENCES);
+        try (final PreparedStatement update = connection.prepareStatement(REMAP_BROADER_CODES)) {
+            update.setObject(1, newCodeScheme.getId());
+            update.executeUpdate();
+        }
+    }
+
+    private void copyMembers(final Connection connection,
+                             final Timestamp timeStamp) throws SQLException {
+        try (final PreparedStatement insert = connection.prepareStatement(INSERT_MEMBERS)) {
+            insert.setTimestamp(1, timeStamp);
+            insert.setTimestamp(2, timeStamp);
+            insert.executeUpdate();
+        }
+        executeStatements(connection, INSERT_MEMBER_PREFLABELS);
+        try (final PreparedStatement insert = connection.prepareStatement(INSERT_MEMBERVALUES)) {
+            insert.setTimestamp(1, timeStamp);
+            insert.setTimestamp(2, timeStamp);
+            insert.executeUpdate();
+        }
+        executeStatements(connection, REMAP_RELATED_MEMBERS);
+        try (final Statement statement = connection.createStatement();
+             final ResultSet ignored = statement.executeQuery(RESET_MEMBER_SEQUENCES)) {
+            LOG.debug("Member sequences of cloned extensions updated.");
+        }
+    }
+
+    private void logChanges(final Connection connection,
+                            final UUID commitId) throws SQLException {
+        for (final String sql : new String[]{ INSERT_CODE_EDITEDENTITIES, INSERT_MEMBER_EDITEDENTITIES }) {
+            try (final PreparedStatement insert = connection.prepareStatement(sql)) {
+                insert.setObject(1, commitId);
+                insert.executeUpdate();
+            }
+        }
+    }
+
+    private void collectMemberIds(final Connection connection,
+                                  final List<UUID> memberIds) throws SQLException {
+        try (final Statement statement = connection.createStatement();
+             final ResultSet results = statement.executeQuery(SELECT_MEMBER_IDS)) {
+            while (results.next()) {
+                memberIds.add((UUID) results.getObject(1));
+            }
+        }
+    }
+
+    /**
+     * Rows were inserted past the persistence context, so managed instances are refreshed to see the copied children.
+     */
+    private void refresh(final Class<?> entityClass,
+                         final UUID id) {
+        final Object entity = entityManager.find(entityClass, id);
+        if (entity != null) {
+            entityManager.refresh(entity);
+        }
+    }
+
+    private void logPayloads(final List<UUID> codeIds,
+                             final List<UUID> memberIds) {
+        for (final List<UUID> ids : ListUtils.partition(codeIds, BATCH_SIZE)) {
+            entityManager.createQuery("SELECT c FROM Code AS c WHERE c.id IN :ids", Code.class)
+                .setParameter("ids", ids)
+                .getResultList()
+                .forEach(entityPayloadLogger::logCode);
+        }
+        for (final List<UUID> ids : ListUtils.partition(memberIds, BATCH_SIZE)) {
+            entityPayloadLogger.logMembers(new HashSet<>(entityManager.createQuery("SELECT m FROM Member AS m WHERE m.id IN :ids", Member.class)
+                .setParameter("ids", ids)
+                .getResultList()));
+        }
+    }
+
+    private void executeStatements(final Connection connection,
+                                   final String... statements) throws SQLException {
+        try (final Statement statement = connection.createStatement()) {
+            for (final String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+}
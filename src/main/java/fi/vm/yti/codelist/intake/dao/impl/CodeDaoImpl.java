@@ -13,6 +13,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -35,6 +36,7 @@ import fi.vm.yti.codelist.intake.jpa.CodeRepository;
 import fi.vm.yti.codelist.intake.jpa.CodeSchemeRepository;
 import fi.vm.yti.codelist.intake.language.LanguageService;
 import fi.vm.yti.codelist.intake.log.EntityChangeLogger;
+import fi.vm.yti.codelist.intake.metrics.IntakeMetrics;
 import fi.vm.yti.codelist.intake.model.Code;
 import fi.vm.yti.codelist.intake.model.CodeScheme;
 import fi.vm.yti.codelist.intake.model.Extension;
@@ -43,6 +45,7 @@ import fi.vm.yti.codelist.intake.model.Member;
 import fi.vm.yti.codelist.intake.security.AuthorizationManager;
 import fi.vm.yti.codelist.intake.util.ValidationUtils;
 import static fi.vm.yti.codelist.intake.exception.ErrorConstants.*;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.ENTITY_CODE;
 import static fi.vm.yti.codelist.intake.parser.impl.AbstractBaseParser.validateCodeCodeValue;
 
 @Component
@@ -60,6 +63,7 @@ public class CodeDaoImpl extends AbstractDao implements CodeDao {
     private final ExtensionDao extensionDao;
     private final MemberDao memberDao;
     private final CodeSchemeDao codeSchemeDao;
+    private final IntakeMetrics intakeMetrics;
 
     public CodeDaoImpl(final EntityChangeLogger entityChangeLogger,
                        final ApiUtils apiUtils,
@@ -70,7 +74,8 @@ public class CodeDaoImpl extends AbstractDao implements CodeDao {
                        final LanguageService languageService,
                        final CodeSchemeDao codeSchemeDao,
                        @Lazy final ExtensionDao extensionDao,
-                       @Lazy final MemberDao memberDao) {
+                       @Lazy final MemberDao memberDao,
+                       final IntakeMetrics intakeMetrics) {
         super(languageService);
         this.entityChangeLogger = entityChangeLogger;
         this.apiUtils = apiUtils;
@@ -81,6 +86,7 @@ public class CodeDaoImpl extends AbstractDao implements CodeDao {
         this.codeSchemeDao = codeSchemeDao;
         this.extensionDao = extensionDao;
         this.memberDao = memberDao;
+        this.intakeMetrics = intakeMetrics;
     }
 
     @Transactional
@@ -105,9 +111,14 @@ public class CodeDaoImpl extends AbstractDao implements CodeDao {
     @Transactional
     public void save(final Set<Code> codes,
                      final boolean logChange) {
-        codeRepository.saveAll(codes);
-        if (logChange) {
-            entityChangeLogger.logCodesChange(codes);
+        final long start = System.nanoTime();
+        try {
+            codeRepository.saveAll(codes);
+            if (logChange) {
+                entityChangeLogger.logCodesChange(codes);
+            }
+        } finally {
+            intakeMetrics.recordSave(ENTITY_CODE, codes.size(), System.nanoTime() - start);
         }
     }
 
@@ -138,6 +149,16 @@ public class CodeDaoImpl extends AbstractDao implements CodeDao {
         return new HashSet<>(codeRepository.findAll(pageRequest).getContent());
     }
 
+    @Transactional
+    public Set<Code> findAllAfter(final UUID afterId,
+                                  final int pageSize) {
+        final PageRequest pageRequest = PageRequest.of(0, pageSize, Sort.by(Sort.Direction.ASC, "id"));
+        if (afterId == null) {
+            return new HashSet<>(codeRepository.findAll(pageRequest).getContent());
+        }
+        return new HashSet<>(codeRepository.findByIdGreaterThan(afterId, pageRequest));
+    }
+
     @Transactional
     public Set<Code> findAll() {
         return codeRepository.findAll();
@@ -17,15 +17,18 @@ import fi.vm.yti.codelist.common.dto.CodeRegistryDTO;
 import fi.vm.yti.codelist.common.dto.ErrorModel;
 import fi.vm.yti.codelist.common.dto.OrganizationDTO;
 import fi.vm.yti.codelist.intake.api.ApiUtils;
+import fi.vm.yti.codelist.intake.cache.ReferenceDataCache;
 import fi.vm.yti.codelist.intake.dao.CodeRegistryDao;
 import fi.vm.yti.codelist.intake.exception.YtiCodeListException;
 import fi.vm.yti.codelist.intake.jpa.CodeRegistryRepository;
 import fi.vm.yti.codelist.intake.jpa.OrganizationRepository;
 import fi.vm.yti.codelist.intake.language.LanguageService;
 import fi.vm.yti.codelist.intake.log.EntityChangeLogger;
+import fi.vm.yti.codelist.intake.metrics.IntakeMetrics;
 import fi.vm.yti.codelist.intake.model.CodeRegistry;
 import fi.vm.yti.codelist.intake.model.Organization;
 import static fi.vm.yti.codelist.intake.exception.ErrorConstants.ERR_MSG_USER_CODEREGISTRY_NO_ORGANIZATION;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.ENTITY_CODEREGISTRY;
 import static fi.vm.yti.codelist.intake.parser.impl.AbstractBaseParser.validateCodeValue;
 
 @Component
@@ -35,32 +38,45 @@ public class CodeRegistryDaoImpl extends AbstractDao implements CodeRegistryDao
     private final ApiUtils apiUtils;
     private final CodeRegistryRepository codeRegistryRepository;
     private final OrganizationRepository organizationRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final IntakeMetrics intakeMetrics;
 
     @Inject
     public CodeRegistryDaoImpl(final EntityChangeLogger entityChangeLogger,
                                final ApiUtils apiUtils,
                                final CodeRegistryRepository codeRegistryRepository,
                                final OrganizationRepository organizationRepository,
-                               final LanguageService languageService) {
+                               final LanguageService languageService,
+                               final ReferenceDataCache referenceDataCache,
+                               final IntakeMetrics intakeMetrics) {
         super(languageService);
         this.entityChangeLogger = entityChangeLogger;
         this.apiUtils = apiUtils;
         this.codeRegistryRepository = codeRegistryRepository;
         this.organizationRepository = organizationRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.intakeMetrics = intakeMetrics;
     }
 
     @Transactional
     public void delete(final CodeRegistry codeRegistry) {
         entityChangeLogger.logCodeRegistryChange(codeRegistry);
         codeRegistryRepository.delete(codeRegistry);
+        referenceDataCache.evictCodeRegistries();
     }
 
     @Transactional
     public void save(final Set<CodeRegistry> codeRegistries,
                      final boolean logChange) {
-        codeRegistryRepository.saveAll(codeRegistries);
-        if (logChange) {
-            codeRegistries.forEach(entityChangeLogger::logCodeRegistryChange);
+        final long start = System.nanoTime();
+        try {
+            codeRegistryRepository.saveAll(codeRegistries);
+            referenceDataCache.evictCodeRegistries();
+            if (logChange) {
+                codeRegistries.forEach(entityChangeLogger::logCodeRegistryChange);
+            }
+        } finally {
+            intakeMetrics.recordSave(ENTITY_CODEREGISTRY, codeRegistries.size(), System.nanoTime() - start);
         }
     }
 
@@ -83,6 +99,7 @@ public class CodeRegistryDaoImpl extends AbstractDao implements CodeRegistryDao
         final CodeRegistry codeRegistry = createOrUpdateCodeRegistry(codeRegistryDto);
         codeRegistryRepository.save(codeRegistry);
         entityChangeLogger.logCodeRegistryChange(codeRegistry);
+        referenceDataCache.evictCodeRegistries();
         return codeRegistry;
     }
 
@@ -93,6 +110,7 @@ public class CodeRegistryDaoImpl extends AbstractDao implements CodeRegistryDao
         if (!codeRegistries.isEmpty()) {
             codeRegistryRepository.saveAll(codeRegistries);
             codeRegistries.forEach(entityChangeLogger::logCodeRegistryChange);
+            referenceDataCache.evictCodeRegistries();
         }
         return codeRegistries;
     }
@@ -29,6 +29,7 @@ import fi.vm.yti.codelist.intake.jpa.CodeSchemeRepository;
 import fi.vm.yti.codelist.intake.jpa.OrganizationRepository;
 import fi.vm.yti.codelist.intake.language.LanguageService;
 import fi.vm.yti.codelist.intake.log.EntityChangeLogger;
+import fi.vm.yti.codelist.intake.metrics.IntakeMetrics;
 import fi.vm.yti.codelist.intake.model.Code;
 import fi.vm.yti.codelist.intake.model.CodeRegistry;
 import fi.vm.yti.codelist.intake.model.CodeScheme;
@@ -36,6 +37,7 @@ import fi.vm.yti.codelist.intake.model.ExternalReference;
 import fi.vm.yti.codelist.intake.model.Organization;
 import fi.vm.yti.codelist.intake.security.AuthorizationManager;
 import static fi.vm.yti.codelist.intake.exception.ErrorConstants.*;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.ENTITY_CODESCHEME;
 import static fi.vm.yti.codelist.intake.parser.impl.AbstractBaseParser.JUPO_REGISTRY;
 import static fi.vm.yti.codelist.intake.parser.impl.AbstractBaseParser.validateCodeValue;
 
@@ -51,6 +53,7 @@ public class CodeSchemeDaoImpl extends AbstractDao implements CodeSchemeDao {
     private final ExternalReferenceDao externalReferenceDao;
     private final LanguageService languageService;
     private final OrganizationRepository organizationRepository;
+    private final IntakeMetrics intakeMetrics;
 
     @Inject
     public CodeSchemeDaoImpl(final EntityChangeLogger entityChangeLogger,
@@ -61,7 +64,8 @@ public class CodeSchemeDaoImpl extends AbstractDao implements CodeSchemeDao {
                              final AuthorizationManager authorizationManager,
                              final ExternalReferenceDao externalReferenceDao,
                              final LanguageService languageService,
-                             final OrganizationRepository organizationRepository) {
+                             final OrganizationRepository organizationRepository,
+                             final IntakeMetrics intakeMetrics) {
         super(languageService);
         this.entityChangeLogger = entityChangeLogger;
         this.apiUtils = apiUtils;
@@ -72,12 +76,14 @@ public class CodeSchemeDaoImpl extends AbstractDao implements CodeSchemeDao {
         this.externalReferenceDao = externalReferenceDao;
         this.languageService = languageService;
         this.organizationRepository = organizationRepository;
+        this.intakeMetrics = intakeMetrics;
     }
 
     @Transactional
     public void delete(final CodeScheme codeScheme) {
         entityChangeLogger.logCodeSchemeChange(codeScheme);
         codeSchemeRepository.delete(codeScheme);
+        languageService.evictCodeSchemeLanguages(codeScheme.getId());
     }
 
     @Transactional
@@ -89,9 +95,14 @@ public class CodeSchemeDaoImpl extends AbstractDao implements CodeSchemeDao {
     @Transactional
     public void save(final Set<CodeScheme> codeSchemes,
                      final boolean logChange) {
-        codeSchemeRepository.saveAll(codeSchemes);
-        if (logChange) {
-            codeSchemes.forEach(entityChangeLogger::logCodeSchemeChange);
+        final long start = System.nanoTime();
+        try {
+            codeSchemeRepository.saveAll(codeSchemes);
+            if (logChange) {
+                codeSchemes.forEach(entityChangeLogger::logCodeSchemeChange);
+            }
+        } finally {
+            intakeMetrics.recordSave(ENTITY_CODESCHEME, codeSchemes.size(), System.nanoTime() - start);
         }
     }
 
@@ -105,6 +116,11 @@ public class CodeSchemeDaoImpl extends AbstractDao implements CodeSchemeDao {
         return codeSchemeRepository.findById(id);
     }
 
+    @Transactional
+    public List<CodeScheme> findVersionChain(final UUID id) {
+        return codeSchemeRepository.findVersionChain(id);
+    }
+
     @Transactional
     public CodeScheme findByUri(final String uri) {
         return codeSchemeRepository.findByUriIgnoreCase(uri);
@@ -190,10 +206,24 @@ public class CodeSchemeDaoImpl extends AbstractDao implements CodeSchemeDao {
         updateContentModified(codeSchemeId, new Date(System.currentTimeMillis()));
     }
 
+    /**
+     * Updates the content modification time through the managed entity, so that code schemes mapped later in the same
+     * transaction carry it. The time only moves forward, it is part of the index version of every document embedding
+     * the code scheme.
+     */
     @Transactional
     public void updateContentModified(final UUID codeSchemeId,
                                       final Date timeStamp) {
-        codeSchemeRepository.updateContentModified(codeSchemeId, timeStamp);
+        final CodeScheme codeScheme = codeSchemeRepository.findById(codeSchemeId);
+        if (codeScheme == null) {
+            return;
+        }
+        final Date contentModified = codeScheme.getContentModified();
+        if (contentModified != null && !timeStamp.after(contentModified)) {
+            codeScheme.setContentModified(new Date(contentModified.getTime() + 1));
+        } else {
+            codeScheme.setContentModified(timeStamp);
+        }
     }
 
     @Transactional
@@ -272,6 +302,7 @@ public class CodeSchemeDaoImpl extends AbstractDao implements CodeSchemeDao {
         }
         final Set<Code> languageCodes = resolveLanguageCodesFromDtosAndCodeScheme(fromCodeScheme.getLanguageCodes(), existingCodeScheme.getId());
         existingCodeScheme.setLanguageCodes(languageCodes);
+        languageService.evictCodeSchemeLanguages(existingCodeScheme.getId());
         final String uri = apiUtils.createCodeSchemeUri(codeRegistry, existingCodeScheme);
         if (!Objects.equals(existingCodeScheme.getUri(), uri)) {
             existingCodeScheme.setUri(uri);
@@ -348,6 +379,7 @@ public class CodeSchemeDaoImpl extends AbstractDao implements CodeSchemeDao {
             final UUID uuid = UUID.randomUUID();
             codeScheme.setId(uuid);
         }
+        languageService.evictCodeSchemeLanguages(codeScheme.getId());
         codeScheme.setOrganizations(resolveOrganizationsFromDtosOrCodeRegistry(fromCodeScheme.getOrganizations(), codeRegistry));
         final String codeValue = fromCodeScheme.getCodeValue();
         validateCodeValue(codeValue);
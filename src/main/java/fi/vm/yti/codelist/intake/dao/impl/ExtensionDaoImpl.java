@@ -35,6 +35,7 @@ import fi.vm.yti.codelist.intake.jpa.ExtensionRepository;
 import fi.vm.yti.codelist.intake.jpa.MemberRepository;
 import fi.vm.yti.codelist.intake.language.LanguageService;
 import fi.vm.yti.codelist.intake.log.EntityChangeLogger;
+import fi.vm.yti.codelist.intake.metrics.IntakeMetrics;
 import fi.vm.yti.codelist.intake.model.Code;
 import fi.vm.yti.codelist.intake.model.CodeScheme;
 import fi.vm.yti.codelist.intake.model.Extension;
@@ -44,6 +45,7 @@ import fi.vm.yti.codelist.intake.security.AuthorizationManager;
 import static fi.vm.yti.codelist.common.constants.ApiConstants.CODE_EXTENSION;
 import static fi.vm.yti.codelist.common.constants.ApiConstants.EXTENSION;
 import static fi.vm.yti.codelist.intake.exception.ErrorConstants.*;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.ENTITY_EXTENSION;
 
 @Component
 public class ExtensionDaoImpl extends AbstractDao implements ExtensionDao {
@@ -57,6 +59,7 @@ public class ExtensionDaoImpl extends AbstractDao implements ExtensionDao {
     private final MemberDao memberDao;
     private final ApiUtils apiUtils;
     private final MemberRepository memberRepository;
+    private final IntakeMetrics intakeMetrics;
 
     @Inject
     public ExtensionDaoImpl(final AuthorizationManager authorizationManager,
@@ -67,7 +70,8 @@ public class ExtensionDaoImpl extends AbstractDao implements ExtensionDao {
                             final LanguageService languageService,
                             final MemberDao memberDao,
                             final ApiUtils apiUtils,
-                            final MemberRepository memberRepository) {
+                            final MemberRepository memberRepository,
+                            final IntakeMetrics intakeMetrics) {
         super(languageService);
         this.authorizationManager = authorizationManager;
         this.entityChangeLogger = entityChangeLogger;
@@ -78,6 +82,7 @@ public class ExtensionDaoImpl extends AbstractDao implements ExtensionDao {
         this.memberDao = memberDao;
         this.apiUtils = apiUtils;
         this.memberRepository = memberRepository;
+        this.intakeMetrics = intakeMetrics;
     }
 
     public void delete(final Extension extension) {
@@ -102,9 +107,14 @@ public class ExtensionDaoImpl extends AbstractDao implements ExtensionDao {
 
     public void save(final Set<Extension> extensions,
                      final boolean logChange) {
-        extensionRepository.saveAll(extensions);
-        if (logChange) {
-            extensions.forEach(entityChangeLogger::logExtensionChange);
+        final long start = System.nanoTime();
+        try {
+            extensionRepository.saveAll(extensions);
+            if (logChange) {
+                extensions.forEach(entityChangeLogger::logExtensionChange);
+            }
+        } finally {
+            intakeMetrics.recordSave(ENTITY_EXTENSION, extensions.size(), System.nanoTime() - start);
         }
     }
 
@@ -21,10 +21,12 @@ import fi.vm.yti.codelist.intake.jpa.ExternalReferenceRepository;
 import fi.vm.yti.codelist.intake.jpa.PropertyTypeRepository;
 import fi.vm.yti.codelist.intake.language.LanguageService;
 import fi.vm.yti.codelist.intake.log.EntityChangeLogger;
+import fi.vm.yti.codelist.intake.metrics.IntakeMetrics;
 import fi.vm.yti.codelist.intake.model.CodeScheme;
 import fi.vm.yti.codelist.intake.model.ExternalReference;
 import fi.vm.yti.codelist.intake.model.PropertyType;
 import static fi.vm.yti.codelist.intake.exception.ErrorConstants.*;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.ENTITY_EXTERNALREFERENCE;
 
 @Component
 public class ExternalReferenceDaoImpl extends AbstractDao implements ExternalReferenceDao {
@@ -38,16 +40,19 @@ public class ExternalReferenceDaoImpl extends AbstractDao implements ExternalRef
     private final ExternalReferenceRepository externalReferenceRepository;
     private final PropertyTypeRepository propertyTypeRepository;
     private final LanguageService languageService;
+    private final IntakeMetrics intakeMetrics;
 
     public ExternalReferenceDaoImpl(final EntityChangeLogger entityChangeLogger,
                                     final ExternalReferenceRepository externalReferenceRepository,
                                     final PropertyTypeRepository propertyTypeRepository,
-                                    final LanguageService languageService) {
+                                    final LanguageService languageService,
+                                    final IntakeMetrics intakeMetrics) {
         super(languageService);
         this.entityChangeLogger = entityChangeLogger;
         this.externalReferenceRepository = externalReferenceRepository;
         this.propertyTypeRepository = propertyTypeRepository;
         this.languageService = languageService;
+        this.intakeMetrics = intakeMetrics;
     }
 
     @Transactional
@@ -64,8 +69,13 @@ public class ExternalReferenceDaoImpl extends AbstractDao implements ExternalRef
 
     @Transactional
     public void save(final Set<ExternalReference> externalReferences) {
-        externalReferenceRepository.saveAll(externalReferences);
-        externalReferences.forEach(entityChangeLogger::logExternalReferenceChange);
+        final long start = System.nanoTime();
+        try {
+            externalReferenceRepository.saveAll(externalReferences);
+            externalReferences.forEach(entityChangeLogger::logExternalReferenceChange);
+        } finally {
+            intakeMetrics.recordSave(ENTITY_EXTERNALREFERENCE, externalReferences.size(), System.nanoTime() - start);
+        }
     }
 
     @Transactional
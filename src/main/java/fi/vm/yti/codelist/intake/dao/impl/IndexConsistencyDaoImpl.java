@@ -0,0 +1,58 @@
+package fi.vm.yti.codelist.intake.dao.impl;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import fi.vm.yti.codelist.intake.dao.IndexConsistencyDao;
+
+/**
+ * Reads only the ids and modification timestamps of indexed entities, so that the index contents can be verified
+ * without loading and mapping the entities themselves.
+ */
+@Component
+public class IndexConsistencyDaoImpl implements IndexConsistencyDao {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public Map<UUID, Date> findModifiedAfter(final Class<?> entityClass,
+                                             final UUID afterId,
+                                             final int pageSize) {
+        final String entityName = entityClass.getSimpleName();
+        final TypedQuery<Object[]> query;
+        if (afterId == null) {
+            query = entityManager.createQuery("SELECT e.id, e.modified FROM " + entityName + " AS e ORDER BY e.id", Object[].class);
+        } else {
+            query = entityManager.createQuery("SELECT e.id, e.modified FROM " + entityName + " AS e WHERE e.id > :afterId ORDER BY e.id", Object[].class);
+            query.setParameter("afterId", afterId);
+        }
+        final List<Object[]> rows = query.setMaxResults(pageSize).getResultList();
+        final Map<UUID, Date> modifiedById = new LinkedHashMap<>();
+        rows.forEach(row -> modifiedById.put((UUID) row[0], (Date) row[1]));
+        return modifiedById;
+    }
+
+    @Transactional(readOnly = true)
+    public Set<UUID> findExistingIds(final Class<?> entityClass,
+                                     final Set<UUID> ids) {
+        if (ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(entityManager.createQuery("SELECT e.id FROM " + entityClass.getSimpleName() + " AS e WHERE e.id IN :ids", UUID.class)
+            .setParameter("ids", ids)
+            .getResultList());
+    }
+}
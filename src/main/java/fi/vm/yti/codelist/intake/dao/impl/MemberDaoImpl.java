@@ -19,6 +19,7 @@ import javax.inject.Inject;
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -41,6 +42,7 @@ import fi.vm.yti.codelist.intake.exception.YtiCodeListException;
 import fi.vm.yti.codelist.intake.jpa.MemberRepository;
 import fi.vm.yti.codelist.intake.language.LanguageService;
 import fi.vm.yti.codelist.intake.log.EntityChangeLogger;
+import fi.vm.yti.codelist.intake.metrics.IntakeMetrics;
 import fi.vm.yti.codelist.intake.model.Code;
 import fi.vm.yti.codelist.intake.model.CodeScheme;
 import fi.vm.yti.codelist.intake.model.Extension;
@@ -49,6 +51,7 @@ import fi.vm.yti.codelist.intake.model.MemberValue;
 import fi.vm.yti.codelist.intake.model.ValueType;
 import static fi.vm.yti.codelist.common.constants.ApiConstants.CODE_EXTENSION;
 import static fi.vm.yti.codelist.intake.exception.ErrorConstants.*;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.ENTITY_MEMBER;
 import static fi.vm.yti.codelist.intake.util.EncodingUtils.urlEncodeCodeValue;
 
 @Component
@@ -71,6 +74,7 @@ public class MemberDaoImpl extends AbstractDao implements MemberDao {
     private final ApiUtils apiUtils;
     private final ExtensionDao extensionDao;
     private final ValueTypeDao valueTypeDao;
+    private final IntakeMetrics intakeMetrics;
 
     @Inject
     public MemberDaoImpl(final EntityChangeLogger entityChangeLogger,
@@ -82,7 +86,8 @@ public class MemberDaoImpl extends AbstractDao implements MemberDao {
                          final MemberValueDao memberValueDao,
                          final ApiUtils apiUtils,
                          @Lazy final ExtensionDao extensionDao,
-                         final ValueTypeDao valueTypeDao) {
+                         final ValueTypeDao valueTypeDao,
+                         final IntakeMetrics intakeMetrics) {
         super(languageService);
         this.entityChangeLogger = entityChangeLogger;
         this.memberRepository = memberRepository;
@@ -94,6 +99,7 @@ public class MemberDaoImpl extends AbstractDao implements MemberDao {
         this.apiUtils = apiUtils;
         this.extensionDao = extensionDao;
         this.valueTypeDao = valueTypeDao;
+        this.intakeMetrics = intakeMetrics;
     }
 
     @Transactional
@@ -122,9 +128,14 @@ public class MemberDaoImpl extends AbstractDao implements MemberDao {
     @Transactional
     public void save(final Set<Member> members,
                      final boolean logChange) {
-        memberRepository.saveAll(members);
-        if (logChange) {
-            entityChangeLogger.logMemberChanges(members);
+        final long start = System.nanoTime();
+        try {
+            memberRepository.saveAll(members);
+            if (logChange) {
+                entityChangeLogger.logMemberChanges(members);
+            }
+        } finally {
+            intakeMetrics.recordSave(ENTITY_MEMBER, members.size(), System.nanoTime() - start);
         }
     }
 
@@ -143,6 +154,16 @@ public class MemberDaoImpl extends AbstractDao implements MemberDao {
         return new HashSet<>(memberRepository.findAll(pageRequest).getContent());
     }
 
+    @Transactional
+    public Set<Member> findAllAfter(final UUID afterId,
+                                    final int pageSize) {
+        final PageRequest pageRequest = PageRequest.of(0, pageSize, Sort.by(Sort.Direction.ASC, "id"));
+        if (afterId == null) {
+            return new HashSet<>(memberRepository.findAll(pageRequest).getContent());
+        }
+        return new HashSet<>(memberRepository.findByIdGreaterThan(afterId, pageRequest));
+    }
+
     @Transactional
     public Member findById(final UUID id) {
         return memberRepository.findById(id);
@@ -14,24 +14,32 @@ import org.springframework.transaction.annotation.Transactional;
 
 import fi.vm.yti.codelist.common.dto.ErrorModel;
 import fi.vm.yti.codelist.common.dto.MemberValueDTO;
+import fi.vm.yti.codelist.intake.cache.ValueTypePatternCache;
 import fi.vm.yti.codelist.intake.dao.MemberValueDao;
 import fi.vm.yti.codelist.intake.exception.YtiCodeListException;
 import fi.vm.yti.codelist.intake.jpa.MemberValueRepository;
+import fi.vm.yti.codelist.intake.metrics.IntakeMetrics;
 import fi.vm.yti.codelist.intake.model.Member;
 import fi.vm.yti.codelist.intake.model.MemberValue;
 import fi.vm.yti.codelist.intake.model.PropertyType;
 import fi.vm.yti.codelist.intake.model.ValueType;
 import static fi.vm.yti.codelist.intake.exception.ErrorConstants.*;
-import static fi.vm.yti.codelist.intake.util.ValidationUtils.validateStringAgainstRegexp;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.ENTITY_MEMBERVALUE;
 
 @Component
 public class MemberValueDaoImpl implements MemberValueDao {
 
     private final MemberValueRepository memberValueRepository;
+    private final ValueTypePatternCache valueTypePatternCache;
+    private final IntakeMetrics intakeMetrics;
 
     @Inject
-    public MemberValueDaoImpl(final MemberValueRepository memberValueRepository) {
+    public MemberValueDaoImpl(final MemberValueRepository memberValueRepository,
+                              final ValueTypePatternCache valueTypePatternCache,
+                              final IntakeMetrics intakeMetrics) {
         this.memberValueRepository = memberValueRepository;
+        this.valueTypePatternCache = valueTypePatternCache;
+        this.intakeMetrics = intakeMetrics;
     }
 
     @Transactional
@@ -46,7 +54,12 @@ public class MemberValueDaoImpl implements MemberValueDao {
 
     @Transactional
     public void save(final Set<MemberValue> memberValues) {
-        memberValueRepository.saveAll(memberValues);
+        final long start = System.nanoTime();
+        try {
+            memberValueRepository.saveAll(memberValues);
+        } finally {
+            intakeMetrics.recordSave(ENTITY_MEMBERVALUE, memberValues.size(), System.nanoTime() - start);
+        }
     }
 
     @Transactional
@@ -146,8 +159,7 @@ public class MemberValueDaoImpl implements MemberValueDao {
             if (!valueType.getRequired() && (memberValueString == null || memberValueString.isEmpty())) {
                 return;
             }
-            final String regexp = valueType.getRegexp();
-            if (regexp != null && !regexp.isEmpty() && !validateStringAgainstRegexp(memberValueString, regexp)) {
+            if (!valueTypePatternCache.matches(valueType.getRegexp(), memberValueString)) {
                 throw new YtiCodeListException(new ErrorModel(HttpStatus.NOT_ACCEPTABLE.value(), ERR_MSG_USER_MEMBERVALUE_VALIDATION_FAILED));
             }
         } else {
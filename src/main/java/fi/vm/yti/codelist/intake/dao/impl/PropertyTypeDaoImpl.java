@@ -12,6 +12,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import fi.vm.yti.codelist.common.dto.PropertyTypeDTO;
 import fi.vm.yti.codelist.common.dto.ValueTypeDTO;
+import fi.vm.yti.codelist.intake.cache.ReferenceDataCache;
 import fi.vm.yti.codelist.intake.dao.PropertyTypeDao;
 import fi.vm.yti.codelist.intake.dao.ValueTypeDao;
 import fi.vm.yti.codelist.intake.jpa.PropertyTypeRepository;
@@ -26,15 +27,18 @@ public class PropertyTypeDaoImpl extends AbstractDao implements PropertyTypeDao
     private final EntityChangeLogger entityChangeLogger;
     private final PropertyTypeRepository propertyTypeRepository;
     private final ValueTypeDao valueTypeDao;
+    private final ReferenceDataCache referenceDataCache;
 
     public PropertyTypeDaoImpl(final EntityChangeLogger entityChangeLogger,
                                final PropertyTypeRepository propertyTypeRepository,
                                final ValueTypeDao valueTypeDao,
-                               final LanguageService languageService) {
+                               final LanguageService languageService,
+                               final ReferenceDataCache referenceDataCache) {
         super(languageService);
         this.entityChangeLogger = entityChangeLogger;
         this.propertyTypeRepository = propertyTypeRepository;
         this.valueTypeDao = valueTypeDao;
+        this.referenceDataCache = referenceDataCache;
     }
 
     @Transactional
@@ -63,6 +67,7 @@ public class PropertyTypeDaoImpl extends AbstractDao implements PropertyTypeDao
         PropertyType propertyType = createOrUpdatePropertyType(propertyTypeDTO);
         propertyTypeRepository.save(propertyType);
         entityChangeLogger.logPropertyTypeChange(propertyType);
+        referenceDataCache.evictPropertyTypes();
         return propertyType;
     }
 
@@ -78,6 +83,7 @@ public class PropertyTypeDaoImpl extends AbstractDao implements PropertyTypeDao
         }
         if (!propertyTypes.isEmpty()) {
             propertyTypes.forEach(entityChangeLogger::logPropertyTypeChange);
+            referenceDataCache.evictPropertyTypes();
         }
         return propertyTypes;
     }
@@ -0,0 +1,148 @@
+package fi.vm.yti.codelist.intake.dao.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.google.common.base.Stopwatch;
+
+import fi.vm.yti.codelist.common.dto.ErrorModel;
+import fi.vm.yti.codelist.intake.api.ApiUtils;
+import fi.vm.yti.codelist.intake.cache.ReferenceDataCache;
+import fi.vm.yti.codelist.intake.dao.UriRewriteDao;
+import fi.vm.yti.codelist.intake.exception.YtiCodeListException;
+import static fi.vm.yti.codelist.intake.exception.ErrorConstants.ERR_MSG_USER_500;
+
+/**
+ * Set based rewrite of the resource URIs of registries, code schemes, codes, extensions and members.
+ * <p>
+ * The code values a URI is built from are streamed with a single joined query per table, the URI is computed with
+ * {@link ApiUtils}, and only the rows whose stored URI differs are updated in JDBC batches. Entities are not loaded, so
+ * memory use does not grow with the table size. The persistence context is flushed before and cleared after the
+ * rewrite, because managed entities would otherwise hold the old URIs.
+ */
+@Component
+public class UriRewriteDaoImpl implements UriRewriteDao {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UriRewriteDaoImpl.class);
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String SELECT_CODEREGISTRIES = "SELECT r.id, r.uri, r.codevalue FROM coderegistry AS r";
+    private static final String SELECT_CODESCHEMES = "SELECT s.id, s.uri, r.codevalue, s.codevalue FROM codescheme AS s " +
+        "JOIN coderegistry AS r ON r.id = s.coderegistry_id";
+    private static final String SELECT_CODES = "SELECT c.id, c.uri, r.codevalue, s.codevalue, c.codevalue FROM code AS c " +
+        "JOIN codescheme AS s ON s.id = c.codescheme_id JOIN coderegistry AS r ON r.id = s.coderegistry_id";
+    private static final String SELECT_EXTENSIONS = "SELECT e.id, e.uri, r.codevalue, s.codevalue, e.codevalue FROM extension AS e " +
+        "JOIN codescheme AS s ON s.id = e.parentcodescheme_id JOIN coderegistry AS r ON r.id = s.coderegistry_id";
+    private static final String SELECT_MEMBERS = "SELECT m.id, m.uri, r.codevalue, s.codevalue, e.codevalue, m.sequence_id FROM member AS m " +
+        "JOIN extension AS e ON e.id = m.extension_id JOIN codescheme AS s ON s.id = e.parentcodescheme_id JOIN coderegistry AS r ON r.id = s.coderegistry_id";
+
+    private final ApiUtils apiUtils;
+    private final ReferenceDataCache referenceDataCache;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public UriRewriteDaoImpl(final ApiUtils apiUtils,
+                             final ReferenceDataCache referenceDataCache) {
+        this.apiUtils = apiUtils;
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    @Transactional
+    public int rewriteCodeRegistryUris() {
+        final int count = rewriteUris("coderegistry", SELECT_CODEREGISTRIES, results -> apiUtils.createCodeRegistryUri(results.getString(3)));
+        if (count > 0) {
+            referenceDataCache.evictCodeRegistries();
+        }
+        return count;
+    }
+
+    @Transactional
+    public int rewriteCodeSchemeUris() {
+        return rewriteUris("codescheme", SELECT_CODESCHEMES, results -> apiUtils.createCodeSchemeUri(results.getString(3), results.getString(4)));
+    }
+
+    @Transactional
+    public int rewriteCodeUris() {
+        return rewriteUris("code", SELECT_CODES, results -> apiUtils.createCodeUri(results.getString(3), results.getString(4), results.getString(5)));
+    }
+
+    @Transactional
+    public int rewriteExtensionUris() {
+        return rewriteUris("extension", SELECT_EXTENSIONS, results -> apiUtils.createExtensionUri(results.getString(3), results.getString(4), results.getString(5)));
+    }
+
+    @Transactional
+    public int rewriteMemberUris() {
+        return rewriteUris("member", SELECT_MEMBERS, results -> {
+            final Object sequenceId = results.getObject(6);
+            final String theEndOfUri = sequenceId == null ? results.getObject(1).toString() : sequenceId.toString();
+            return apiUtils.createMemberUriPrefix(results.getString(3), results.getString(4), results.getString(5)) + theEndOfUri;
+        });
+    }
+
+    private int rewriteUris(final String tableName,
+                            final String selectSql,
+                            final UriFunction uriFunction) {
+        final Stopwatch watch = Stopwatch.createStarted();
+        entityManager.flush();
+        final int count;
+        try {
+            count = entityManager.unwrap(Session.class).doReturningWork(connection -> updateChangedUris(connection, tableName, selectSql, uriFunction));
+        } catch (final HibernateException e) {
+            LOG.error(String.format("Rewriting %s URIs failed: ", tableName), e);
+            throw new YtiCodeListException(new ErrorModel(HttpStatus.INTERNAL_SERVER_ERROR.value(), ERR_MSG_USER_500));
+        }
+        if (count > 0) {
+            entityManager.clear();
+        }
+        LOG.info(String.format("Rewrote %d %s URIs in %s", count, tableName, watch));
+        return count;
+    }
+
+    private int updateChangedUris(final Connection connection,
+                                  final String tableName,
+                                  final String selectSql,
+                                  final UriFunction uriFunction) throws SQLException {
+        int count = 0;
+        try (final PreparedStatement select = connection.prepareStatement(selectSql);
+             final PreparedStatement update = connection.prepareStatement("UPDATE " + tableName + " SET uri = ? WHERE id = ?")) {
+            select.setFetchSize(BATCH_SIZE);
+            try (final ResultSet results = select.executeQuery()) {
+                while (results.next()) {
+                    final String uri = uriFunction.apply(results);
+                    if (!uri.equals(results.getString(2))) {
+                        update.setString(1, uri);
+                        update.setObject(2, (UUID) results.getObject(1));
+                        update.addBatch();
+                        if (++count % BATCH_SIZE == 0) {
+                            update.executeBatch();
+                        }
+                    }
+                }
+            }
+            update.executeBatch();
+        }
+        return count;
+    }
+
+    @FunctionalInterface
+    private interface UriFunction {
+
+        String apply(final ResultSet results) throws SQLException;
+    }
+}
@@ -9,6 +9,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import fi.vm.yti.codelist.common.dto.ValueTypeDTO;
+import fi.vm.yti.codelist.intake.cache.ReferenceDataCache;
+import fi.vm.yti.codelist.intake.cache.ValueTypePatternCache;
 import fi.vm.yti.codelist.intake.dao.ValueTypeDao;
 import fi.vm.yti.codelist.intake.jpa.ValueTypeRepository;
 import fi.vm.yti.codelist.intake.language.LanguageService;
@@ -20,13 +22,19 @@ public class ValueTypeDaoImpl extends AbstractDao implements ValueTypeDao {
 
     private final EntityChangeLogger entityChangeLogger;
     private final ValueTypeRepository valueTypeRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final ValueTypePatternCache valueTypePatternCache;
 
     public ValueTypeDaoImpl(final EntityChangeLogger entityChangeLogger,
                             final ValueTypeRepository valueTypeRepository,
-                            final LanguageService languageService) {
+                            final LanguageService languageService,
+                            final ReferenceDataCache referenceDataCache,
+                            final ValueTypePatternCache valueTypePatternCache) {
         super(languageService);
         this.entityChangeLogger = entityChangeLogger;
         this.valueTypeRepository = valueTypeRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.valueTypePatternCache = valueTypePatternCache;
     }
 
     @Transactional
@@ -49,6 +57,8 @@ public class ValueTypeDaoImpl extends AbstractDao implements ValueTypeDao {
         ValueType valueType = createOrUpdateValueType(valueTypeDTO);
         valueTypeRepository.save(valueType);
         entityChangeLogger.logValueTypeChange(valueType);
+        referenceDataCache.evictValueTypes();
+        valueTypePatternCache.evict();
         return valueType;
     }
 
@@ -60,6 +70,8 @@ public class ValueTypeDaoImpl extends AbstractDao implements ValueTypeDao {
             valueTypes.add(valueType);
             valueTypeRepository.save(valueType);
         }
+        referenceDataCache.evictValueTypes();
+        valueTypePatternCache.evict();
         return valueTypes;
     }
 
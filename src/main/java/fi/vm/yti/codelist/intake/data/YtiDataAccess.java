@@ -3,6 +3,7 @@ package fi.vm.yti.codelist.intake.data;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -20,20 +21,17 @@ import fi.vm.yti.codelist.common.dto.CodeSchemeDTO;
 import fi.vm.yti.codelist.common.dto.ExternalReferenceDTO;
 import fi.vm.yti.codelist.common.dto.PropertyTypeDTO;
 import fi.vm.yti.codelist.common.dto.ValueTypeDTO;
-import fi.vm.yti.codelist.intake.api.ApiUtils;
 import fi.vm.yti.codelist.intake.configuration.ContentIntakeServiceProperties;
 import fi.vm.yti.codelist.intake.dao.CodeDao;
 import fi.vm.yti.codelist.intake.dao.CodeRegistryDao;
 import fi.vm.yti.codelist.intake.dao.CodeSchemeDao;
-import fi.vm.yti.codelist.intake.dao.ExtensionDao;
-import fi.vm.yti.codelist.intake.dao.MemberDao;
+import fi.vm.yti.codelist.intake.dao.UriRewriteDao;
 import fi.vm.yti.codelist.intake.language.LanguageService;
 import fi.vm.yti.codelist.intake.model.Code;
 import fi.vm.yti.codelist.intake.model.CodeRegistry;
 import fi.vm.yti.codelist.intake.model.CodeScheme;
-import fi.vm.yti.codelist.intake.model.Extension;
-import fi.vm.yti.codelist.intake.model.Member;
 import fi.vm.yti.codelist.intake.model.UpdateStatus;
+import fi.vm.yti.codelist.intake.parser.CodeRegistryParser;
 import fi.vm.yti.codelist.intake.service.CodeRegistryService;
 import fi.vm.yti.codelist.intake.service.CodeSchemeService;
 import fi.vm.yti.codelist.intake.service.CodeService;
@@ -74,16 +72,15 @@ public class YtiDataAccess {
     private final CodeRegistryDao codeRegistryDao;
     private final CodeSchemeDao codeSchemeDao;
     private final CodeDao codeDao;
-    private final ExtensionDao extensionDao;
-    private final MemberDao memberDao;
+    private final UriRewriteDao uriRewriteDao;
     private final CodeRegistryService codeRegistryService;
     private final CodeSchemeService codeSchemeService;
     private final CodeService codeService;
     private final ExternalReferenceService externalReferenceService;
     private final PropertyTypeService propertyTypeService;
     private final ValueTypeService valueTypeService;
-    private final ApiUtils apiUtils;
     private final LanguageService languageService;
+    private final CodeRegistryParser codeRegistryParser;
     private boolean isInitializing;
 
     @Inject
@@ -92,31 +89,29 @@ public class YtiDataAccess {
                          final CodeRegistryDao codeRegistryDao,
                          final CodeSchemeDao codeSchemeDao,
                          final CodeDao codeDao,
-                         final ExtensionDao extensionDao,
-                         final MemberDao memberDao,
+                         final UriRewriteDao uriRewriteDao,
                          final CodeRegistryService codeRegistryService,
                          final CodeSchemeService codeSchemeService,
                          final CodeService codeService,
                          final ExternalReferenceService externalReferenceService,
                          final PropertyTypeService propertyTypeService,
                          final ValueTypeService valueTypeService,
-                         final ApiUtils apiUtils,
-                         final LanguageService languageService) {
+                         final LanguageService languageService,
+                         final CodeRegistryParser codeRegistryParser) {
         this.contentIntakeServiceProperties = contentIntakeServiceProperties;
         this.updateManager = updateManager;
         this.codeRegistryDao = codeRegistryDao;
         this.codeSchemeDao = codeSchemeDao;
         this.codeDao = codeDao;
-        this.extensionDao = extensionDao;
-        this.memberDao = memberDao;
+        this.uriRewriteDao = uriRewriteDao;
         this.codeRegistryService = codeRegistryService;
         this.codeSchemeService = codeSchemeService;
         this.codeService = codeService;
         this.externalReferenceService = externalReferenceService;
         this.propertyTypeService = propertyTypeService;
         this.valueTypeService = valueTypeService;
-        this.apiUtils = apiUtils;
         this.languageService = languageService;
+        this.codeRegistryParser = codeRegistryParser;
         isInitializing = true;
     }
 
@@ -126,29 +121,63 @@ public class YtiDataAccess {
 
     @Transactional
     public void initializeOrRefresh() {
+        initializeOrRefresh(() -> {
+        });
+    }
+
+    /**
+     * Initializes the default data. The code registries reference organizations, so the given callback is run before
+     * registry content is loaded, letting the caller wait for an organization sync running concurrently.
+     *
+     * @param beforeRegistryContent Callback run before code registries are loaded.
+     */
+    @Transactional
+    public void initializeOrRefresh(final Runnable beforeRegistryContent) {
         LOG.info("Initializing data...");
         if (contentIntakeServiceProperties.getInitializeContent()) {
-            initializeDefaultData();
+            initializeDefaultData(beforeRegistryContent);
             isInitializing = false;
         }
     }
 
     @Transactional
     public void initializeDefaultData() {
-        loadDefaultValueTypes();
-        loadDefaultPropertyTypes();
-        loadDefaultExternalReferences();
-        loadRegistryContent(DEFAULT_CLASSIFICATIONREGISTRY_FILENAME, "V2_CLASSIFICATION");
+        initializeDefaultData(() -> {
+        });
+    }
+
+    private void initializeDefaultData(final Runnable beforeRegistryContent) {
+        final Map<String, String> latestVersions = updateManager.getLatestSuccessfulVersions();
+        loadDefaultValueTypes(latestVersions);
+        loadDefaultPropertyTypes(latestVersions);
+        loadDefaultExternalReferences(latestVersions);
+        beforeRegistryContent.run();
+        loadRegistryContent(latestVersions, DEFAULT_CLASSIFICATIONREGISTRY_FILENAME, "V2_CLASSIFICATION");
         classifyServiceClassification();
-        loadRegistryContent(DEFAULT_INTEROPERABILITYREGISTRY_FILENAME, "V3_INTEROPERABILITY");
+        loadRegistryContent(latestVersions, DEFAULT_INTEROPERABILITYREGISTRY_FILENAME, "V3_INTEROPERABILITY");
         languageService.loadLanguageCodes();
-        setLanguageCodesToEarlierCodeSchemes();
-        rewriteAllUris();
+        setLanguageCodesToEarlierCodeSchemes(latestVersions);
+        rewriteAllUris(latestVersions);
     }
 
-    private void setLanguageCodesToEarlierCodeSchemes() {
+    /**
+     * Computes the checksum used as the update version of a bundled default data file.
+     *
+     * @param resourcePath Classpath location of the file.
+     * @return SHA-256 checksum of the file contents, or null if the file is not bundled.
+     */
+    private String checksumDefaultData(final String resourcePath) {
+        try {
+            return FileUtils.checksumFileFromClassPath(resourcePath);
+        } catch (final IOException e) {
+            LOG.debug(String.format("Default data file not bundled: %s", resourcePath));
+            return null;
+        }
+    }
+
+    private void setLanguageCodesToEarlierCodeSchemes(final Map<String, String> latestVersions) {
         LOG.debug("Setting language codes to earlier codeschemes...");
-        if (updateManager.shouldUpdateData(MIGRATION_LANGUAGECODES, MIGRATION_LANGUAGECODES_VERSION, MIGRATION_LANGUAGECODES_VERSION)) {
+        if (updateManager.shouldUpdateData(latestVersions, MIGRATION_LANGUAGECODES, MIGRATION_LANGUAGECODES_VERSION, MIGRATION_LANGUAGECODES_VERSION)) {
             final UpdateStatus updateStatus = updateManager.createStatus(MIGRATION_LANGUAGECODES, MIGRATION_LANGUAGECODES_VERSION, SOURCE_INTERNAL, MIGRATION_LANGUAGECODES_VERSION, UpdateManager.UPDATE_RUNNING);
             final Set<Code> defaultLanguageCodes = new HashSet<>();
             defaultLanguageCodes.add(languageService.getLanguageCode("fi"));
@@ -160,6 +189,7 @@ public class YtiDataAccess {
                     if (codeScheme.getLanguageCodes() == null || codeScheme.getLanguageCodes().isEmpty()) {
                         codeScheme.setLanguageCodes(defaultLanguageCodes);
                         codeSchemeDao.save(codeScheme);
+                        languageService.evictCodeSchemeLanguages(codeScheme.getId());
                     }
                 });
             }
@@ -171,25 +201,32 @@ public class YtiDataAccess {
         }
     }
 
-    private void loadRegistryContent(final String filename,
+    private void loadRegistryContent(final Map<String, String> latestVersions,
+                                     final String filename,
                                      final String identifier) {
-        final Set<CodeRegistryDTO> codeRegistries = loadDefaultCodeRegistries(filename, identifier);
-        if (!codeRegistries.isEmpty()) {
-            final Set<CodeSchemeDTO> codeSchemes = loadDefaultCodeSchemes(codeRegistries);
+        final Set<CodeRegistryDTO> codeRegistries = loadDefaultCodeRegistries(latestVersions, filename, identifier);
+        codeRegistries.forEach(codeRegistry -> {
+            final Set<CodeSchemeDTO> codeSchemes = loadDefaultCodeSchemes(latestVersions, codeRegistry);
             if (!codeSchemes.isEmpty()) {
-                loadDefaultCodes(codeSchemes);
+                loadDefaultCodes(latestVersions, codeSchemes);
             }
-        }
+        });
     }
 
-    private Set<CodeRegistryDTO> loadDefaultCodeRegistries(final String filename,
+    private Set<CodeRegistryDTO> loadDefaultCodeRegistries(final Map<String, String> latestVersions,
+                                                           final String filename,
                                                            final String identifier) {
         LOG.info(String.format("Loading default CodeRegistries from file: %s", filename));
         final Set<CodeRegistryDTO> codeRegistries = new HashSet<>();
         final Stopwatch watch = Stopwatch.createStarted();
-        if (updateManager.shouldUpdateData(DATA_CODEREGISTRIES, identifier, filename)) {
-            final UpdateStatus updateStatus = updateManager.createStatus(DATA_CODEREGISTRIES, identifier, SOURCE_INTERNAL, filename, UpdateManager.UPDATE_RUNNING);
-            try (final InputStream inputStream = FileUtils.loadFileFromClassPath("/" + DATA_CODEREGISTRIES + "/" + filename)) {
+        final String resourcePath = "/" + DATA_CODEREGISTRIES + "/" + filename;
+        final String checksum = checksumDefaultData(resourcePath);
+        if (checksum == null) {
+            return codeRegistries;
+        }
+        if (updateManager.shouldUpdateData(latestVersions, DATA_CODEREGISTRIES, identifier, checksum)) {
+            final UpdateStatus updateStatus = updateManager.createStatus(DATA_CODEREGISTRIES, identifier, SOURCE_INTERNAL, checksum, UpdateManager.UPDATE_RUNNING);
+            try (final InputStream inputStream = FileUtils.loadFileFromClassPath(resourcePath)) {
                 codeRegistries.addAll(codeRegistryService.parseAndPersistCodeRegistriesFromSourceData(true, FORMAT_CSV, inputStream, null));
                 LOG.info(String.format("CodeRegistry data loaded: %d CodeRegistries in %s", codeRegistries.size(), watch));
                 watch.reset().start();
@@ -203,50 +240,67 @@ public class YtiDataAccess {
             }
         } else {
             LOG.info("CodeRegistries already up to date, skipping...");
+            // The CodeSchemes and Codes of these registries are versioned separately, so they are still checked.
+            try (final InputStream inputStream = FileUtils.loadFileFromClassPath(resourcePath)) {
+                codeRegistries.addAll(codeRegistryParser.parseCodeRegistriesFromCsvInputStream(inputStream));
+            } catch (final IOException e) {
+                LOG.error("Issue with parsing CodeRegistry file. Message: ", e);
+            }
         }
         return codeRegistries;
     }
 
-    private Set<CodeSchemeDTO> loadDefaultCodeSchemes(final Set<CodeRegistryDTO> codeRegistries) {
+    private Set<CodeSchemeDTO> loadDefaultCodeSchemes(final Map<String, String> latestVersions,
+                                                      final CodeRegistryDTO codeRegistry) {
         LOG.info("Loading default CodeSchemes...");
-        final Set<CodeSchemeDTO> codeSchemes = new HashSet<>();
-        codeRegistries.forEach(codeRegistry -> {
-            final Stopwatch watch = Stopwatch.createStarted();
-            final String identifier = codeRegistry.getCodeValue();
-            if (updateManager.shouldUpdateData(DATA_CODESCHEMES, identifier, identifier + ".csv")) {
-                LOG.info(String.format("Loading CodeSchemes from CodeRegistry: %s", identifier));
-                final UpdateStatus updateStatus = updateManager.createStatus(DATA_CODESCHEMES, identifier, SOURCE_INTERNAL, identifier, UpdateManager.UPDATE_RUNNING);
-                try (final InputStream inputStream = FileUtils.loadFileFromClassPath("/" + DATA_CODESCHEMES + "/" + identifier + ".csv")) {
-                    watch.reset().start();
-                    codeSchemes.addAll(codeSchemeService.parseAndPersistCodeSchemesFromSourceData(true, codeRegistry.getCodeValue(), FORMAT_CSV, inputStream, null, false, "", false));
-                    LOG.info(String.format("CodeScheme data parsed and persisted in: %s", watch));
-                } catch (final IOException e) {
-                    LOG.error("Issue with parsing CodeScheme file. ", e);
-                    updateManager.updateFailedStatus(updateStatus);
-                } catch (final Exception e) {
-                    LOG.error("Issue with existing CodeScheme found. ", e);
-                    updateManager.updateFailedStatus(updateStatus);
-                }
-                if (updateStatus.getStatus().equals(UpdateManager.UPDATE_RUNNING)) {
-                    LOG.info("Code data update successful!");
-                    updateManager.updateSuccessStatus(updateStatus);
-                }
-            } else {
-                LOG.info("CodeSchemes already up to date, skipping...");
+        final Stopwatch watch = Stopwatch.createStarted();
+        final String identifier = codeRegistry.getCodeValue();
+        final String checksum = checksumDefaultData("/" + DATA_CODESCHEMES + "/" + identifier + ".csv");
+        if (checksum == null) {
+            return new HashSet<>();
+        }
+        if (updateManager.shouldUpdateData(latestVersions, DATA_CODESCHEMES, identifier, checksum)) {
+            LOG.info(String.format("Loading CodeSchemes from CodeRegistry: %s", identifier));
+            final Set<CodeSchemeDTO> codeSchemes = new HashSet<>();
+            final UpdateStatus updateStatus = updateManager.createStatus(DATA_CODESCHEMES, identifier, SOURCE_INTERNAL, checksum, UpdateManager.UPDATE_RUNNING);
+            try (final InputStream inputStream = FileUtils.loadFileFromClassPath("/" + DATA_CODESCHEMES + "/" + identifier + ".csv")) {
+                watch.reset().start();
+                codeSchemes.addAll(codeSchemeService.parseAndPersistCodeSchemesFromSourceData(true, codeRegistry.getCodeValue(), FORMAT_CSV, inputStream, null, false, "", false));
+                LOG.info(String.format("CodeScheme data parsed and persisted in: %s", watch));
+            } catch (final IOException e) {
+                LOG.error("Issue with parsing CodeScheme file. ", e);
+                updateManager.updateFailedStatus(updateStatus);
+            } catch (final Exception e) {
+                LOG.error("Issue with existing CodeScheme found. ", e);
+                updateManager.updateFailedStatus(updateStatus);
             }
-        });
-        return codeSchemes;
+            if (updateStatus.getStatus().equals(UpdateManager.UPDATE_RUNNING)) {
+                LOG.info("Code data update successful!");
+                updateManager.updateSuccessStatus(updateStatus);
+            }
+            return codeSchemes;
+        } else {
+            LOG.info("CodeSchemes already up to date, skipping...");
+            // Codes are versioned separately, so the CodeSchemes of the registry are still checked for bundled Codes.
+            return codeSchemeService.findByCodeRegistryCodeValue(identifier);
+        }
     }
 
-    private void loadDefaultCodes(final Set<CodeSchemeDTO> codeSchemes) {
+    private void loadDefaultCodes(final Map<String, String> latestVersions,
+                                  final Set<CodeSchemeDTO> codeSchemes) {
         LOG.info("Loading default Codes...");
         codeSchemes.forEach(codeScheme -> {
             final Stopwatch watch = Stopwatch.createStarted();
             final String identifier = codeScheme.getCodeRegistry().getCodeValue() + "_" + codeScheme.getCodeValue();
-            if (updateManager.shouldUpdateData(DATA_CODES, identifier, identifier + ".csv")) {
+            final String resourcePath = "/" + DATA_CODES + "/" + identifier + ".csv";
+            final String checksum = checksumDefaultData(resourcePath);
+            if (checksum == null) {
+                return;
+            }
+            if (updateManager.shouldUpdateData(latestVersions, DATA_CODES, identifier, checksum)) {
                 LOG.info(String.format("Loading Codes from CodeScheme: %s", identifier));
-                final UpdateStatus updateStatus = updateManager.createStatus(DATA_CODES, identifier, SOURCE_INTERNAL, identifier, UpdateManager.UPDATE_RUNNING);
-                try (final InputStream inputStream = FileUtils.loadFileFromClassPath("/" + DATA_CODES + "/" + identifier + ".csv")) {
+                final UpdateStatus updateStatus = updateManager.createStatus(DATA_CODES, identifier, SOURCE_INTERNAL, checksum, UpdateManager.UPDATE_RUNNING);
+                try (final InputStream inputStream = FileUtils.loadFileFromClassPath(resourcePath)) {
                     final Set<CodeDTO> codes = codeService.parseAndPersistCodesFromSourceData(true, codeScheme.getCodeRegistry().getCodeValue(), codeScheme.getCodeValue(), FORMAT_CSV, inputStream, null);
                     LOG.info(String.format("Code data loaded: %d Codes in %s", codes.size(), watch));
                 } catch (final IOException e) {
@@ -266,12 +320,14 @@ public class YtiDataAccess {
         });
     }
 
-    private void loadDefaultPropertyTypes() {
+    private void loadDefaultPropertyTypes(final Map<String, String> latestVersions) {
         LOG.info("Loading default PropertyTypes...");
         final Stopwatch watch = Stopwatch.createStarted();
-        if (updateManager.shouldUpdateData(DATA_PROPERTYTYPES, PROPERTYTYPE_IDENTIFIER, DEFAULT_PROPERTYTYPE_FILENAME)) {
-            final UpdateStatus updateStatus = updateManager.createStatus(DATA_PROPERTYTYPES, PROPERTYTYPE_IDENTIFIER, SOURCE_INTERNAL, DEFAULT_PROPERTYTYPE_FILENAME, UpdateManager.UPDATE_RUNNING);
-            try (final InputStream inputStream = FileUtils.loadFileFromClassPath("/" + DATA_PROPERTYTYPES + "/" + DEFAULT_PROPERTYTYPE_FILENAME)) {
+        final String resourcePath = "/" + DATA_PROPERTYTYPES + "/" + DEFAULT_PROPERTYTYPE_FILENAME;
+        final String checksum = checksumDefaultData(resourcePath);
+        if (checksum != null && updateManager.shouldUpdateData(latestVersions, DATA_PROPERTYTYPES, PROPERTYTYPE_IDENTIFIER, checksum)) {
+            final UpdateStatus updateStatus = updateManager.createStatus(DATA_PROPERTYTYPES, PROPERTYTYPE_IDENTIFIER, SOURCE_INTERNAL, checksum, UpdateManager.UPDATE_RUNNING);
+            try (final InputStream inputStream = FileUtils.loadFileFromClassPath(resourcePath)) {
                 final Set<PropertyTypeDTO> propertyTypes = propertyTypeService.parseAndPersistPropertyTypesFromSourceData(true, FORMAT_CSV, inputStream, null);
                 LOG.info(String.format("PropertyType data loaded and persisted %d PropertyTypes in %s", propertyTypes.size(), watch));
                 watch.reset().start();
@@ -287,12 +343,14 @@ public class YtiDataAccess {
         }
     }
 
-    private void loadDefaultValueTypes() {
+    private void loadDefaultValueTypes(final Map<String, String> latestVersions) {
         LOG.info("Loading default ValueTypes...");
         final Stopwatch watch = Stopwatch.createStarted();
-        if (updateManager.shouldUpdateData(DATA_VALUETYPES, VALUETYPE_IDENTIFIER, DEFAULT_VALUETYPE_FILENAME)) {
-            final UpdateStatus updateStatus = updateManager.createStatus(DATA_VALUETYPES, VALUETYPE_IDENTIFIER, SOURCE_INTERNAL, DEFAULT_VALUETYPE_FILENAME, UpdateManager.UPDATE_RUNNING);
-            try (final InputStream inputStream = FileUtils.loadFileFromClassPath("/" + DATA_VALUETYPES + "/" + DEFAULT_VALUETYPE_FILENAME)) {
+        final String resourcePath = "/" + DATA_VALUETYPES + "/" + DEFAULT_VALUETYPE_FILENAME;
+        final String checksum = checksumDefaultData(resourcePath);
+        if (checksum != null && updateManager.shouldUpdateData(latestVersions, DATA_VALUETYPES, VALUETYPE_IDENTIFIER, checksum)) {
+            final UpdateStatus updateStatus = updateManager.createStatus(DATA_VALUETYPES, VALUETYPE_IDENTIFIER, SOURCE_INTERNAL, checksum, UpdateManager.UPDATE_RUNNING);
+            try (final InputStream inputStream = FileUtils.loadFileFromClassPath(resourcePath)) {
                 final Set<ValueTypeDTO> valueTypes = valueTypeService.parseAndPersistValueTypesFromSourceData(true, FORMAT_CSV, inputStream, null);
                 LOG.info(String.format("ValueType data loaded and persisted %d ValueType in %s", valueTypes.size(), watch));
                 watch.reset().start();
@@ -308,12 +366,14 @@ public class YtiDataAccess {
         }
     }
 
-    private void loadDefaultExternalReferences() {
+    private void loadDefaultExternalReferences(final Map<String, String> latestVersions) {
         LOG.info("Loading default ExternalReferences...");
         final Stopwatch watch = Stopwatch.createStarted();
-        if (updateManager.shouldUpdateData(DATA_EXTERNALREFERENCES, DEFAULT_IDENTIFIER, DEFAULT_EXTERNALREFERENCE_FILENAME)) {
-            final UpdateStatus updateStatus = updateManager.createStatus(DATA_EXTERNALREFERENCES, DEFAULT_IDENTIFIER, SOURCE_INTERNAL, DEFAULT_EXTERNALREFERENCE_FILENAME, UpdateManager.UPDATE_RUNNING);
-            try (final InputStream inputStream = FileUtils.loadFileFromClassPath("/" + DATA_EXTERNALREFERENCES + "/" + DEFAULT_EXTERNALREFERENCE_FILENAME)) {
+        final String resourcePath = "/" + DATA_EXTERNALREFERENCES + "/" + DEFAULT_EXTERNALREFERENCE_FILENAME;
+        final String checksum = checksumDefaultData(resourcePath);
+        if (checksum != null && updateManager.shouldUpdateData(latestVersions, DATA_EXTERNALREFERENCES, DEFAULT_IDENTIFIER, checksum)) {
+            final UpdateStatus updateStatus = updateManager.createStatus(DATA_EXTERNALREFERENCES, DEFAULT_IDENTIFIER, SOURCE_INTERNAL, checksum, UpdateManager.UPDATE_RUNNING);
+            try (final InputStream inputStream = FileUtils.loadFileFromClassPath(resourcePath)) {
                 final Set<ExternalReferenceDTO> externalReferenceDtos = externalReferenceService.parseAndPersistExternalReferencesFromSourceData(true, FORMAT_CSV, inputStream, null, null);
                 LOG.info(String.format("ExternalReference data loaded and persisted %d ExternalReferences in %s", externalReferenceDtos.size(), watch));
                 watch.reset().start();
@@ -329,15 +389,15 @@ public class YtiDataAccess {
         }
     }
 
-    private void rewriteAllUris() {
+    private void rewriteAllUris(final Map<String, String> latestVersions) {
         LOG.info("Rewriting URIs...");
-        if (updateManager.shouldUpdateData(MIGRATION_URIS, MIGRATION_URIS_VERSION, MIGRATION_URIS_VERSION)) {
+        if (updateManager.shouldUpdateData(latestVersions, MIGRATION_URIS, MIGRATION_URIS_VERSION, MIGRATION_URIS_VERSION)) {
             final UpdateStatus updateStatus = updateManager.createStatus(MIGRATION_URIS, MIGRATION_URIS_VERSION, SOURCE_INTERNAL, MIGRATION_URIS_VERSION, UpdateManager.UPDATE_RUNNING);
-            rewriteCodeRegistryUris();
-            rewriteCodeSchemeUris();
-            rewriteCodeUris();
-            rewriteExtensionUris();
-            rewriteMemberUris();
+            uriRewriteDao.rewriteCodeRegistryUris();
+            uriRewriteDao.rewriteCodeSchemeUris();
+            uriRewriteDao.rewriteCodeUris();
+            uriRewriteDao.rewriteExtensionUris();
+            uriRewriteDao.rewriteMemberUris();
             if (updateStatus.getStatus().equals(UpdateManager.UPDATE_RUNNING)) {
                 updateManager.updateSuccessStatus(updateStatus);
             }
@@ -346,36 +406,6 @@ public class YtiDataAccess {
         }
     }
 
-    private void rewriteCodeRegistryUris() {
-        final Set<CodeRegistry> codeRegistries = codeRegistryDao.findAll();
-        codeRegistries.forEach(codeRegistry -> codeRegistry.setUri(apiUtils.createCodeRegistryUri(codeRegistry)));
-        codeRegistryDao.save(codeRegistries, false);
-    }
-
-    private void rewriteCodeSchemeUris() {
-        final Set<CodeScheme> codeSchemes = codeSchemeDao.findAll();
-        codeSchemes.forEach(codeScheme -> codeScheme.setUri(apiUtils.createCodeSchemeUri(codeScheme)));
-        codeSchemeDao.save(codeSchemes, false);
-    }
-
-    private void rewriteCodeUris() {
-        final Set<Code> codes = codeDao.findAll();
-        codes.forEach(code -> code.setUri(apiUtils.createCodeUri(code)));
-        codeDao.save(codes, false);
-    }
-
-    private void rewriteExtensionUris() {
-        final Set<Extension> extensions = extensionDao.findAll();
-        extensions.forEach(extension -> extension.setUri(apiUtils.createExtensionUri(extension)));
-        extensionDao.save(extensions, false);
-    }
-
-    private void rewriteMemberUris() {
-        final Set<Member> members = memberDao.findAll();
-        members.forEach(member -> member.setUri(apiUtils.createMemberUri(member)));
-        memberDao.save(members, false);
-    }
-
     private void classifyServiceClassification() {
         LOG.info("Ensuring Service Classification CodeScheme belongs to P9 classification.");
         final CodeRegistry codeRegistry = codeRegistryDao.findByCodeValue(JUPO_REGISTRY);
@@ -59,6 +59,7 @@ public class ErrorConstants {
     public static final String ERR_MSG_INVALID_CODEVALUE_WITH_IDENTIFIER = "ERR_MSG_INVALID_CODEVALUE_WITH_IDENTIFIER";
     public static final String ERR_MSG_CANT_REACH_TERMINOLOGY_API = "ERR_MSG_CANT_REACH_TERMINOLOGY_API";
     public static final String ERR_MSG_CANT_REACH_MESSAGING_API = "ERR_MSG_CANT_REACH_MESSAGING_API";
+    public static final String ERR_MSG_INTEGRATION_UNAVAILABLE = "ERR_MSG_INTEGRATION_UNAVAILABLE";
     public static final String ERR_MSG_USER_MEMBERVALUE_NOT_SET = "ERR_MSG_USER_MEMBERVALUE_NOT_SET";
     public static final String ERR_MSG_CODE_ORDER_CONTAINS_DUPLICATE_VALUES = "ERR_MSG_CODE_ORDER_CONTAINS_DUPLICATE_VALUES";
     public static final String ERR_MSG_USER_MEMBER_CODE_NOT_FOUND = "ERR_MSG_USER_MEMBER_CODE_NOT_FOUND";
@@ -108,6 +109,7 @@ public class ErrorConstants {
     public static final String ERR_MSG_USER_CODESCHEME_PARSING_FAILED = "ERR_MSG_USER_CODESCHEME_PARSING_FAILED";
     public static final String ERR_MSG_USER_CODEREGISTRY_PARSING_FAILED = "ERR_MSG_USER_CODEREGISTRY_PARSING_FAILED";
     public static final String ERR_MSG_USER_CODE_PARSING_FAILED = "ERR_MSG_USER_CODE_PARSING_FAILED";
+    public static final String ERR_MSG_USER_ORGANIZATION_PARSING_FAILED = "ERR_MSG_USER_ORGANIZATION_PARSING_FAILED";
     public static final String ERR_MSG_USER_MEMBER_RELATION_SET_TO_ITSELF = "ERR_MSG_USER_MEMBER_RELATION_SET_TO_ITSELF";
     public static final String ERR_MSG_USER_MEMBER_RELATION_ERROR = "ERR_MSG_USER_MEMBER_RELATION_ERROR";
     public static final String ERR_MSG_USER_MEMBER_CODE_NOT_SET = "ERR_MSG_USER_MEMBER_CODE_NOT_SET";
@@ -0,0 +1,15 @@
+package fi.vm.yti.codelist.intake.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import fi.vm.yti.codelist.common.dto.ErrorModel;
+import static fi.vm.yti.codelist.intake.exception.ErrorConstants.ERR_MSG_INTEGRATION_UNAVAILABLE;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class IntegrationUnavailableException extends YtiCodeListException {
+
+    public IntegrationUnavailableException(final String integrationName) {
+        super(new ErrorModel(HttpStatus.SERVICE_UNAVAILABLE.value(), ERR_MSG_INTEGRATION_UNAVAILABLE, integrationName));
+    }
+}
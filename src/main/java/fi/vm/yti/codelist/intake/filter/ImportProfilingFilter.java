@@ -0,0 +1,75 @@
+package fi.vm.yti.codelist.intake.filter;
+
+import java.util.Map;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.ext.Provider;
+
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import fi.vm.yti.codelist.intake.api.MetaResponseWrapper;
+import fi.vm.yti.codelist.intake.api.ProfiledMeta;
+import fi.vm.yti.codelist.intake.api.ResponseWrapper;
+import fi.vm.yti.codelist.intake.metrics.ImportProfile;
+
+/**
+ * Opt-in profiling of intake requests. A modifying request with the query parameter profile=true is timed per import
+ * phase, and the breakdown is logged and returned in the profile field of the response meta.
+ * <p>
+ * The profile is bound to the request thread. The response filter does not run when an exception is not mapped to a
+ * response, so the profile is also dropped when the request finishes, which Jersey signals for every request.
+ */
+@Provider
+public class ImportProfilingFilter implements ContainerRequestFilter, ContainerResponseFilter, ApplicationEventListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ImportProfilingFilter.class);
+    private static final String PARAMETER_PROFILE = "profile";
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext) {
+        if (!HttpMethod.GET.equals(requestContext.getMethod()) && Boolean.parseBoolean(requestContext.getUriInfo().getQueryParameters().getFirst(PARAMETER_PROFILE))) {
+            ImportProfile.start();
+        }
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext,
+                       final ContainerResponseContext responseContext) {
+        final ImportProfile profile = ImportProfile.finish();
+        if (profile == null) {
+            return;
+        }
+        final Map<String, Object> report = profile.toReport();
+        LOG.info("Import profile for {} /{}: {}", requestContext.getMethod(), requestContext.getUriInfo().getPath(), report);
+        final Object entity = responseContext.getEntity();
+        if (entity instanceof ResponseWrapper) {
+            final ResponseWrapper<?> responseWrapper = (ResponseWrapper<?>) entity;
+            responseWrapper.setMeta(new ProfiledMeta(responseWrapper.getMeta(), report));
+        } else if (entity instanceof MetaResponseWrapper) {
+            final MetaResponseWrapper responseWrapper = (MetaResponseWrapper) entity;
+            responseWrapper.setMeta(new ProfiledMeta(responseWrapper.getMeta(), report));
+        }
+    }
+
+    @Override
+    public void onEvent(final ApplicationEvent event) {
+    }
+
+    @Override
+    public RequestEventListener onRequest(final RequestEvent requestEvent) {
+        return event -> {
+            if (event.getType() == RequestEvent.Type.FINISHED) {
+                ImportProfile.finish();
+            }
+        };
+    }
+}
@@ -1,6 +1,6 @@
 package fi.vm.yti.codelist.intake.filter;
 
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.ws.rs.container.ContainerRequestContext;
@@ -9,18 +9,35 @@ import javax.ws.rs.container.ContainerResponseContext;
 import javax.ws.rs.container.ContainerResponseFilter;
 import javax.ws.rs.container.ResourceInfo;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.ext.Provider;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 
 import fi.vm.yti.security.AuthenticatedUserProvider;
+import fi.vm.yti.security.YtiUser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import static net.logstash.logback.argument.StructuredArguments.v;
 
+/**
+ * Times every matched request and writes an access log entry when the response is sent.
+ * <p>
+ * The start time is kept as a request property in nanoseconds. Latencies are recorded to a histogram per resource
+ * method. The access log is written through its own logger, which the logging configuration routes to an asynchronous
+ * appender, and carries the request details as structured fields. Request details are only collected for debug logging
+ * when debug logging is enabled.
+ */
 @Provider
 public class RequestLoggingFilter implements ContainerRequestFilter, ContainerResponseFilter {
 
     private static final Logger LOG = LoggerFactory.getLogger(RequestLoggingFilter.class);
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("fi.vm.yti.codelist.intake.filter.AccessLog");
+    private static final String PROPERTY_START_TIME = RequestLoggingFilter.class.getName() + ".startTime";
+    private static final String METRIC_HTTP_REQUESTS = "intake.http.requests";
+    private static final String USER_ANONYMOUS = "anonymous";
+    private static final String HEADER_VALUE_PROTECTED = "[PROTECTED]";
 
     @Context
     private ResourceInfo resourceInfo;
@@ -28,102 +45,81 @@ public class RequestLoggingFilter implements ContainerRequestFilter, ContainerRe
     @Inject
     private AuthenticatedUserProvider userProvider;
 
+    @Inject
+    private MeterRegistry meterRegistry;
+
     @Override
     public void filter(final ContainerRequestContext requestContext) {
-        MDC.put("startTime", String.valueOf(System.currentTimeMillis()));
+        requestContext.setProperty(PROPERTY_START_TIME, System.nanoTime());
+        if (LOG.isDebugEnabled()) {
+            logRequest(requestContext);
+        }
+    }
 
-        LOG.debug("*** Start request logging ***");
-        LOG.debug("Resource: /{}", requestContext.getUriInfo().getPath());
-        LOG.debug("Class: {}", resourceInfo.getResourceClass().getCanonicalName());
-        LOG.debug("Method: {}", resourceInfo.getResourceMethod().getName());
-        if (!userProvider.getUser().isAnonymous()) {
-            LOG.debug("User: {}", userProvider.getUser().getId());
-        } else {
-            LOG.debug("User: anonymous");
+    @Override
+    public void filter(final ContainerRequestContext requestContext,
+                       final ContainerResponseContext responseContext) {
+        final Object startTime = requestContext.getProperty(PROPERTY_START_TIME);
+        if (!(startTime instanceof Long)) {
+            return;
+        }
+        final long executionTimeNanos = System.nanoTime() - (Long) startTime;
+        recordLatency(requestContext, responseContext, executionTimeNanos);
+        if (ACCESS_LOG.isInfoEnabled()) {
+            final long executionTime = TimeUnit.NANOSECONDS.toMillis(executionTimeNanos);
+            ACCESS_LOG.info("Request: /{} {}, Status: {}, User-Agent: {}, User: {}, Host: {}, Time: {} ms",
+                v("method", requestContext.getMethod()),
+                v("path", requestContext.getUriInfo().getPath()),
+                v("status", responseContext.getStatus()),
+                v("userAgent", requestContext.getHeaderString(HttpHeaders.USER_AGENT)),
+                v("user", getUserId()),
+                v("host", requestContext.getHeaderString(HttpHeaders.HOST)),
+                v("durationMs", executionTime));
         }
-        logQueryParameters(requestContext);
-        logRequestHeaders(requestContext);
     }
 
-    private void logQueryParameters(final ContainerRequestContext requestContext) {
-        LOG.debug("*** Start query parameters section of request ***");
-        requestContext.getUriInfo().getQueryParameters().keySet().forEach(parameterName -> {
-            final List<String> paramList = requestContext.getUriInfo().getQueryParameters().get(parameterName);
-            paramList.forEach(paramValue -> LOG.debug("Parameter: {}, Value: {}", parameterName, paramValue));
-        });
-        LOG.debug("*** End query parameters section of request ***");
+    private void recordLatency(final ContainerRequestContext requestContext,
+                               final ContainerResponseContext responseContext,
+                               final long executionTimeNanos) {
+        if (resourceInfo.getResourceClass() == null || resourceInfo.getResourceMethod() == null) {
+            return;
+        }
+        Timer.builder(METRIC_HTTP_REQUESTS)
+            .description("Latency of requests per resource method")
+            .tags("resource", resourceInfo.getResourceClass().getSimpleName(),
+                "operation", resourceInfo.getResourceMethod().getName(),
+                "method", requestContext.getMethod(),
+                "status", String.valueOf(responseContext.getStatus()))
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(executionTimeNanos, TimeUnit.NANOSECONDS);
     }
 
-    private void logRequestHeaders(final ContainerRequestContext requestContext) {
-        LOG.debug("*** Start header section of request ***");
-        LOG.debug("Method type: {}", requestContext.getMethod());
+    private void logRequest(final ContainerRequestContext requestContext) {
+        LOG.debug("Resource: /{}, Class: {}, Method: {}, User: {}, Method type: {}",
+            requestContext.getUriInfo().getPath(),
+            resourceInfo.getResourceClass().getCanonicalName(),
+            resourceInfo.getResourceMethod().getName(),
+            getUserId(),
+            requestContext.getMethod());
+        requestContext.getUriInfo().getQueryParameters().forEach((parameterName, parameterValues) ->
+            parameterValues.forEach(parameterValue -> LOG.debug("Parameter: {}, Value: {}", parameterName, parameterValue)));
         requestContext.getHeaders().keySet().forEach(headerName -> {
             final String headerValue;
-            if ("Authorization".equalsIgnoreCase(headerName) || "cookie".equalsIgnoreCase(headerName)) {
-                headerValue = "[PROTECTED]";
+            if (HttpHeaders.AUTHORIZATION.equalsIgnoreCase(headerName) || HttpHeaders.COOKIE.equalsIgnoreCase(headerName)) {
+                headerValue = HEADER_VALUE_PROTECTED;
             } else {
                 headerValue = requestContext.getHeaderString(headerName);
             }
-            if ("User-Agent".equalsIgnoreCase(headerName)) {
-                MDC.put("userAgent", headerValue);
-            } else if ("Host".equalsIgnoreCase(headerName)) {
-                MDC.put("host", headerValue);
-            }
-            LOG.debug("Header: {}, Value: {} ", headerName, headerValue);
+            LOG.debug("Header: {}, Value: {}", headerName, headerValue);
         });
-        LOG.debug("*** End header section of request ***");
-    }
-
-    @Override
-    public void filter(final ContainerRequestContext requestContext,
-                       final ContainerResponseContext responseContext) {
-        final Long executionTime = getExecutionTime();
-        if (executionTime == null) {
-            return;
-        }
-        LOG.debug("Request execution time: {} ms", executionTime);
-        LOG.debug("*** End request logging ***");
-        logRequestInfo(requestContext, responseContext, executionTime);
-        MDC.clear();
-    }
-
-    private Long getExecutionTime() {
-        final String startTimeString = MDC.get("startTime");
-        if (startTimeString != null && !startTimeString.isEmpty()) {
-            final long startTime = Long.parseLong(startTimeString);
-            return System.currentTimeMillis() - startTime;
-        }
-        return null;
     }
 
-    private void logRequestInfo(final ContainerRequestContext requestContext,
-                                final ContainerResponseContext responseContext,
-                                final long executionTime) {
-        final StringBuilder builder = new StringBuilder();
-        builder.append("Request: /");
-        builder.append(requestContext.getMethod());
-        builder.append(" ");
-        builder.append(requestContext.getUriInfo().getPath());
-        builder.append(", ");
-        builder.append("Status: ");
-        builder.append(responseContext.getStatus());
-        builder.append(", ");
-        builder.append("User-Agent: ");
-        builder.append(MDC.get("userAgent"));
-        builder.append(", ");
-        builder.append("User: ");
-        if (!userProvider.getUser().isAnonymous()) {
-            builder.append(userProvider.getUser().getId());
-        } else {
-            builder.append("anonymous");
+    private String getUserId() {
+        final YtiUser user = userProvider.getUser();
+        if (!user.isAnonymous()) {
+            return String.valueOf(user.getId());
         }
-        builder.append(", ");
-        builder.append("Host: ");
-        builder.append(MDC.get("host"));
-        builder.append(", ");
-        builder.append("Time: ");
-        builder.append(executionTime);
-        builder.append(" ms");
-        LOG.info(builder.toString());
+        return USER_ANONYMOUS;
     }
 }
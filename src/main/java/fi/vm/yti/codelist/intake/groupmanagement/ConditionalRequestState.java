@@ -0,0 +1,65 @@
+package fi.vm.yti.codelist.intake.groupmanagement;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Remembers the validators (ETag and Last-Modified) of the last successfully processed response of a polled resource,
+ * so that the next poll can be made as a conditional GET and skipped when the server answers 304 Not Modified.
+ * <p>
+ * When the response is persisted in a transaction, the validators are only stored once that transaction has committed,
+ * so that a rolled back sync is fetched in full on the next poll.
+ */
+public class ConditionalRequestState {
+
+    private volatile String eTag;
+    private volatile String lastModified;
+
+    public HttpEntity<Void> createRequest() {
+        final HttpHeaders headers = new HttpHeaders();
+        final String currentETag = eTag;
+        final String currentLastModified = lastModified;
+        if (currentETag != null) {
+            headers.set(HttpHeaders.IF_NONE_MATCH, currentETag);
+        }
+        if (currentLastModified != null) {
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, currentLastModified);
+        }
+        return new HttpEntity<>(headers);
+    }
+
+    public boolean isNotModified(final ResponseEntity<?> response) {
+        return response.getStatusCode() == HttpStatus.NOT_MODIFIED;
+    }
+
+    public void update(final ResponseEntity<?> response) {
+        eTag = response.getHeaders().getFirst(HttpHeaders.ETAG);
+        lastModified = response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+    }
+
+    public void updateAfterCommit(final ResponseEntity<?> response) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(final int status) {
+                    if (status == STATUS_COMMITTED) {
+                        update(response);
+                    } else {
+                        reset();
+                    }
+                }
+            });
+        } else {
+            update(response);
+        }
+    }
+
+    public void reset() {
+        eTag = null;
+        lastModified = null;
+    }
+}
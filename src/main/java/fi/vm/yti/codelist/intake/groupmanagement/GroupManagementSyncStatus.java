@@ -0,0 +1,30 @@
+package fi.vm.yti.codelist.intake.groupmanagement;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Outcome of the latest organization and user syncs from the group management service, updated by the startup sync
+ * and the scheduled syncs alike.
+ */
+@Component
+public class GroupManagementSyncStatus {
+
+    private volatile boolean organizationsSynced;
+    private volatile boolean usersSynced;
+
+    public boolean isOrganizationsSynced() {
+        return organizationsSynced;
+    }
+
+    public void setOrganizationsSynced(final boolean organizationsSynced) {
+        this.organizationsSynced = organizationsSynced;
+    }
+
+    public boolean isUsersSynced() {
+        return usersSynced;
+    }
+
+    public void setUsersSynced(final boolean usersSynced) {
+        this.usersSynced = usersSynced;
+    }
+}
@@ -1,13 +1,13 @@
 package fi.vm.yti.codelist.intake.groupmanagement;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,6 +15,7 @@ import org.springframework.web.client.RestTemplate;
 
 import fi.vm.yti.codelist.common.dto.OrganizationDTO;
 import fi.vm.yti.codelist.intake.configuration.GroupManagementProperties;
+import fi.vm.yti.codelist.intake.integration.IntegrationGuards;
 import fi.vm.yti.codelist.intake.service.OrganizationService;
 import static fi.vm.yti.codelist.common.constants.ApiConstants.GROUPMANAGEMENT_API_CONTEXT_PATH;
 import static fi.vm.yti.codelist.common.constants.ApiConstants.GROUPMANAGEMENT_API_ORGANIZATIONS;
@@ -26,14 +27,21 @@ public class OrganizationUpdater {
     private final OrganizationService organizationService;
     private final RestTemplate restTemplate;
     private final GroupManagementProperties groupManagementProperties;
+    private final IntegrationGuards integrationGuards;
+    private final GroupManagementSyncStatus groupManagementSyncStatus;
+    private final ConditionalRequestState conditionalRequestState = new ConditionalRequestState();
 
     @Inject
     public OrganizationUpdater(final GroupManagementProperties groupManagementProperties,
                                final OrganizationService organizationService,
-                               final RestTemplate restTemplate) {
+                               final RestTemplate restTemplate,
+                               final IntegrationGuards integrationGuards,
+                               final GroupManagementSyncStatus groupManagementSyncStatus) {
         this.groupManagementProperties = groupManagementProperties;
         this.organizationService = organizationService;
         this.restTemplate = restTemplate;
+        this.integrationGuards = integrationGuards;
+        this.groupManagementSyncStatus = groupManagementSyncStatus;
     }
 
     @Transactional
@@ -43,14 +51,24 @@ public class OrganizationUpdater {
     }
 
     @Transactional
-    public void updateOrganizations() {
-        final Map<String, String> vars = new HashMap<>();
+    public boolean updateOrganizations() {
         try {
-            final String response = restTemplate.getForObject(getGroupManagementOrganizationsApiUrl(), String.class, vars);
-            final Set<OrganizationDTO> organizations = organizationService.parseAndPersistGroupManagementOrganizationsFromJson(response);
-            LOG.info(String.format("Successfully synced %d from groupmanagement service!", organizations.size()));
+            final ResponseEntity<String> response = integrationGuards.groupManagement().call(() -> restTemplate.exchange(getGroupManagementOrganizationsApiUrl(), HttpMethod.GET, conditionalRequestState.createRequest(), String.class));
+            if (conditionalRequestState.isNotModified(response)) {
+                LOG.debug("Organizations not modified in groupmanagement service since last sync.");
+                groupManagementSyncStatus.setOrganizationsSynced(true);
+                return true;
+            }
+            final Set<OrganizationDTO> organizations = organizationService.parseAndPersistGroupManagementOrganizationsFromJson(response.getBody());
+            conditionalRequestState.updateAfterCommit(response);
+            groupManagementSyncStatus.setOrganizationsSynced(true);
+            LOG.info(String.format("Successfully synced organizations from groupmanagement service, %d changed!", organizations.size()));
+            return true;
         } catch (final Exception e) {
+            conditionalRequestState.reset();
+            groupManagementSyncStatus.setOrganizationsSynced(false);
             LOG.error("Organization fetching failed due to exception.", e);
+            return false;
         }
     }
 
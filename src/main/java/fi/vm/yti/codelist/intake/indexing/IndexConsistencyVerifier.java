@@ -0,0 +1,311 @@
+package fi.vm.yti.codelist.intake.indexing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Stopwatch;
+
+import fi.vm.yti.codelist.common.dto.AbstractIdentifyableCodeDTO;
+import fi.vm.yti.codelist.common.dto.CodeDTO;
+import fi.vm.yti.codelist.common.dto.CodeRegistryDTO;
+import fi.vm.yti.codelist.common.dto.CodeSchemeDTO;
+import fi.vm.yti.codelist.common.dto.ExtensionDTO;
+import fi.vm.yti.codelist.common.dto.ExternalReferenceDTO;
+import fi.vm.yti.codelist.common.dto.MemberDTO;
+import fi.vm.yti.codelist.intake.dao.IndexConsistencyDao;
+import fi.vm.yti.codelist.intake.metrics.IntakeMetrics;
+import fi.vm.yti.codelist.intake.model.Code;
+import fi.vm.yti.codelist.intake.model.CodeRegistry;
+import fi.vm.yti.codelist.intake.model.CodeScheme;
+import fi.vm.yti.codelist.intake.model.Extension;
+import fi.vm.yti.codelist.intake.model.ExternalReference;
+import fi.vm.yti.codelist.intake.model.Member;
+import fi.vm.yti.codelist.intake.model.PropertyType;
+import fi.vm.yti.codelist.intake.service.CodeRegistryService;
+import fi.vm.yti.codelist.intake.service.CodeSchemeService;
+import fi.vm.yti.codelist.intake.service.CodeService;
+import fi.vm.yti.codelist.intake.service.ExtensionService;
+import fi.vm.yti.codelist.intake.service.ExternalReferenceService;
+import fi.vm.yti.codelist.intake.service.MemberService;
+import fi.vm.yti.codelist.intake.service.PropertyTypeService;
+import static fi.vm.yti.codelist.common.constants.ApiConstants.*;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.DRIFT_MISSING;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.DRIFT_ORPHANED;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.DRIFT_STALE;
+
+/**
+ * Compares the ids and modification timestamps in the database with the documents behind the index aliases, and
+ * repairs only the documents that differ.
+ * <p>
+ * The database is read in id ordered pages of ids and timestamps, and each page is looked up from the index with an
+ * ids query that only fetches the modified field. Documents that are missing or older than the database row are
+ * reindexed through {@link Indexing}. The index is then scrolled through without sources to find documents whose rows
+ * no longer exist, which are deleted. Value types have no modification timestamp and are not verified.
+ */
+@Component
+public class IndexConsistencyVerifier {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IndexConsistencyVerifier.class);
+    private static final int PAGE_SIZE = 1000;
+    private static final String FIELD_MODIFIED = "modified";
+    private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
+    private final IndexConsistencyDao indexConsistencyDao;
+    private final RestHighLevelClient client;
+    private final IntakeMetrics intakeMetrics;
+    private final ObjectMapper mapper;
+    private final Map<String, VerificationTarget<?>> targets = new LinkedHashMap<>();
+
+    @Inject
+    public IndexConsistencyVerifier(final IndexConsistencyDao indexConsistencyDao,
+                                    final RestHighLevelClient elasticSearchRestHighLevelClient,
+                                    final IndexingTools indexingTools,
+                                    final Indexing indexing,
+                                    final IntakeMetrics intakeMetrics,
+                                    final CodeRegistryService codeRegistryService,
+                                    final CodeSchemeService codeSchemeService,
+                                    final CodeService codeService,
+                                    final PropertyTypeService propertyTypeService,
+                                    final ExternalReferenceService externalReferenceService,
+                                    final ExtensionService extensionService,
+                                    final MemberService memberService) {
+        this.indexConsistencyDao = indexConsistencyDao;
+        this.client = elasticSearchRestHighLevelClient;
+        this.intakeMetrics = intakeMetrics;
+        this.mapper = indexingTools.createObjectMapper();
+        targets.put(ELASTIC_INDEX_CODEREGISTRY, new VerificationTarget<>(CodeRegistry.class, ids -> filterByIds(codeRegistryService.findAll(), ids), indexing::updateCodeRegistries, indexing::deleteCodeRegistries, CodeRegistryDTO::new));
+        targets.put(ELASTIC_INDEX_CODESCHEME, new VerificationTarget<>(CodeScheme.class, ids -> {
+            final Set<CodeSchemeDTO> codeSchemes = findEach(ids, codeSchemeService::findById);
+            codeSchemeService.populateAllVersionsToCodeSchemeDTOs(codeSchemes);
+            return codeSchemes;
+        }, indexing::updateCodeSchemes, indexing::deleteCodeSchemes, CodeSchemeDTO::new));
+        targets.put(ELASTIC_INDEX_CODE, new VerificationTarget<>(Code.class, ids -> findEach(ids, codeService::findById), indexing::updateCodes, indexing::deleteCodes, CodeDTO::new));
+        targets.put(ELASTIC_INDEX_PROPERTYTYPE, new VerificationTarget<>(PropertyType.class, ids -> filterByIds(propertyTypeService.findAll(), ids), indexing::updatePropertyTypes, null, null));
+        targets.put(ELASTIC_INDEX_EXTERNALREFERENCE, new VerificationTarget<>(ExternalReference.class, ids -> filterByIds(externalReferenceService.findAll(), ids), indexing::updateExternalReferences, indexing::deleteExternalReferences, ExternalReferenceDTO::new));
+        targets.put(ELASTIC_INDEX_EXTENSION, new VerificationTarget<>(Extension.class, ids -> findEach(ids, extensionService::findById), indexing::updateExtensions, indexing::deleteExtensions, ExtensionDTO::new));
+        targets.put(ELASTIC_INDEX_MEMBER, new VerificationTarget<>(Member.class, ids -> findEach(ids, memberService::findById), indexing::updateMembers, indexing::deleteMembers, MemberDTO::new));
+    }
+
+    public Set<String> getVerifiableIndexAliases() {
+        return Collections.unmodifiableSet(targets.keySet());
+    }
+
+    public List<IndexVerificationResult> verify(final Set<String> indexAliases,
+                                                final BooleanSupplier cancelled) {
+        final List<IndexVerificationResult> results = new ArrayList<>();
+        for (final String indexAlias : indexAliases) {
+            final VerificationTarget<?> target = targets.get(indexAlias);
+            if (target == null) {
+                LOG.info(String.format("Index verification is not supported for index: %s", indexAlias));
+                continue;
+            }
+            if (cancelled.getAsBoolean()) {
+                break;
+            }
+            final IndexVerificationResult result = new IndexVerificationResult(indexAlias);
+            results.add(result);
+            final Stopwatch watch = Stopwatch.createStarted();
+            try {
+                verifyDocuments(indexAlias, target, result, cancelled);
+                removeOrphans(indexAlias, target, result, cancelled);
+                if (!cancelled.getAsBoolean()) {
+                    result.markCompleted();
+                }
+            } catch (final IOException | RuntimeException e) {
+                LOG.error(String.format("Index verification failed for index: %s", indexAlias), e);
+            }
+            LOG.info(String.format("Verified %d documents of index %s in %s: %d missing, %d stale, %d orphaned, %d repaired.", result.getChecked(), indexAlias, watch, result.getMissing(), result.getStale(), result.getOrphaned(), result.getRepaired()));
+        }
+        return results;
+    }
+
+    private <T extends AbstractIdentifyableCodeDTO> void verifyDocuments(final String indexAlias,
+                                                                         final VerificationTarget<T> target,
+                                                                         final IndexVerificationResult result,
+                                                                         final BooleanSupplier cancelled) throws IOException {
+        UUID afterId = null;
+        Map<UUID, Date> modifiedById = indexConsistencyDao.findModifiedAfter(target.entityClass, afterId, PAGE_SIZE);
+        while (!modifiedById.isEmpty() && !cancelled.getAsBoolean()) {
+            final Map<String, Date> indexedModifiedById = findIndexedModified(indexAlias, modifiedById.keySet());
+            final Set<UUID> missingIds = new HashSet<>();
+            final Set<UUID> staleIds = new HashSet<>();
+            modifiedById.forEach((id, modified) -> {
+                final String documentId = id.toString();
+                if (!indexedModifiedById.containsKey(documentId)) {
+                    missingIds.add(id);
+                } else if (isStale(modified, indexedModifiedById.get(documentId))) {
+                    staleIds.add(id);
+                }
+            });
+            result.addChecked(modifiedById.size());
+            result.addMissing(missingIds.size());
+            result.addStale(staleIds.size());
+            intakeMetrics.recordIndexDrift(indexAlias, DRIFT_MISSING, missingIds.size());
+            intakeMetrics.recordIndexDrift(indexAlias, DRIFT_STALE, staleIds.size());
+            final Set<UUID> repairIds = new HashSet<>(missingIds);
+            repairIds.addAll(staleIds);
+            if (!repairIds.isEmpty()) {
+                final Set<T> documents = target.loader.apply(repairIds);
+                target.updater.accept(documents);
+                result.addRepaired(countRepaired(indexAlias, repairIds, modifiedById));
+            }
+            for (final UUID id : modifiedById.keySet()) {
+                afterId = id;
+            }
+            modifiedById = indexConsistencyDao.findModifiedAfter(target.entityClass, afterId, PAGE_SIZE);
+        }
+    }
+
+    /**
+     * Indexing records documents that can not be written as dead letters instead of failing, so the repaired documents
+     * are counted from the index. Bulk writes wait for a refresh, so the written documents are already searchable.
+     */
+    private int countRepaired(final String indexAlias,
+                              final Set<UUID> repairIds,
+                              final Map<UUID, Date> modifiedById) throws IOException {
+        final Map<String, Date> indexedModifiedById = findIndexedModified(indexAlias, repairIds);
+        return (int) repairIds.stream()
+            .filter(id -> indexedModifiedById.containsKey(id.toString()) && !isStale(modifiedById.get(id), indexedModifiedById.get(id.toString())))
+            .count();
+    }
+
+    private static boolean isStale(final Date modified,
+                                   final Date indexedModified) {
+        return modified != null && (indexedModified == null || indexedModified.getTime() < modified.getTime());
+    }
+
+    private Map<String, Date> findIndexedModified(final String indexAlias,
+                                                  final Set<UUID> ids) throws IOException {
+        final SearchSourceBuilder searchBuilder = new SearchSourceBuilder()
+            .query(QueryBuilders.idsQuery().addIds(ids.stream().map(UUID::toString).toArray(String[]::new)))
+            .fetchSource(new String[]{ FIELD_MODIFIED }, null)
+            .size(ids.size());
+        final SearchResponse response = client.search(new SearchRequest(indexAlias).source(searchBuilder), RequestOptions.DEFAULT);
+        final Map<String, Date> indexedModifiedById = new HashMap<>();
+        for (final SearchHit hit : response.getHits().getHits()) {
+            final Object modified = hit.getSourceAsMap().get(FIELD_MODIFIED);
+            indexedModifiedById.put(hit.getId(), modified != null ? mapper.convertValue(modified, Date.class) : null);
+        }
+        return indexedModifiedById;
+    }
+
+    private <T extends AbstractIdentifyableCodeDTO> void removeOrphans(final String indexAlias,
+                                                                       final VerificationTarget<T> target,
+                                                                       final IndexVerificationResult result,
+                                                                       final BooleanSupplier cancelled) throws IOException {
+        final SearchSourceBuilder searchBuilder = new SearchSourceBuilder()
+            .query(QueryBuilders.matchAllQuery())
+            .fetchSource(false)
+            .sort("_doc", SortOrder.ASC)
+            .size(PAGE_SIZE);
+        SearchResponse response = client.search(new SearchRequest(indexAlias).source(searchBuilder).scroll(SCROLL_KEEP_ALIVE), RequestOptions.DEFAULT);
+        String scrollId = response.getScrollId();
+        try {
+            while (response.getHits().getHits().length > 0 && !cancelled.getAsBoolean()) {
+                final Set<UUID> indexedIds = new HashSet<>();
+                for (final SearchHit hit : response.getHits().getHits()) {
+                    try {
+                        indexedIds.add(UUID.fromString(hit.getId()));
+                    } catch (final IllegalArgumentException e) {
+                        LOG.warn(String.format("Index %s contains a document with an invalid id: %s", indexAlias, hit.getId()));
+                    }
+                }
+                indexedIds.removeAll(indexConsistencyDao.findExistingIds(target.entityClass, indexedIds));
+                if (!indexedIds.isEmpty()) {
+                    result.addOrphaned(indexedIds.size());
+                    intakeMetrics.recordIndexDrift(indexAlias, DRIFT_ORPHANED, indexedIds.size());
+                    if (target.deleter != null) {
+                        target.deleter.accept(indexedIds.stream().map(target::createReference).collect(Collectors.toSet()));
+                        result.addRepaired(indexedIds.size() - findIndexedModified(indexAlias, indexedIds).size());
+                    }
+                }
+                response = client.scroll(new SearchScrollRequest(scrollId).scroll(SCROLL_KEEP_ALIVE), RequestOptions.DEFAULT);
+                scrollId = response.getScrollId();
+            }
+        } finally {
+            final ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+            clearScrollRequest.addScrollId(scrollId);
+            client.clearScroll(clearScrollRequest, RequestOptions.DEFAULT);
+        }
+    }
+
+    private static <T extends AbstractIdentifyableCodeDTO> Set<T> filterByIds(final Set<T> documents,
+                                                                              final Set<UUID> ids) {
+        return documents.stream().filter(document -> ids.contains(document.getId())).collect(Collectors.toSet());
+    }
+
+    private static <T extends AbstractIdentifyableCodeDTO> Set<T> findEach(final Set<UUID> ids,
+                                                                           final Function<UUID, T> finder) {
+        final Set<T> documents = new HashSet<>();
+        for (final UUID id : ids) {
+            try {
+                final T document = finder.apply(id);
+                if (document != null) {
+                    documents.add(document);
+                }
+            } catch (final RuntimeException e) {
+                LOG.warn(String.format("Loading document %s for index repair failed.", id), e);
+            }
+        }
+        return documents;
+    }
+
+    private static final class VerificationTarget<T extends AbstractIdentifyableCodeDTO> {
+
+        private final Class<?> entityClass;
+        private final Function<Set<UUID>, Set<T>> loader;
+        private final Consumer<Set<T>> updater;
+        private final Consumer<Set<T>> deleter;
+        private final Supplier<T> referenceFactory;
+
+        private VerificationTarget(final Class<?> entityClass,
+                                   final Function<Set<UUID>, Set<T>> loader,
+                                   final Consumer<Set<T>> updater,
+                                   final Consumer<Set<T>> deleter,
+                                   final Supplier<T> referenceFactory) {
+            this.entityClass = entityClass;
+            this.loader = loader;
+            this.updater = updater;
+            this.deleter = deleter;
+            this.referenceFactory = referenceFactory;
+        }
+
+        private T createReference(final UUID id) {
+            final T reference = referenceFactory.get();
+            reference.setId(id);
+            return reference;
+        }
+    }
+}
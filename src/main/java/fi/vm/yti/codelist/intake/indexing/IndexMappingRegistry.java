@@ -0,0 +1,106 @@
+package fi.vm.yti.codelist.intake.indexing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.hash.Hashing;
+
+import static fi.vm.yti.codelist.common.constants.ApiConstants.*;
+import static fi.vm.yti.codelist.intake.util.FileUtils.loadFileFromClassPath;
+
+/**
+ * Index settings and mappings, loaded and validated once when the service starts.
+ * <p>
+ * Each mapping has a version derived from the content of the settings and the mapping files, so the version changes
+ * whenever either file changes. The version is stored in the mapping metadata of the indexes and in the index templates,
+ * which lets the service detect the indexes that were built with an older mapping.
+ */
+@Component
+public class IndexMappingRegistry {
+
+    public static final String META_MAPPING_VERSION = "mapping_version";
+
+    private static final Logger LOG = LoggerFactory.getLogger(IndexMappingRegistry.class);
+    private static final String SETTINGS_FILE = "/esmappings/generic_index_settings.json";
+    private static final String GENERIC_MAPPING_FILE = "/esmappings/generic_nested_preflabel_mapping.json";
+    private static final String FIELD_META = "_meta";
+    private static final String FIELD_PROPERTIES = "properties";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String indexSettings;
+    private final Map<String, String> aliasTypes = new LinkedHashMap<>();
+    private final Map<String, String> mappings = new LinkedHashMap<>();
+    private final Map<String, Integer> mappingVersions = new LinkedHashMap<>();
+
+    public IndexMappingRegistry() {
+        final JsonNode settings = loadJson(SETTINGS_FILE);
+        if (!settings.has("index")) {
+            throw new IllegalStateException("ElasticSearch index settings are missing the index section: " + SETTINGS_FILE);
+        }
+        indexSettings = settings.toString();
+        aliasTypes.put(ELASTIC_INDEX_CODEREGISTRY, ELASTIC_TYPE_CODEREGISTRY);
+        aliasTypes.put(ELASTIC_INDEX_CODESCHEME, ELASTIC_TYPE_CODESCHEME);
+        aliasTypes.put(ELASTIC_INDEX_CODE, ELASTIC_TYPE_CODE);
+        aliasTypes.put(ELASTIC_INDEX_PROPERTYTYPE, ELASTIC_TYPE_PROPERTYTYPE);
+        aliasTypes.put(ELASTIC_INDEX_VALUETYPE, ELASTIC_TYPE_VALUETYPE);
+        aliasTypes.put(ELASTIC_INDEX_EXTERNALREFERENCE, ELASTIC_TYPE_EXTERNALREFERENCE);
+        aliasTypes.put(ELASTIC_INDEX_EXTENSION, ELASTIC_TYPE_EXTENSION);
+        aliasTypes.put(ELASTIC_INDEX_MEMBER, ELASTIC_TYPE_MEMBER);
+        registerMapping(ELASTIC_TYPE_CODESCHEME, "/esmappings/codescheme_mapping.json");
+        registerMapping(ELASTIC_TYPE_CODE, "/esmappings/code_mapping.json");
+        registerMapping(ELASTIC_TYPE_EXTENSION, "/esmappings/extension_mapping.json");
+        registerMapping(ELASTIC_TYPE_MEMBER, "/esmappings/member_mapping.json");
+        aliasTypes.values().stream()
+            .filter(type -> !mappings.containsKey(type))
+            .forEach(type -> registerMapping(type, GENERIC_MAPPING_FILE));
+        LOG.info(String.format("Loaded ElasticSearch mappings with versions: %s", mappingVersions));
+    }
+
+    public String getIndexSettings() {
+        return indexSettings;
+    }
+
+    public String getMapping(final String type) {
+        final String mapping = mappings.get(type);
+        return mapping != null ? mapping : mappings.get(ELASTIC_TYPE_CODEREGISTRY);
+    }
+
+    public int getMappingVersion(final String type) {
+        final Integer mappingVersion = mappingVersions.get(type);
+        return mappingVersion != null ? mappingVersion : mappingVersions.get(ELASTIC_TYPE_CODEREGISTRY);
+    }
+
+    private void registerMapping(final String type,
+                                 final String fileName) {
+        final JsonNode mapping = loadJson(fileName);
+        if (!mapping.has(FIELD_PROPERTIES) || !mapping.get(FIELD_PROPERTIES).isObject()) {
+            throw new IllegalStateException("ElasticSearch mapping has no properties: " + fileName);
+        }
+        final int mappingVersion = Hashing.murmur3_32().hashString(indexSettings + mapping, StandardCharsets.UTF_8).asInt();
+        ((ObjectNode) mapping).with(FIELD_META).put(META_MAPPING_VERSION, mappingVersion);
+        mappings.put(type, mapping.toString());
+        mappingVersions.put(type, mappingVersion);
+    }
+
+    private JsonNode loadJson(final String fileName) {
+        try (final InputStream inputStream = loadFileFromClassPath(fileName)) {
+            final JsonNode node = mapper.readTree(inputStream);
+            if (node == null || !node.isObject()) {
+                throw new IllegalStateException("ElasticSearch index configuration is not a JSON object: " + fileName);
+            }
+            return node;
+        } catch (final IOException e) {
+            throw new IllegalStateException("ElasticSearch index configuration loading error for file: " + fileName, e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package fi.vm.yti.codelist.intake.indexing;
+
+/**
+ * Drift found between the database and one index alias by {@link IndexConsistencyVerifier}.
+ */
+public class IndexVerificationResult {
+
+    private final String indexAlias;
+    private int checked;
+    private int missing;
+    private int stale;
+    private int orphaned;
+    private int repaired;
+    private boolean completed;
+
+    IndexVerificationResult(final String indexAlias) {
+        this.indexAlias = indexAlias;
+    }
+
+    public String getIndexAlias() {
+        return indexAlias;
+    }
+
+    public int getChecked() {
+        return checked;
+    }
+
+    public int getMissing() {
+        return missing;
+    }
+
+    public int getStale() {
+        return stale;
+    }
+
+    public int getOrphaned() {
+        return orphaned;
+    }
+
+    public int getRepaired() {
+        return repaired;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    void addChecked(final int count) {
+        checked += count;
+    }
+
+    void addMissing(final int count) {
+        missing += count;
+    }
+
+    void addStale(final int count) {
+        stale += count;
+    }
+
+    void addOrphaned(final int count) {
+        orphaned += count;
+    }
+
+    void addRepaired(final int count) {
+        repaired += count;
+    }
+
+    void markCompleted() {
+        completed = true;
+    }
+}
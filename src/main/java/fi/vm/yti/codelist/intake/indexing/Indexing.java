@@ -1,6 +1,7 @@
 package fi.vm.yti.codelist.intake.indexing;
 
 import java.util.Set;
+import java.util.function.BooleanSupplier;
 
 import fi.vm.yti.codelist.common.dto.CodeDTO;
 import fi.vm.yti.codelist.common.dto.CodeRegistryDTO;
@@ -67,7 +68,18 @@ public interface Indexing {
 
     boolean reIndexEverything();
 
+    boolean reIndex(final Set<String> indexAliases);
+
+    boolean reIndex(final Set<String> indexAliases,
+                    final BooleanSupplier cancelled);
+
+    Set<String> updateIndexTemplates();
+
     void cleanRunningIndexingBookkeeping();
 
     void reIndexEverythingIfNecessary();
+
+    Set<String> getResumableAliases();
+
+    boolean isSearchAvailable();
 }
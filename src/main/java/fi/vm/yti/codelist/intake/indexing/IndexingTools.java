@@ -12,5 +12,13 @@ public interface IndexingTools {
     void createIndexWithNestedPrefLabel(final String indexName,
                                         final String type);
 
+    void putIndexTemplate(final String aliasName,
+                          final String type);
+
+    Integer getMappingVersion(final String aliasName,
+                              final String type);
+
+    boolean aliasExists(final String aliasName);
+
     ObjectMapper createObjectMapper();
 }
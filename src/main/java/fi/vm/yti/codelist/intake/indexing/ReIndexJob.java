@@ -0,0 +1,107 @@
+package fi.vm.yti.codelist.intake.indexing;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * State of an administrative reindex or index verification job run by {@link ReIndexJobManager}.
+ */
+public class ReIndexJob {
+
+    public static final String STATUS_QUEUED = "queued";
+    public static final String STATUS_RUNNING = "running";
+    public static final String STATUS_SUCCESSFUL = "successful";
+    public static final String STATUS_FAILED = "failed";
+    public static final String STATUS_CANCELLED = "cancelled";
+
+    private final UUID id;
+    private final String name;
+    private final Set<String> indexAliases;
+    private final Date created;
+    private volatile String status;
+    private volatile Date started;
+    private volatile Date finished;
+    private volatile boolean cancelRequested;
+    private volatile Object result;
+
+    ReIndexJob(final String name,
+               final Set<String> indexAliases) {
+        this.id = UUID.randomUUID();
+        this.name = name;
+        this.indexAliases = Collections.unmodifiableSet(new LinkedHashSet<>(indexAliases));
+        this.created = new Date(System.currentTimeMillis());
+        this.status = STATUS_QUEUED;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Set<String> getIndexAliases() {
+        return indexAliases;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSX")
+    public Date getCreated() {
+        return new Date(created.getTime());
+    }
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSX")
+    public Date getStarted() {
+        final Date startedAt = started;
+        return startedAt != null ? new Date(startedAt.getTime()) : null;
+    }
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSX")
+    public Date getFinished() {
+        final Date finishedAt = finished;
+        return finishedAt != null ? new Date(finishedAt.getTime()) : null;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Object getResult() {
+        return result;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return finished != null;
+    }
+
+    void requestCancel() {
+        cancelRequested = true;
+    }
+
+    void setResult(final Object result) {
+        this.result = result;
+    }
+
+    void markStarted() {
+        started = new Date(System.currentTimeMillis());
+        status = STATUS_RUNNING;
+    }
+
+    void markFinished(final String finalStatus) {
+        status = finalStatus;
+        finished = new Date(System.currentTimeMillis());
+    }
+}
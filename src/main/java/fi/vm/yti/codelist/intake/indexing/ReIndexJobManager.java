@@ -0,0 +1,171 @@
+package fi.vm.yti.codelist.intake.indexing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.base.Stopwatch;
+
+import fi.vm.yti.codelist.intake.jpa.IndexStatusRepository;
+import fi.vm.yti.codelist.intake.model.IndexStatus;
+
+/**
+ * Runs administrative reindex and index verification jobs one at a time in a background thread.
+ * <p>
+ * A job submitted inside a transaction is started only after the transaction commits, so the reindex reads the
+ * committed data, and is cancelled if the transaction rolls back. The state of the most recent jobs is kept in memory,
+ * the progress of each alias is recorded in {@link IndexStatus} rows by the reindex itself.
+ */
+@Component
+public class ReIndexJobManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReIndexJobManager.class);
+    private static final int MAX_JOBS = 50;
+
+    private final Indexing indexing;
+    private final IndexStatusRepository indexStatusRepository;
+    private final IndexConsistencyVerifier indexConsistencyVerifier;
+    private final Map<UUID, ReIndexJob> jobs = new LinkedHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "reindex-job");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Inject
+    public ReIndexJobManager(final Indexing indexing,
+                             final IndexStatusRepository indexStatusRepository,
+                             final IndexConsistencyVerifier indexConsistencyVerifier) {
+        this.indexing = indexing;
+        this.indexStatusRepository = indexStatusRepository;
+        this.indexConsistencyVerifier = indexConsistencyVerifier;
+    }
+
+    public ReIndexJob submit(final String name,
+                             final Set<String> indexAliases) {
+        return submit(name, indexAliases, job -> indexing.reIndex(job.getIndexAliases(), job::isCancelRequested));
+    }
+
+    /**
+     * Queues a job that compares the given aliases with the database and repairs only the documents that differ.
+     */
+    public ReIndexJob submitVerification(final String name,
+                                         final Set<String> indexAliases) {
+        return submit(name, indexAliases, job -> {
+            final List<IndexVerificationResult> results = indexConsistencyVerifier.verify(job.getIndexAliases(), job::isCancelRequested);
+            job.setResult(results);
+            return results.stream().allMatch(IndexVerificationResult::isCompleted);
+        });
+    }
+
+    private ReIndexJob submit(final String name,
+                              final Set<String> indexAliases,
+                              final Predicate<ReIndexJob> task) {
+        final ReIndexJob job = new ReIndexJob(name, indexAliases);
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+            removeOldJobs();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(final int status) {
+                    if (status == STATUS_COMMITTED) {
+                        executor.execute(() -> run(job, task));
+                    } else {
+                        job.markFinished(ReIndexJob.STATUS_CANCELLED);
+                    }
+                }
+            });
+        } else {
+            executor.execute(() -> run(job, task));
+        }
+        LOG.info(String.format("Job %s (%s) queued for aliases: %s", job.getId(), name, indexAliases));
+        return job;
+    }
+
+    public Set<String> getVerifiableIndexAliases() {
+        return indexConsistencyVerifier.getVerifiableIndexAliases();
+    }
+
+    public ReIndexJob getJob(final UUID jobId) {
+        synchronized (jobs) {
+            return jobs.get(jobId);
+        }
+    }
+
+    public List<ReIndexJob> getJobs() {
+        synchronized (jobs) {
+            final List<ReIndexJob> jobList = new ArrayList<>(jobs.values());
+            Collections.reverse(jobList);
+            return jobList;
+        }
+    }
+
+    public List<IndexStatus> getIndexStatuses(final ReIndexJob job) {
+        if (job.getStarted() == null) {
+            return Collections.emptyList();
+        }
+        return indexStatusRepository.getIndexStatusesForIndexAliasesSince(job.getIndexAliases(), job.getStarted());
+    }
+
+    public boolean cancel(final UUID jobId) {
+        final ReIndexJob job = getJob(jobId);
+        if (job == null || job.isFinished()) {
+            return false;
+        }
+        job.requestCancel();
+        LOG.info(String.format("Cancellation requested for reindex job %s.", jobId));
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (jobs) {
+            jobs.values().forEach(ReIndexJob::requestCancel);
+        }
+        executor.shutdownNow();
+    }
+
+    private void run(final ReIndexJob job,
+                     final Predicate<ReIndexJob> task) {
+        if (job.isCancelRequested()) {
+            job.markFinished(ReIndexJob.STATUS_CANCELLED);
+            return;
+        }
+        job.markStarted();
+        final Stopwatch watch = Stopwatch.createStarted();
+        try {
+            final boolean success = task.test(job);
+            if (job.isCancelRequested()) {
+                job.markFinished(ReIndexJob.STATUS_CANCELLED);
+            } else {
+                job.markFinished(success ? ReIndexJob.STATUS_SUCCESSFUL : ReIndexJob.STATUS_FAILED);
+            }
+        } catch (final RuntimeException e) {
+            LOG.error(String.format("Reindex job %s failed.", job.getId()), e);
+            job.markFinished(ReIndexJob.STATUS_FAILED);
+        }
+        LOG.info(String.format("Reindex job %s finished with status %s in %s", job.getId(), job.getStatus(), watch));
+    }
+
+    private void removeOldJobs() {
+        jobs.values().removeIf(job -> jobs.size() > MAX_JOBS && job.isFinished());
+    }
+}
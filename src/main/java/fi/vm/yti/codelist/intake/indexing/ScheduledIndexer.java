@@ -1,5 +1,7 @@
 package fi.vm.yti.codelist.intake.indexing;
 
+import java.util.Set;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -18,5 +20,9 @@ public class ScheduledIndexer {
     @Scheduled(cron = "0 */1 * * * *")
     public void updateIndex() {
         indexing.reIndexEverythingIfNecessary();
+        final Set<String> resumableAliases = indexing.getResumableAliases();
+        if (!resumableAliases.isEmpty()) {
+            indexing.reIndex(resumableAliases);
+        }
     }
 }
@@ -0,0 +1,124 @@
+package fi.vm.yti.codelist.intake.indexing.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.index.VersionType;
+
+import fi.vm.yti.codelist.common.dto.CodeDTO;
+import fi.vm.yti.codelist.common.dto.CodeRegistryDTO;
+import fi.vm.yti.codelist.common.dto.CodeSchemeDTO;
+import fi.vm.yti.codelist.common.dto.ExtensionDTO;
+import fi.vm.yti.codelist.common.dto.ExternalReferenceDTO;
+import fi.vm.yti.codelist.common.dto.MemberDTO;
+import fi.vm.yti.codelist.common.dto.MemberValueDTO;
+import fi.vm.yti.codelist.common.dto.PropertyTypeDTO;
+
+/**
+ * External versions of the indexed documents.
+ * <p>
+ * A document embeds its parents, so it is reindexed when a parent changes even if the entity itself did not. The version
+ * is therefore the latest modification time found anywhere in the document, and grows with every change of the entity
+ * or of an embedded parent. Writes use {@link VersionType#EXTERNAL}, so ElasticSearch only accepts a write with a
+ * version greater than the indexed one: a snapshot taken before a change, including one with an equal version, is
+ * rejected instead of overwriting the newer document. Deletes are versioned with the time of deletion.
+ */
+final class DocumentVersions {
+
+    private DocumentVersions() {
+    }
+
+    static <R extends DocWriteRequest<R>> R withVersion(final R request,
+                                                        final Long version) {
+        if (version != null) {
+            request.version(version).versionType(VersionType.EXTERNAL);
+        }
+        return request;
+    }
+
+    /**
+     * @param document Document to be indexed.
+     * @return Latest modification time of the document and the documents embedded in it, or null if none is known.
+     */
+    static Long resolve(final Object document) {
+        final long version = latestModified(document, Collections.newSetFromMap(new IdentityHashMap<>()));
+        return version > 0 ? version : null;
+    }
+
+    private static long latestModified(final Object document,
+                                       final Set<Object> visited) {
+        if (document == null || !visited.add(document)) {
+            return 0;
+        }
+        if (document instanceof Collection) {
+            long latest = 0;
+            for (final Object item : (Collection<?>) document) {
+                latest = Math.max(latest, latestModified(item, visited));
+            }
+            return latest;
+        } else if (document instanceof CodeDTO) {
+            final CodeDTO code = (CodeDTO) document;
+            return max(time(code.getModified()),
+                latestModified(code.getCodeScheme(), visited),
+                latestModified(code.getBroaderCode(), visited),
+                latestModified(code.getSubCodeScheme(), visited),
+                latestModified(code.getExternalReferences(), visited),
+                latestModified(code.getMembers(), visited),
+                latestModified(code.getCodeExtensions(), visited));
+        } else if (document instanceof CodeSchemeDTO) {
+            final CodeSchemeDTO codeScheme = (CodeSchemeDTO) document;
+            return max(time(codeScheme.getModified()),
+                time(codeScheme.getContentModified()),
+                latestModified(codeScheme.getCodeRegistry(), visited),
+                latestModified(codeScheme.getDefaultCode(), visited),
+                latestModified(codeScheme.getLanguageCodes(), visited),
+                latestModified(codeScheme.getInfoDomains(), visited),
+                latestModified(codeScheme.getExternalReferences(), visited),
+                latestModified(codeScheme.getExtensions(), visited));
+        } else if (document instanceof CodeRegistryDTO) {
+            return time(((CodeRegistryDTO) document).getModified());
+        } else if (document instanceof ExtensionDTO) {
+            final ExtensionDTO extension = (ExtensionDTO) document;
+            return max(time(extension.getModified()),
+                latestModified(extension.getPropertyType(), visited),
+                latestModified(extension.getParentCodeScheme(), visited),
+                latestModified(extension.getCodeSchemes(), visited),
+                latestModified(extension.getMembers(), visited));
+        } else if (document instanceof MemberDTO) {
+            final MemberDTO member = (MemberDTO) document;
+            return max(time(member.getModified()),
+                latestModified(member.getCode(), visited),
+                latestModified(member.getRelatedMember(), visited),
+                latestModified(member.getExtension(), visited),
+                latestModified(member.getMemberValues(), visited));
+        } else if (document instanceof MemberValueDTO) {
+            return time(((MemberValueDTO) document).getModified());
+        } else if (document instanceof ExternalReferenceDTO) {
+            final ExternalReferenceDTO externalReference = (ExternalReferenceDTO) document;
+            return max(time(externalReference.getModified()),
+                latestModified(externalReference.getPropertyType(), visited),
+                latestModified(externalReference.getParentCodeScheme(), visited),
+                latestModified(externalReference.getCodeSchemes(), visited),
+                latestModified(externalReference.getCodes(), visited));
+        } else if (document instanceof PropertyTypeDTO) {
+            return time(((PropertyTypeDTO) document).getModified());
+        }
+        return 0;
+    }
+
+    private static long time(final Date date) {
+        return date != null ? date.getTime() : 0;
+    }
+
+    private static long max(final long... values) {
+        long max = 0;
+        for (final long value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+}
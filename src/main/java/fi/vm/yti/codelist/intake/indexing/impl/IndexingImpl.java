@@ -2,17 +2,28 @@ package fi.vm.yti.codelist.intake.indexing.impl;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import com.google.common.collect.Iterables;
 import org.apache.commons.collections4.ListUtils;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
@@ -20,7 +31,9 @@ import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.support.WriteRequest;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.RestStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.PageRequest;
@@ -29,8 +42,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.google.common.base.Stopwatch;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -46,9 +60,13 @@ import fi.vm.yti.codelist.common.dto.PropertyTypeDTO;
 import fi.vm.yti.codelist.common.dto.ValueTypeDTO;
 import fi.vm.yti.codelist.common.dto.Views;
 import fi.vm.yti.codelist.intake.exception.YtiCodeListException;
+import fi.vm.yti.codelist.intake.indexing.IndexMappingRegistry;
 import fi.vm.yti.codelist.intake.indexing.Indexing;
 import fi.vm.yti.codelist.intake.indexing.IndexingTools;
+import fi.vm.yti.codelist.intake.jpa.IndexDeadLetterRepository;
 import fi.vm.yti.codelist.intake.jpa.IndexStatusRepository;
+import fi.vm.yti.codelist.intake.metrics.IntakeMetrics;
+import fi.vm.yti.codelist.intake.model.IndexDeadLetter;
 import fi.vm.yti.codelist.intake.model.IndexStatus;
 import fi.vm.yti.codelist.intake.service.CodeRegistryService;
 import fi.vm.yti.codelist.intake.service.CodeSchemeService;
@@ -59,6 +77,8 @@ import fi.vm.yti.codelist.intake.service.MemberService;
 import fi.vm.yti.codelist.intake.service.PropertyTypeService;
 import fi.vm.yti.codelist.intake.service.ValueTypeService;
 import static fi.vm.yti.codelist.common.constants.ApiConstants.*;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.OPERATION_DELETE;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.OPERATION_INDEX;
 import static fi.vm.yti.codelist.intake.update.UpdateManager.UPDATE_FAILED;
 
 @Singleton
@@ -70,6 +90,11 @@ public class IndexingImpl implements Indexing {
     private static final String INDEX_STATUS_DELETED = "deleted";
     private static final String INDEX_STATUS_RUNNING = "running";
     private static final String INDEX_STATUS_FAILED = "failed";
+    private static final String INDEX_STATUS_CANCELLED = "cancelled";
+    private static final String INDEX_STATUS_RESUMABLE = "resumable";
+    private static final Set<String> RESUMABLE_ALIASES = new HashSet<>(Arrays.asList(ELASTIC_INDEX_CODE, ELASTIC_INDEX_MEMBER));
+    private static final BooleanSupplier NOT_CANCELLED = () -> false;
+    private static final List<String> REINDEX_ORDER = Arrays.asList(ELASTIC_INDEX_CODEREGISTRY, ELASTIC_INDEX_CODESCHEME, ELASTIC_INDEX_CODE, ELASTIC_INDEX_PROPERTYTYPE, ELASTIC_INDEX_VALUETYPE, ELASTIC_INDEX_EXTERNALREFERENCE, ELASTIC_INDEX_EXTENSION, ELASTIC_INDEX_MEMBER);
     private static final String NAME_CODEREGISTRIES = "CodeRegistries";
     private static final String NAME_CODESCHEMES = "CodeSchemes";
     private static final String NAME_CODES = "Codes";
@@ -82,8 +107,10 @@ public class IndexingImpl implements Indexing {
     private static final int MAX_PAGE_COUNT = 1000;
     private static final int MAX_MEMBER_PAGE_COUNT = 100;
     private static final int MAX_EXTENSION_PAGE_COUNT = 50;
+    private static final BackoffPolicy BULK_RETRY_BACKOFF = BackoffPolicy.exponentialBackoff(TimeValue.timeValueMillis(200), 3);
 
     private final IndexStatusRepository indexStatusRepository;
+    private final IndexDeadLetterRepository indexDeadLetterRepository;
     private final CodeSchemeService codeSchemeService;
     private final CodeRegistryService codeRegistryService;
     private final CodeService codeService;
@@ -94,13 +121,26 @@ public class IndexingImpl implements Indexing {
     private final MemberService memberService;
     private final RestHighLevelClient client;
     private final IndexingTools indexingTools;
-    private boolean hasError;
-    private boolean fullIndexInProgress;
+    private final IndexMappingRegistry indexMappingRegistry;
+    private final IntakeMetrics intakeMetrics;
+    /**
+     * Index being built by a running or resumable reindex per alias. Writes to the alias are mirrored into it, external
+     * versioning keeps the newer of a mirrored write and the reindexed snapshot, so no catch-up reindex is needed.
+     */
+    private final Map<String, String> rebuildingIndexes = new ConcurrentHashMap<>();
+    /**
+     * Aliases whose reindex stopped at a checkpoint, resumed by the scheduled indexer without a full reindex.
+     */
+    private final Set<String> resumableAliases = ConcurrentHashMap.newKeySet();
+    private volatile boolean hasError;
+    private volatile boolean fullIndexInProgress;
 
     @Inject
     public IndexingImpl(final IndexingTools indexingTools,
+                        final IndexMappingRegistry indexMappingRegistry,
                         final RestHighLevelClient elasticSearchRestHighLevelClient,
                         final IndexStatusRepository indexStatusRepository,
+                        final IndexDeadLetterRepository indexDeadLetterRepository,
                         final CodeRegistryService codeRegistryService,
                         final CodeSchemeService codeSchemeService,
                         final CodeService codeService,
@@ -108,10 +148,13 @@ public class IndexingImpl implements Indexing {
                         final PropertyTypeService propertyTypeService,
                         final ValueTypeService valueTypeService,
                         final ExtensionService extensionService,
-                        final MemberService memberService) {
+                        final MemberService memberService,
+                        final IntakeMetrics intakeMetrics) {
         this.indexingTools = indexingTools;
+        this.indexMappingRegistry = indexMappingRegistry;
         this.client = elasticSearchRestHighLevelClient;
         this.indexStatusRepository = indexStatusRepository;
+        this.indexDeadLetterRepository = indexDeadLetterRepository;
         this.codeRegistryService = codeRegistryService;
         this.codeSchemeService = codeSchemeService;
         this.codeService = codeService;
@@ -120,6 +163,7 @@ public class IndexingImpl implements Indexing {
         this.valueTypeService = valueTypeService;
         this.extensionService = extensionService;
         this.memberService = memberService;
+        this.intakeMetrics = intakeMetrics;
     }
 
     private boolean indexCodeRegistries(final String indexName) {
@@ -129,12 +173,7 @@ public class IndexingImpl implements Indexing {
 
     private boolean indexCodeSchemes(final String indexName) {
         final Set<CodeSchemeDTO> codeSchemes = codeSchemeService.findAll();
-
-        for (CodeSchemeDTO currentCodeScheme : codeSchemes) {
-            if (currentCodeScheme.getLastCodeschemeId() != null) {
-                codeSchemeService.populateAllVersionsToCodeSchemeDTO(currentCodeScheme);
-            }
-        }
+        codeSchemeService.populateAllVersionsToCodeSchemeDTOs(codeSchemes);
         return indexData(codeSchemes, indexName, ELASTIC_TYPE_CODESCHEME, NAME_CODESCHEMES, Views.ExtendedCodeScheme.class);
     }
 
@@ -143,26 +182,9 @@ public class IndexingImpl implements Indexing {
         return contentCount / maxCount + 1;
     }
 
-    private boolean indexCodes(final String indexName) {
-        final Stopwatch watch = Stopwatch.createStarted();
-        final int codeCount = codeService.getCodeCount();
-        final int pageCount = getContentPageCount(codeCount, MAX_PAGE_COUNT);
-        LOG.debug(String.format("ElasticSearch indexing: Starting to index %d pages of codes with %d items.", pageCount, codeCount));
-        int page = 0;
-        boolean success = true;
-        while (page + 1 <= pageCount) {
-            final PageRequest pageRequest = PageRequest.of(page, MAX_PAGE_COUNT, Sort.by(Sort.Direction.ASC, "codeValue"));
-            final Set<CodeDTO> codes = codeService.findAll(pageRequest);
-            final boolean partIndexSuccess = indexData(codes, indexName, ELASTIC_TYPE_CODE, NAME_CODES, Views.ExtendedCode.class);
-            if (!partIndexSuccess) {
-                success = false;
-            }
-            page++;
-        }
-        if (success) {
-            LOG.debug(String.format("ElasticSearch indexing: Successfully indexed %d codes in %s", codeCount, watch));
-        }
-        return success;
+    private boolean indexCodes(final IndexStatus status,
+                               final BooleanSupplier cancelled) {
+        return indexPagesFromCheckpoint(status, cancelled, afterId -> codeService.findAllAfter(afterId, MAX_PAGE_COUNT), ELASTIC_TYPE_CODE, NAME_CODES, Views.ExtendedCode.class);
     }
 
     private boolean indexPropertyTypes(final String indexName) {
@@ -175,10 +197,14 @@ public class IndexingImpl implements Indexing {
         return indexData(valueTypes, indexName, ELASTIC_TYPE_VALUETYPE, NAME_VALUETYPES, Views.ExtendedValueType.class);
     }
 
-    private boolean indexExternalReferences(final String indexName) {
+    private boolean indexExternalReferences(final String indexName,
+                                            final BooleanSupplier cancelled) {
         final Set<ExternalReferenceDTO> externalReferences = externalReferenceService.findAll();
         boolean success = true;
         for (final List<ExternalReferenceDTO> pagedExternalReferences : Iterables.partition(externalReferences, MAX_PAGE_COUNT)) {
+            if (cancelled.getAsBoolean()) {
+                return false;
+            }
             final boolean partIndexSuccess = indexData(new HashSet<>(pagedExternalReferences), indexName, ELASTIC_TYPE_EXTERNALREFERENCE, NAME_EXTERNALREFERENCES, Views.ExtendedExternalReference.class);
             if (!partIndexSuccess) {
                 success = false;
@@ -187,7 +213,8 @@ public class IndexingImpl implements Indexing {
         return success;
     }
 
-    private boolean indexExtensions(final String indexName) {
+    private boolean indexExtensions(final String indexName,
+                                    final BooleanSupplier cancelled) {
         final Stopwatch watch = Stopwatch.createStarted();
         final int extensionCount = extensionService.getExtensionCount();
         final int pageCount = getContentPageCount(extensionCount, MAX_EXTENSION_PAGE_COUNT);
@@ -195,6 +222,9 @@ public class IndexingImpl implements Indexing {
         int page = 0;
         boolean success = true;
         while (page + 1 <= pageCount) {
+            if (cancelled.getAsBoolean()) {
+                return false;
+            }
             final PageRequest pageRequest = PageRequest.of(page, MAX_EXTENSION_PAGE_COUNT, Sort.by(Sort.Direction.ASC, "uri"));
             final Set<ExtensionDTO> extensions = extensionService.findAll(pageRequest);
             final boolean partIndexSuccess = indexData(extensions, indexName, ELASTIC_TYPE_EXTENSION, NAME_EXTENSIONS, Views.ExtendedExtension.class);
@@ -209,27 +239,60 @@ public class IndexingImpl implements Indexing {
         return success;
     }
 
-    private boolean indexMembers(final String indexName) {
+    private boolean indexMembers(final IndexStatus status,
+                                 final BooleanSupplier cancelled) {
+        return indexPagesFromCheckpoint(status, cancelled, afterId -> memberService.findAllAfter(afterId, MAX_MEMBER_PAGE_COUNT), ELASTIC_TYPE_MEMBER, NAME_MEMBERS, Views.ExtendedMember.class);
+    }
+
+    /**
+     * Indexes content page by page in id order, starting after the checkpoint of the index status. The checkpoint is
+     * saved after every page that was indexed without errors, and indexing stops at the first failing page, so that a
+     * later reindex can continue into the same index from where this one stopped.
+     */
+    private <T extends AbstractIdentifyableCodeDTO> boolean indexPagesFromCheckpoint(final IndexStatus status,
+                                                                                    final BooleanSupplier cancelled,
+                                                                                    final Function<UUID, Set<T>> pageLoader,
+                                                                                    final String elasticType,
+                                                                                    final String name,
+                                                                                    final Class<?> jsonViewClass) {
         final Stopwatch watch = Stopwatch.createStarted();
-        final int memberCount = memberService.getMemberCount();
-        final int pageCount = getContentPageCount(memberCount, MAX_MEMBER_PAGE_COUNT);
-        LOG.debug(String.format("ElasticSearch indexing: Starting to index %d pages of members with %d items.", pageCount, memberCount));
-        int page = 0;
-        boolean success = true;
-        while (page + 1 <= pageCount) {
-            final PageRequest pageRequest = PageRequest.of(page, MAX_MEMBER_PAGE_COUNT, Sort.by(Sort.Direction.ASC, "uri"));
-            final Set<MemberDTO> members = memberService.findAll(pageRequest);
-            final boolean partIndexSuccess = indexData(members, indexName, ELASTIC_TYPE_MEMBER, NAME_MEMBERS, Views.ExtendedMember.class);
-            if (!partIndexSuccess) {
-                success = false;
-            }
-            page++;
+        UUID afterId = status.getCheckpoint() != null ? UUID.fromString(status.getCheckpoint()) : null;
+        if (afterId != null) {
+            LOG.info(String.format("ElasticSearch indexing: Resuming %s into index %s after checkpoint %s.", name, status.getIndexName(), afterId));
         }
-        if (success) {
-            LOG.debug(String.format("ElasticSearch indexing: Successfully indexed %d members in %s", memberCount, watch));
+        int count = 0;
+        Set<T> page = pageLoader.apply(afterId);
+        while (!page.isEmpty()) {
+            if (cancelled.getAsBoolean()) {
+                return false;
+            }
+            try {
+                if (!indexData(page, status.getIndexName(), elasticType, name, jsonViewClass)) {
+                    return false;
+                }
+            } catch (final YtiCodeListException e) {
+                LOG.error(String.format("ElasticSearch indexing: Indexing %s failed after checkpoint %s.", name, afterId), e);
+                return false;
+            }
+            afterId = getLastId(page);
+            count += page.size();
+            status.setCheckpoint(afterId.toString());
+            status.setModified(new Date(System.currentTimeMillis()));
+            indexStatusRepository.save(status);
+            page = pageLoader.apply(afterId);
         }
-        return success;
+        LOG.debug(String.format("ElasticSearch indexing: Successfully indexed %d %s in %s", count, name, watch));
+        return true;
+    }
 
+    /**
+     * Canonical UUID strings compare in the same order as PostgreSQL orders uuid values, unlike {@link UUID#compareTo}.
+     */
+    private static UUID getLastId(final Set<? extends AbstractIdentifyableCodeDTO> page) {
+        return page.stream()
+            .map(AbstractIdentifyableCodeDTO::getId)
+            .max(Comparator.comparing(UUID::toString))
+            .orElseThrow(IllegalStateException::new);
     }
 
     @SuppressFBWarnings("DLS_DEAD_LOCAL_STORE")
@@ -239,16 +302,25 @@ public class IndexingImpl implements Indexing {
                                 final String name) {
         if (!set.isEmpty()) {
             final BulkRequest bulkRequest = new BulkRequest();
+            final String rebuildingIndex = rebuildingIndexes.get(elasticIndex);
+            final long version = System.currentTimeMillis();
             for (final T item : set) {
                 final AbstractIdentifyableCodeDTO identifyableCode = (AbstractIdentifyableCodeDTO) item;
-                bulkRequest.add(new DeleteRequest(elasticIndex, elasticType, identifyableCode.getId().toString()));
+                bulkRequest.add(DocumentVersions.withVersion(new DeleteRequest(elasticIndex, elasticType, identifyableCode.getId().toString()), version));
+                if (rebuildingIndex != null) {
+                    bulkRequest.add(DocumentVersions.withVersion(new DeleteRequest(rebuildingIndex, elasticType, identifyableCode.getId().toString()), version));
+                }
                 bulkRequest.setRefreshPolicy(WriteRequest.RefreshPolicy.WAIT_UNTIL);
             }
+            final long start = System.nanoTime();
             try {
                 final BulkResponse response = client.bulk(bulkRequest, RequestOptions.DEFAULT);
-                final boolean success = handleBulkResponse(name, response);
+                recordBulkMetrics(elasticIndex, OPERATION_DELETE, bulkRequest, response, start);
+                handleBulkResponse(name, bulkRequest, response);
             } catch (final IOException e) {
+                recordBulkMetrics(elasticIndex, OPERATION_DELETE, bulkRequest, null, start);
                 LOG.error("Bulk delete request failed!", e);
+                deadLetter(bulkRequest, 1, e);
                 throw new YtiCodeListException(new ErrorModel(HttpStatus.INTERNAL_SERVER_ERROR.value(), "ElasticSearch index query error!"));
             }
         } else {
@@ -266,21 +338,33 @@ public class IndexingImpl implements Indexing {
         if (!set.isEmpty()) {
             final ObjectMapper mapper = indexingTools.createObjectMapper();
             final BulkRequest bulkRequest = new BulkRequest();
+            final String rebuildingIndex = rebuildingIndexes.get(elasticIndex);
             for (final T item : set) {
+                final AbstractIdentifyableCodeDTO identifyableCode = (AbstractIdentifyableCodeDTO) item;
                 try {
-                    final AbstractIdentifyableCodeDTO identifyableCode = (AbstractIdentifyableCodeDTO) item;
-                    final String itemPayload = mapper.writerWithView(jsonViewClass).writeValueAsString(item).replace("\\\\n", "\\n");
-                    bulkRequest.add(new IndexRequest(elasticIndex, elasticType, identifyableCode.getId().toString()).source(itemPayload, XContentType.JSON));
+                    final String itemPayload = serializeDocument(mapper, item, elasticType, jsonViewClass).replace("\\\\n", "\\n");
+                    final Long version = DocumentVersions.resolve(item);
+                    bulkRequest.add(DocumentVersions.withVersion(new IndexRequest(elasticIndex, elasticType, identifyableCode.getId().toString()).source(itemPayload, XContentType.JSON), version));
+                    if (rebuildingIndex != null) {
+                        bulkRequest.add(DocumentVersions.withVersion(new IndexRequest(rebuildingIndex, elasticType, identifyableCode.getId().toString()).source(itemPayload, XContentType.JSON), version));
+                    }
                     bulkRequest.setRefreshPolicy(WriteRequest.RefreshPolicy.WAIT_UNTIL);
-                } catch (final JsonProcessingException e) {
-                    handleBulkErrorWithException(name, e);
+                } catch (final IOException e) {
+                    handleBulkErrorWithException(name, elasticIndex, identifyableCode.getId().toString(), e);
                 }
             }
+            if (bulkRequest.numberOfActions() == 0) {
+                return true;
+            }
+            final long start = System.nanoTime();
             try {
                 final BulkResponse response = client.bulk(bulkRequest, RequestOptions.DEFAULT);
-                success = handleBulkResponse(name, response);
+                recordBulkMetrics(elasticIndex, OPERATION_INDEX, bulkRequest, response, start);
+                success = handleBulkResponse(name, bulkRequest, response);
             } catch (final IOException e) {
+                recordBulkMetrics(elasticIndex, OPERATION_INDEX, bulkRequest, null, start);
                 LOG.error("Bulk index request failed!", e);
+                deadLetter(bulkRequest, 1, e);
                 throw new YtiCodeListException(new ErrorModel(HttpStatus.INTERNAL_SERVER_ERROR.value(), "ElasticSearch index query error!"));
             }
         } else {
@@ -290,22 +374,188 @@ public class IndexingImpl implements Indexing {
         return success;
     }
 
+    /**
+     * Codes and members are indexed as slimmed documents, where the embedded parent objects are reduced to references.
+     */
+    private static String serializeDocument(final ObjectMapper mapper,
+                                            final Object item,
+                                            final String elasticType,
+                                            final Class<?> jsonViewClass) throws IOException {
+        final SearchDocumentProjection projection;
+        if (ELASTIC_TYPE_CODE.equals(elasticType)) {
+            projection = SearchDocumentProjection.CODE_DOCUMENT;
+        } else if (ELASTIC_TYPE_MEMBER.equals(elasticType)) {
+            projection = SearchDocumentProjection.MEMBER_DOCUMENT;
+        } else {
+            return mapper.writerWithView(jsonViewClass).writeValueAsString(item);
+        }
+        try (final TokenBuffer buffer = new TokenBuffer(mapper, false)) {
+            mapper.writerWithView(jsonViewClass).writeValue(buffer, item);
+            final JsonNode document = mapper.readTree(buffer.asParser());
+            projection.apply(document);
+            return mapper.writeValueAsString(document);
+        }
+    }
+
+    private void recordBulkMetrics(final String elasticIndex,
+                                   final String operation,
+                                   final BulkRequest bulkRequest,
+                                   final BulkResponse response,
+                                   final long start) {
+        final int failures;
+        if (response == null) {
+            failures = bulkRequest.numberOfActions();
+        } else {
+            failures = (int) Arrays.stream(response.getItems()).filter(item -> item.isFailed() && !isSuperseded(item)).count();
+        }
+        intakeMetrics.recordBulk(resolveIndexAlias(elasticIndex), operation, IntakeMetrics.outcome(failures == 0), bulkRequest.estimatedSizeInBytes(), failures, System.nanoTime() - start);
+    }
+
+    /**
+     * A document that can not be serialized will never be indexed, so it is recorded as a dead letter right away.
+     */
     private void handleBulkErrorWithException(final String name,
-                                              final JsonProcessingException e) {
-        hasError = true;
+                                              final String elasticIndex,
+                                              final String documentId,
+                                              final IOException e) {
         LOG.error(String.format("Indexing %s failed.", name), e);
+        deadLetter(elasticIndex, documentId, OPERATION_INDEX, 0, e.getMessage(), 0);
     }
 
+    /**
+     * Retries the items that failed for a transient reason with an exponential backoff, and records the items that
+     * still fail as dead letters. Items that lost to a newer version are not failures. The other items of the batch are
+     * not affected, and a rejected document does not trigger a full reindex, so the batch is reported successful once
+     * every item has been either indexed or recorded. A retry that ElasticSearch does not answer at all is recorded as
+     * dead letters for all of its items.
+     */
     private boolean handleBulkResponse(final String type,
+                                       final BulkRequest bulkRequest,
                                        final BulkResponse response) {
-        if (response.hasFailures()) {
-            hasError = true;
-            LOG.error(String.format("%s%s operation failed with errors: %s", BULK, type, response.buildFailureMessage()));
-            return false;
-        } else {
+        if (!response.hasFailures()) {
             LOG.debug(String.format("%s%s operation successfully indexed %d items in %d ms.", BULK, type, response.getItems().length, response.getTook().millis()));
             return true;
         }
+        final Iterator<TimeValue> backoff = BULK_RETRY_BACKOFF.iterator();
+        BulkRequest request = bulkRequest;
+        BulkResponse itemResponses = response;
+        int attempts = 1;
+        while (itemResponses.hasFailures()) {
+            final BulkRequest retryRequest = new BulkRequest();
+            retryRequest.setRefreshPolicy(bulkRequest.getRefreshPolicy());
+            for (final BulkItemResponse item : itemResponses.getItems()) {
+                if (!item.isFailed()) {
+                    continue;
+                }
+                if (isSuperseded(item)) {
+                    LOG.debug(String.format("%sDocument %s in index %s was not written, a newer version is already indexed.", BULK, item.getId(), item.getIndex()));
+                    continue;
+                }
+                if (isRetryable(item) && backoff.hasNext()) {
+                    retryRequest.add(request.requests().get(item.getItemId()));
+                } else {
+                    deadLetter(item, attempts);
+                }
+            }
+            if (retryRequest.numberOfActions() == 0) {
+                break;
+            }
+            LOG.warn(String.format("%s%s operation retrying %d failed items.", BULK, type, retryRequest.numberOfActions()));
+            if (!waitForRetry(backoff.next())) {
+                LOG.error(String.format("%s%s retry interrupted, %d items were not indexed.", BULK, type, retryRequest.numberOfActions()));
+                hasError = true;
+                return false;
+            }
+            request = retryRequest;
+            attempts++;
+            try {
+                itemResponses = client.bulk(retryRequest, RequestOptions.DEFAULT);
+            } catch (final IOException e) {
+                LOG.error(String.format("%s%s retry request failed, %d items were not indexed.", BULK, type, retryRequest.numberOfActions()), e);
+                deadLetter(retryRequest, attempts, e);
+                break;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isRetryable(final BulkItemResponse item) {
+        return item.status() == RestStatus.TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * With external versioning a version conflict means that the index already holds a newer version of the document.
+     */
+    private static boolean isSuperseded(final BulkItemResponse item) {
+        return item.status() == RestStatus.CONFLICT;
+    }
+
+    private static boolean waitForRetry(final TimeValue delay) {
+        try {
+            Thread.sleep(delay.millis());
+            return true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void deadLetter(final BulkItemResponse item,
+                            final int attempts) {
+        LOG.error(String.format("%sDocument %s in index %s failed permanently after %d attempts: %s", BULK, item.getId(), item.getIndex(), attempts, item.getFailureMessage()));
+        deadLetter(item.getIndex(), item.getId(), item.getOpType().getLowercase(), item.status().getStatus(), item.getFailureMessage(), attempts);
+    }
+
+    /**
+     * Records every action of a bulk request that ElasticSearch did not answer at all, in one transaction.
+     */
+    private void deadLetter(final BulkRequest bulkRequest,
+                            final int attempts,
+                            final IOException e) {
+        final List<IndexDeadLetter> deadLetters = new ArrayList<>();
+        for (final DocWriteRequest<?> request : bulkRequest.requests()) {
+            deadLetters.add(createDeadLetter(request.index(), request.id(), request.opType().getLowercase(), 0, e.getMessage(), attempts));
+        }
+        try {
+            indexDeadLetterRepository.saveAll(deadLetters);
+        } catch (final RuntimeException saveException) {
+            LOG.error(String.format("Storing %d dead letters failed.", deadLetters.size()), saveException);
+        }
+        deadLetters.forEach(deadLetter -> intakeMetrics.recordDeadLetter(deadLetter.getIndexAlias(), deadLetter.getOperation()));
+    }
+
+    private void deadLetter(final String elasticIndex,
+                            final String documentId,
+                            final String operation,
+                            final int httpStatus,
+                            final String reason,
+                            final int attempts) {
+        final IndexDeadLetter deadLetter = createDeadLetter(elasticIndex, documentId, operation, httpStatus, reason, attempts);
+        try {
+            indexDeadLetterRepository.save(deadLetter);
+        } catch (final RuntimeException e) {
+            LOG.error(String.format("Storing dead letter for document %s failed.", documentId), e);
+        }
+        intakeMetrics.recordDeadLetter(deadLetter.getIndexAlias(), operation);
+    }
+
+    private IndexDeadLetter createDeadLetter(final String elasticIndex,
+                                             final String documentId,
+                                             final String operation,
+                                             final int httpStatus,
+                                             final String reason,
+                                             final int attempts) {
+        final IndexDeadLetter deadLetter = new IndexDeadLetter();
+        deadLetter.setId(UUID.randomUUID());
+        deadLetter.setIndexName(elasticIndex);
+        deadLetter.setIndexAlias(resolveIndexAlias(elasticIndex));
+        deadLetter.setDocumentId(documentId);
+        deadLetter.setOperation(operation);
+        deadLetter.setHttpStatus(httpStatus);
+        deadLetter.setReason(reason);
+        deadLetter.setAttempts(attempts);
+        deadLetter.setCreated(new Date(System.currentTimeMillis()));
+        return deadLetter;
     }
 
     private void noContent(final String type) {
@@ -476,17 +726,29 @@ public class IndexingImpl implements Indexing {
         }
     }
 
-    @Transactional
     public void reIndexEverythingIfNecessary() {
         if (hasError && !fullIndexInProgress) {
             LOG.debug("Doing a full ElasticSearch reindexing due to errors!");
             fullIndexInProgress = true;
-            hasError = !reIndexEverything();
+            hasError = false;
+            if (!reIndexEverything()) {
+                hasError = true;
+            }
             fullIndexInProgress = false;
         }
     }
 
-    @Transactional
+    public Set<String> getResumableAliases() {
+        return new HashSet<>(resumableAliases);
+    }
+
+    /**
+     * Searches are served as long as every alias points to an index, also while a reindex builds the next ones.
+     */
+    public boolean isSearchAvailable() {
+        return REINDEX_ORDER.stream().allMatch(indexingTools::aliasExists);
+    }
+
     public boolean reIndexEverything() {
         boolean success = true;
         if (!reIndex(ELASTIC_INDEX_CODEREGISTRY, ELASTIC_TYPE_CODEREGISTRY)) {
@@ -516,41 +778,199 @@ public class IndexingImpl implements Indexing {
         return success;
     }
 
+    public boolean reIndex(final Set<String> indexAliases) {
+        return reIndex(indexAliases, NOT_CANCELLED);
+    }
+
+    /**
+     * Reindexes the given aliases one by one, without an enclosing transaction, so that the index statuses are
+     * visible while the reindex runs and each page of content is read in its own short transaction.
+     *
+     * @param indexAliases Aliases to reindex.
+     * @param cancelled    Checked between aliases and pages, a cancelled reindex leaves the current index untouched.
+     * @return true if every alias was reindexed successfully.
+     */
+    public boolean reIndex(final Set<String> indexAliases,
+                           final BooleanSupplier cancelled) {
+        boolean success = true;
+        for (final String indexAlias : REINDEX_ORDER) {
+            if (!indexAliases.contains(indexAlias)) {
+                continue;
+            }
+            if (cancelled.getAsBoolean()) {
+                return false;
+            }
+            if (isReIndexRunning(indexAlias) || !reIndexData(indexAlias, resolveIndexType(indexAlias), cancelled)) {
+                success = false;
+            }
+        }
+        return success;
+    }
+
+    /**
+     * Installs the index templates and returns the aliases whose index was built with a different mapping version than
+     * the current one, including aliases that do not exist yet.
+     */
+    public Set<String> updateIndexTemplates() {
+        final Set<String> outdatedAliases = new LinkedHashSet<>();
+        for (final String indexAlias : REINDEX_ORDER) {
+            final String type = resolveIndexType(indexAlias);
+            indexingTools.putIndexTemplate(indexAlias, type);
+            final Integer indexedMappingVersion = indexingTools.getMappingVersion(indexAlias, type);
+            if (indexedMappingVersion == null || indexedMappingVersion != indexMappingRegistry.getMappingVersion(type)) {
+                LOG.info(String.format("Index %s has mapping version %s, current version is %d.", indexAlias, indexedMappingVersion, indexMappingRegistry.getMappingVersion(type)));
+                outdatedAliases.add(indexAlias);
+            }
+        }
+        return outdatedAliases;
+    }
+
+    private static String resolveIndexType(final String indexAlias) {
+        if (ELASTIC_INDEX_CODEREGISTRY.equals(indexAlias)) {
+            return ELASTIC_TYPE_CODEREGISTRY;
+        } else if (ELASTIC_INDEX_CODESCHEME.equals(indexAlias)) {
+            return ELASTIC_TYPE_CODESCHEME;
+        } else if (ELASTIC_INDEX_CODE.equals(indexAlias)) {
+            return ELASTIC_TYPE_CODE;
+        } else if (ELASTIC_INDEX_PROPERTYTYPE.equals(indexAlias)) {
+            return ELASTIC_TYPE_PROPERTYTYPE;
+        } else if (ELASTIC_INDEX_VALUETYPE.equals(indexAlias)) {
+            return ELASTIC_TYPE_VALUETYPE;
+        }
+        return indexAlias;
+    }
+
+    /**
+     * Marks reindexes left running by an earlier process as failed, or as resumable when they have a checkpoint to
+     * continue from. Writes are mirrored into the resumable indexes from here on, so that they can be safely resumed.
+     */
     @Transactional
     public void cleanRunningIndexingBookkeeping() {
         final Set<IndexStatus> indexStatuses = indexStatusRepository.getRunningIndexStatuses();
-        indexStatuses.forEach(indexStatus -> indexStatus.setStatus(UPDATE_FAILED));
+        indexStatuses.forEach(indexStatus -> {
+            if (RESUMABLE_ALIASES.contains(indexStatus.getIndexAlias()) && indexStatus.getCheckpoint() != null) {
+                indexStatus.setStatus(INDEX_STATUS_RESUMABLE);
+            } else {
+                indexStatus.setStatus(UPDATE_FAILED);
+            }
+        });
         indexStatusRepository.saveAll(indexStatuses);
+        indexStatusRepository.getResumableIndexStatuses().forEach(indexStatus -> {
+            final String indexAlias = indexStatus.getIndexAlias();
+            if (rebuildingIndexes.putIfAbsent(indexAlias, indexStatus.getIndexName()) != null) {
+                discardIndex(indexStatus, UPDATE_FAILED);
+            } else {
+                resumableAliases.add(indexAlias);
+            }
+        });
     }
 
     private boolean reIndex(final String indexName,
                             final String type) {
-        final Set<IndexStatus> list = indexStatusRepository.getLatestRunningIndexStatusForIndexAlias(indexName);
-        if (list.isEmpty()) {
-            reIndexData(indexName, type);
+        if (!isReIndexRunning(indexName)) {
+            reIndexData(indexName, type, NOT_CANCELLED);
             return true;
         } else {
-            LOG.debug(String.format("Indexing is already running for index: %s", indexName));
             return false;
         }
     }
 
-    private void reIndexData(final String indexAlias,
-                             final String type) {
-        final String indexName = createIndexName(indexAlias);
-        final IndexStatus status = new IndexStatus();
+    private boolean isReIndexRunning(final String indexAlias) {
+        final Set<IndexStatus> list = indexStatusRepository.getLatestRunningIndexStatusForIndexAlias(indexAlias);
+        if (!list.isEmpty()) {
+            LOG.debug(String.format("Indexing is already running for index: %s", indexAlias));
+            return true;
+        }
+        return false;
+    }
+
+    private boolean reIndexData(final String indexAlias,
+                                final String type,
+                                final BooleanSupplier cancelled) {
+        final long start = System.nanoTime();
         final Date timeStamp = new Date(System.currentTimeMillis());
-        status.setId(UUID.randomUUID());
-        status.setCreated(timeStamp);
+        IndexStatus status = findResumableStatus(indexAlias);
+        if (status == null) {
+            status = new IndexStatus();
+            status.setId(UUID.randomUUID());
+            status.setCreated(timeStamp);
+            status.setIndexAlias(indexAlias);
+            status.setIndexName(createIndexName(indexAlias));
+            indexingTools.createIndexWithNestedPrefLabel(status.getIndexName(), type);
+            rebuildingIndexes.put(indexAlias, status.getIndexName());
+        }
         status.setModified(timeStamp);
         status.setStatus(INDEX_STATUS_RUNNING);
-        status.setIndexAlias(indexAlias);
-        status.setIndexName(indexName);
         indexStatusRepository.save(status);
-
-        indexingTools.createIndexWithNestedPrefLabel(indexName, type);
+        final String indexName = status.getIndexName();
 
         boolean success;
+        try {
+            success = indexAliasContent(indexAlias, status, cancelled);
+        } catch (final RuntimeException e) {
+            LOG.error(String.format("Reindexing %s failed.", indexAlias), e);
+            success = false;
+        }
+        if (success) {
+            indexingTools.aliasIndex(indexName, indexAlias);
+            rebuildingIndexes.remove(indexAlias, indexName);
+            final Set<IndexStatus> earlierStatuses = indexStatusRepository.getLatestSuccessfulIndexStatusForIndexAlias(indexAlias);
+            earlierStatuses.forEach(earlierIndex -> discardIndex(earlierIndex, INDEX_STATUS_DELETED));
+            status.setStatus(INDEX_STATUS_SUCCESSFUL);
+            status.setCheckpoint(null);
+            status.setModified(new Date(System.currentTimeMillis()));
+            indexStatusRepository.save(status);
+            resumableAliases.remove(indexAlias);
+        } else if (!cancelled.getAsBoolean() && status.getCheckpoint() != null && RESUMABLE_ALIASES.contains(indexAlias)) {
+            LOG.info(String.format("Reindexing %s stopped at checkpoint %s, the index %s is kept for resuming.", indexAlias, status.getCheckpoint(), indexName));
+            status.setStatus(INDEX_STATUS_RESUMABLE);
+            status.setModified(new Date(System.currentTimeMillis()));
+            indexStatusRepository.save(status);
+            resumableAliases.add(indexAlias);
+        } else {
+            rebuildingIndexes.remove(indexAlias, indexName);
+            resumableAliases.remove(indexAlias);
+            discardIndex(status, cancelled.getAsBoolean() ? INDEX_STATUS_CANCELLED : INDEX_STATUS_FAILED);
+        }
+        intakeMetrics.recordReindex(indexAlias, IntakeMetrics.outcome(success), System.nanoTime() - start);
+        return success;
+    }
+
+    /**
+     * Returns the resumable index status of the alias whose index is still being kept up to date, discarding any others.
+     */
+    private IndexStatus findResumableStatus(final String indexAlias) {
+        final String resumableIndex = rebuildingIndexes.get(indexAlias);
+        IndexStatus resumableStatus = null;
+        for (final IndexStatus indexStatus : indexStatusRepository.getResumableIndexStatuses()) {
+            if (!indexAlias.equals(indexStatus.getIndexAlias())) {
+                continue;
+            }
+            if (resumableStatus == null && indexStatus.getIndexName().equals(resumableIndex)) {
+                resumableStatus = indexStatus;
+            } else {
+                discardIndex(indexStatus, UPDATE_FAILED);
+            }
+        }
+        if (resumableStatus == null && resumableIndex != null) {
+            rebuildingIndexes.remove(indexAlias, resumableIndex);
+        }
+        return resumableStatus;
+    }
+
+    private void discardIndex(final IndexStatus indexStatus,
+                              final String finalStatus) {
+        indexingTools.deleteIndex(indexStatus.getIndexName());
+        indexStatus.setStatus(finalStatus);
+        indexStatus.setModified(new Date(System.currentTimeMillis()));
+        indexStatusRepository.save(indexStatus);
+    }
+
+    private boolean indexAliasContent(final String indexAlias,
+                                      final IndexStatus status,
+                                      final BooleanSupplier cancelled) {
+        final String indexName = status.getIndexName();
+        final boolean success;
         switch (indexAlias) {
             case ELASTIC_INDEX_CODEREGISTRY:
                 success = indexCodeRegistries(indexName);
@@ -559,19 +979,19 @@ public class IndexingImpl implements Indexing {
                 success = indexCodeSchemes(indexName);
                 break;
             case ELASTIC_INDEX_CODE:
-                success = indexCodes(indexName);
+                success = indexCodes(status, cancelled);
                 break;
             case ELASTIC_INDEX_PROPERTYTYPE:
                 success = indexPropertyTypes(indexName);
                 break;
             case ELASTIC_INDEX_EXTERNALREFERENCE:
-                success = indexExternalReferences(indexName);
+                success = indexExternalReferences(indexName, cancelled);
                 break;
             case ELASTIC_INDEX_EXTENSION:
-                success = indexExtensions(indexName);
+                success = indexExtensions(indexName, cancelled);
                 break;
             case ELASTIC_INDEX_MEMBER:
-                success = indexMembers(indexName);
+                success = indexMembers(status, cancelled);
                 break;
             case ELASTIC_INDEX_VALUETYPE:
                 success = indexValueTypes(indexName);
@@ -581,24 +1001,18 @@ public class IndexingImpl implements Indexing {
                 success = false;
                 break;
         }
-        if (success) {
-            indexingTools.aliasIndex(indexName, indexAlias);
-            final Set<IndexStatus> earlierStatuses = indexStatusRepository.getLatestSuccessfulIndexStatusForIndexAlias(indexAlias);
-            earlierStatuses.forEach(earlierIndex -> {
-                indexingTools.deleteIndex(earlierIndex.getIndexName());
-                earlierIndex.setModified(timeStamp);
-                earlierIndex.setStatus(INDEX_STATUS_DELETED);
-                indexStatusRepository.save(earlierIndex);
-            });
-            status.setStatus(INDEX_STATUS_SUCCESSFUL);
-        } else {
-            status.setStatus(INDEX_STATUS_FAILED);
-            indexingTools.deleteIndex(indexName);
-        }
-        indexStatusRepository.save(status);
+        return success;
     }
 
     private String createIndexName(final String indexName) {
         return indexName + "_" + System.currentTimeMillis();
     }
+
+    private static String resolveIndexAlias(final String elasticIndex) {
+        final int timestampSeparator = elasticIndex.lastIndexOf('_');
+        if (timestampSeparator > 0 && elasticIndex.substring(timestampSeparator + 1).chars().allMatch(Character::isDigit)) {
+            return elasticIndex.substring(0, timestampSeparator);
+        }
+        return elasticIndex;
+    }
 }
@@ -1,8 +1,9 @@
 package fi.vm.yti.codelist.intake.indexing.impl;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -10,18 +11,26 @@ import java.util.Set;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import org.elasticsearch.ElasticsearchStatusException;
 import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
 import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequest;
 import org.elasticsearch.action.admin.indices.create.CreateIndexResponse;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
 import org.elasticsearch.action.admin.indices.get.GetIndexRequest;
+import org.elasticsearch.action.admin.indices.mapping.get.GetMappingsRequest;
+import org.elasticsearch.action.admin.indices.mapping.get.GetMappingsResponse;
+import org.elasticsearch.action.admin.indices.template.put.PutIndexTemplateRequest;
+import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.client.GetAliasesResponse;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.elasticsearch.cluster.metadata.MappingMetaData;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.RestStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -35,10 +44,9 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import fi.vm.yti.codelist.common.dto.ErrorModel;
 import fi.vm.yti.codelist.intake.exception.YtiCodeListException;
+import fi.vm.yti.codelist.intake.indexing.IndexMappingRegistry;
 import fi.vm.yti.codelist.intake.indexing.IndexingTools;
-import static fi.vm.yti.codelist.common.constants.ApiConstants.*;
 import static fi.vm.yti.codelist.intake.exception.ErrorConstants.ERR_MSG_USER_500;
-import static fi.vm.yti.codelist.intake.util.FileUtils.loadFileFromClassPath;
 
 @Singleton
 @Component
@@ -46,11 +54,17 @@ public class IndexingToolsImpl implements IndexingTools {
 
     private static final Logger LOG = LoggerFactory.getLogger(IndexingToolsImpl.class);
 
+    private static final String INDEX_TEMPLATE_SUFFIX = "_template";
+    private static final String RESOURCE_ALREADY_EXISTS_EXCEPTION = "resource_already_exists_exception";
+
     private final RestHighLevelClient client;
+    private final IndexMappingRegistry indexMappingRegistry;
 
     @Inject
-    public IndexingToolsImpl(final RestHighLevelClient client) {
+    public IndexingToolsImpl(final RestHighLevelClient client,
+                             final IndexMappingRegistry indexMappingRegistry) {
         this.client = client;
+        this.indexMappingRegistry = indexMappingRegistry;
     }
 
     private boolean checkIfIndexExists(final String indexName) {
@@ -66,127 +80,140 @@ public class IndexingToolsImpl implements IndexingTools {
 
     public void aliasIndex(final String indexName,
                            final String aliasName) {
-        if (checkIfIndexExists(indexName)) {
-            final IndicesAliasesRequest request = new IndicesAliasesRequest();
-            final GetAliasesRequest getAliasesRequest = new GetAliasesRequest(aliasName);
-            try {
-                final GetAliasesResponse aliasGetResponse = client.indices().getAlias(getAliasesRequest, RequestOptions.DEFAULT);
-                final List<String> oldIndexNames = new ArrayList<>();
-                for (final Map.Entry<String, Set<AliasMetaData>> aliasEntry : aliasGetResponse.getAliases().entrySet()) {
-                    final String alias = aliasEntry.getKey();
-                    final Set<AliasMetaData> value = aliasEntry.getValue();
-                    if (!value.isEmpty()) {
-                        request.addAliasAction(IndicesAliasesRequest.AliasActions.remove().alias(aliasName).index(alias));
-                        oldIndexNames.add(alias);
-                    }
+        final IndicesAliasesRequest request = new IndicesAliasesRequest();
+        final GetAliasesRequest getAliasesRequest = new GetAliasesRequest(aliasName);
+        try {
+            final GetAliasesResponse aliasGetResponse = client.indices().getAlias(getAliasesRequest, RequestOptions.DEFAULT);
+            final List<String> oldIndexNames = new ArrayList<>();
+            for (final Map.Entry<String, Set<AliasMetaData>> aliasEntry : aliasGetResponse.getAliases().entrySet()) {
+                final String alias = aliasEntry.getKey();
+                final Set<AliasMetaData> value = aliasEntry.getValue();
+                if (!value.isEmpty()) {
+                    request.addAliasAction(IndicesAliasesRequest.AliasActions.remove().alias(aliasName).index(alias));
+                    oldIndexNames.add(alias);
                 }
-                request.addAliasAction(IndicesAliasesRequest.AliasActions.add().alias(aliasName).index(indexName));
-                final AcknowledgedResponse response = client.indices().updateAliases(request, RequestOptions.DEFAULT);
-                if (!response.isAcknowledged()) {
-                    logAliasFailed(indexName);
-                } else {
-                    logAliasSuccessful(indexName);
-                    for (final String oldIndexName : oldIndexNames) {
-                        logAliasRemovedSuccessful(oldIndexName);
-                    }
+            }
+            if (oldIndexNames.isEmpty() && checkIfIndexExists(aliasName)) {
+                // A write that arrived before the first alias existed auto-created a plain index with the alias name.
+                request.addAliasAction(IndicesAliasesRequest.AliasActions.removeIndex().index(aliasName));
+            }
+            request.addAliasAction(IndicesAliasesRequest.AliasActions.add().alias(aliasName).index(indexName));
+            final AcknowledgedResponse response = client.indices().updateAliases(request, RequestOptions.DEFAULT);
+            if (!response.isAcknowledged()) {
+                logAliasFailed(indexName);
+            } else {
+                logAliasSuccessful(indexName);
+                for (final String oldIndexName : oldIndexNames) {
+                    logAliasRemovedSuccessful(oldIndexName);
                 }
-            } catch (final IOException e) {
-                throw new YtiCodeListException(new ErrorModel(HttpStatus.INTERNAL_SERVER_ERROR.value(), ERR_MSG_USER_500));
             }
-        } else {
+        } catch (final ElasticsearchStatusException e) {
+            if (e.status() != RestStatus.NOT_FOUND) {
+                throw e;
+            }
             logIndexDoesNotExist(indexName);
+        } catch (final IOException e) {
+            throw new YtiCodeListException(new ErrorModel(HttpStatus.INTERNAL_SERVER_ERROR.value(), ERR_MSG_USER_500));
         }
     }
 
     public void deleteIndex(final String indexName) {
         final DeleteIndexRequest request = new DeleteIndexRequest(indexName);
-        if (checkIfIndexExists(indexName)) {
-            try {
-                final AcknowledgedResponse response = client.indices().delete(request, RequestOptions.DEFAULT);
-                if (!response.isAcknowledged()) {
-                    logDeleteFailed(indexName);
-                } else {
-                    logDeleteSuccessful(indexName);
-                }
-            } catch (final IOException e) {
-                throw new YtiCodeListException(new ErrorModel(HttpStatus.INTERNAL_SERVER_ERROR.value(), ERR_MSG_USER_500));
+        request.indicesOptions(IndicesOptions.lenientExpandOpen());
+        try {
+            final AcknowledgedResponse response = client.indices().delete(request, RequestOptions.DEFAULT);
+            if (!response.isAcknowledged()) {
+                logDeleteFailed(indexName);
+            } else {
+                logDeleteSuccessful(indexName);
             }
-        } else {
-            logIndexDoesNotExist(indexName);
+        } catch (final IOException e) {
+            throw new YtiCodeListException(new ErrorModel(HttpStatus.INTERNAL_SERVER_ERROR.value(), ERR_MSG_USER_500));
         }
     }
 
     public void createIndexWithNestedPrefLabel(final String indexName,
                                                final String type) {
-        if (!checkIfIndexExists(indexName)) {
-            final CreateIndexRequest request = new CreateIndexRequest();
-            request.index(indexName);
-            request.source(getGenericIndexSettings(), XContentType.JSON);
-            switch (type) {
-                case ELASTIC_TYPE_CODESCHEME:
-                    request.mapping(type, getCodeSchemeMapping(), XContentType.JSON);
-                    break;
-                case ELASTIC_TYPE_CODE:
-                    request.mapping(type, getCodeMapping(), XContentType.JSON);
-                    break;
-                case ELASTIC_TYPE_EXTENSION:
-                    request.mapping(type, getExtensionMapping(), XContentType.JSON);
-                    break;
-                case ELASTIC_TYPE_MEMBER:
-                    request.mapping(type, getMemberMapping(), XContentType.JSON);
-                    break;
-                default:
-                    request.mapping(type, getGenericPrefLabelMapping(), XContentType.JSON);
-                    break;
+        final CreateIndexRequest request = new CreateIndexRequest();
+        request.index(indexName);
+        request.source(indexMappingRegistry.getIndexSettings(), XContentType.JSON);
+        request.mapping(type, indexMappingRegistry.getMapping(type), XContentType.JSON);
+        try {
+            final CreateIndexResponse response = client.indices().create(request, RequestOptions.DEFAULT);
+            if (!response.isAcknowledged()) {
+                logCreateFailed(indexName);
+            } else {
+                logCreateSuccessful(indexName);
             }
-            try {
-                final CreateIndexResponse response = client.indices().create(request, RequestOptions.DEFAULT);
-                if (!response.isAcknowledged()) {
-                    logCreateFailed(indexName);
-                } else {
-                    logCreateSuccessful(indexName);
-                }
-            } catch (final IOException e) {
-                LOG.error("Error creating index JSON!", e);
+        } catch (final ElasticsearchStatusException e) {
+            if (!isIndexAlreadyExists(e)) {
+                throw e;
             }
-        } else {
             logIndexExist(indexName);
+        } catch (final IOException e) {
+            LOG.error("Error creating index JSON!", e);
         }
     }
 
-    private String getGenericIndexSettings() {
-        return loadMapping("/esmappings/generic_index_settings.json");
-    }
-
-    private String getCodeSchemeMapping() {
-        return loadMapping("/esmappings/codescheme_mapping.json");
-    }
-
-    private String getCodeMapping() {
-        return loadMapping("/esmappings/code_mapping.json");
+    private static boolean isIndexAlreadyExists(final ElasticsearchStatusException e) {
+        return e.status() == RestStatus.BAD_REQUEST && e.getMessage() != null && e.getMessage().contains(RESOURCE_ALREADY_EXISTS_EXCEPTION);
     }
 
-    private String getExtensionMapping() {
-        return loadMapping("/esmappings/extension_mapping.json");
-    }
-
-    private String getMemberMapping() {
-        return loadMapping("/esmappings/member_mapping.json");
+    /**
+     * Installs the settings and mapping of the alias as an index template, so that an index that ElasticSearch creates
+     * on its own, for example by a write that arrives before the alias exists, gets the same mapping.
+     */
+    public void putIndexTemplate(final String aliasName,
+                                 final String type) {
+        final PutIndexTemplateRequest request = new PutIndexTemplateRequest(aliasName + INDEX_TEMPLATE_SUFFIX);
+        request.patterns(Arrays.asList(aliasName, aliasName + "_*"));
+        request.settings(indexMappingRegistry.getIndexSettings(), XContentType.JSON);
+        request.mapping(type, indexMappingRegistry.getMapping(type), XContentType.JSON);
+        request.version(indexMappingRegistry.getMappingVersion(type));
+        try {
+            final AcknowledgedResponse response = client.indices().putTemplate(request, RequestOptions.DEFAULT);
+            if (!response.isAcknowledged()) {
+                LOG.error(String.format("ElasticSearch index template for %s was not acknowledged.", aliasName));
+            }
+        } catch (final IOException e) {
+            LOG.error(String.format("ElasticSearch index template installation failed for %s.", aliasName), e);
+            throw new YtiCodeListException(new ErrorModel(HttpStatus.INTERNAL_SERVER_ERROR.value(), ERR_MSG_USER_500));
+        }
     }
 
-    private String getGenericPrefLabelMapping() {
-        return loadMapping("/esmappings/generic_nested_preflabel_mapping.json");
+    /**
+     * Returns the mapping version that the index behind the alias was created with, or null when the alias does not
+     * exist or the index predates mapping versions.
+     */
+    public Integer getMappingVersion(final String aliasName,
+                                     final String type) {
+        final GetMappingsRequest request = new GetMappingsRequest().indices(aliasName).types(type);
+        request.indicesOptions(IndicesOptions.lenientExpandOpen());
+        try {
+            final GetMappingsResponse response = client.indices().getMapping(request, RequestOptions.DEFAULT);
+            final Iterator<ImmutableOpenMap<String, MappingMetaData>> indexMappings = response.getMappings().valuesIt();
+            while (indexMappings.hasNext()) {
+                final MappingMetaData mapping = indexMappings.next().get(type);
+                if (mapping != null && mapping.sourceAsMap().get("_meta") instanceof Map) {
+                    final Object mappingVersion = ((Map<?, ?>) mapping.sourceAsMap().get("_meta")).get(IndexMappingRegistry.META_MAPPING_VERSION);
+                    if (mappingVersion instanceof Number) {
+                        return ((Number) mappingVersion).intValue();
+                    }
+                }
+            }
+            return null;
+        } catch (final IOException e) {
+            LOG.error(String.format("ElasticSearch mapping query failed for %s.", aliasName), e);
+            throw new YtiCodeListException(new ErrorModel(HttpStatus.INTERNAL_SERVER_ERROR.value(), ERR_MSG_USER_500));
+        }
     }
 
-    private String loadMapping(final String fileName) {
+    public boolean aliasExists(final String aliasName) {
         try {
-            final InputStream inputStream = loadFileFromClassPath(fileName);
-            final ObjectMapper objectMapper = createObjectMapper();
-            final Object obj = objectMapper.readTree(inputStream);
-            return objectMapper.writeValueAsString(obj);
+            return client.indices().existsAlias(new GetAliasesRequest(aliasName), RequestOptions.DEFAULT);
         } catch (final IOException e) {
-            LOG.error("Index configuration loading error for file: " + fileName);
-            throw new YtiCodeListException(new ErrorModel(HttpStatus.INTERNAL_SERVER_ERROR.value(), "ElasticSearch index configuration loading error for file: " + fileName));
+            LOG.error(String.format("ElasticSearch alias query failed for %s.", aliasName), e);
+            throw new YtiCodeListException(new ErrorModel(HttpStatus.INTERNAL_SERVER_ERROR.value(), ERR_MSG_USER_500));
         }
     }
 
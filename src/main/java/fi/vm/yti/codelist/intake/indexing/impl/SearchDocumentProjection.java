@@ -0,0 +1,81 @@
+package fi.vm.yti.codelist.intake.indexing.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Trims the serialized DTO graph of a search document down to a small, stable schema.
+ * <p>
+ * The document keeps its own fields, but the parent and related objects embedded in it are reduced to references that
+ * hold the id, the uri and the fields used for searching, filtering and displaying search results. This keeps codes
+ * and members from carrying whole code schemes, registries and extensions, which the read API can resolve by id.
+ */
+final class SearchDocumentProjection {
+
+    private static final String[] REFERENCE_FIELDS = { "id", "uri", "url", "codeValue", "prefLabel", "status" };
+
+    private static final SearchDocumentProjection ORGANIZATION = reference("id", "prefLabel");
+    private static final SearchDocumentProjection CODE_REGISTRY = reference(REFERENCE_FIELDS)
+        .with("organizations", ORGANIZATION);
+    private static final SearchDocumentProjection CODE_SCHEME = reference(REFERENCE_FIELDS)
+        .with("organizations", ORGANIZATION)
+        .with("codeRegistry", CODE_REGISTRY);
+    private static final SearchDocumentProjection CODE = reference(REFERENCE_FIELDS)
+        .with("codeScheme", CODE_SCHEME);
+    private static final SearchDocumentProjection EXTENSION = reference(REFERENCE_FIELDS)
+        .with("propertyType", reference("id", "uri", "url", "localName"))
+        .with("parentCodeScheme", CODE_SCHEME);
+
+    static final SearchDocumentProjection CODE_DOCUMENT = document()
+        .with("codeScheme", CODE_SCHEME)
+        .with("broaderCode", reference(REFERENCE_FIELDS))
+        .with("members", reference("id", "uri", "url"));
+    static final SearchDocumentProjection MEMBER_DOCUMENT = document()
+        .with("extension", EXTENSION)
+        .with("code", CODE)
+        .with("relatedMember", reference("id", "uri", "url", "sequenceId"));
+
+    private final Set<String> fields;
+    private final Map<String, SearchDocumentProjection> nested = new HashMap<>();
+
+    private SearchDocumentProjection(final Set<String> fields) {
+        this.fields = fields;
+    }
+
+    private static SearchDocumentProjection document() {
+        return new SearchDocumentProjection(null);
+    }
+
+    private static SearchDocumentProjection reference(final String... fields) {
+        return new SearchDocumentProjection(new HashSet<>(Arrays.asList(fields)));
+    }
+
+    private SearchDocumentProjection with(final String field,
+                                          final SearchDocumentProjection projection) {
+        nested.put(field, projection);
+        return this;
+    }
+
+    void apply(final JsonNode node) {
+        if (node.isArray()) {
+            node.forEach(this::apply);
+        } else if (node.isObject()) {
+            final Iterator<Map.Entry<String, JsonNode>> iterator = node.fields();
+            while (iterator.hasNext()) {
+                final Map.Entry<String, JsonNode> field = iterator.next();
+                final SearchDocumentProjection projection = nested.get(field.getKey());
+                if (projection != null) {
+                    projection.apply(field.getValue());
+                } else if (fields != null && !fields.contains(field.getKey())) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package fi.vm.yti.codelist.intake.integration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.HttpClientErrorException;
+
+import fi.vm.yti.codelist.intake.exception.IntegrationUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.METRIC_INTEGRATION_ACTIVE;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.METRIC_INTEGRATION_CALLS;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.METRIC_INTEGRATION_REJECTED;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.OUTCOME_FAILURE;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.OUTCOME_SUCCESS;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.TAG_INTEGRATION;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.TAG_OUTCOME;
+
+/**
+ * Bulkhead and circuit breaker for calls to a single external integration.
+ * <p>
+ * At most a fixed number of calls run concurrently, callers wait for a free slot only for a short while. After a number
+ * of consecutive failures the circuit opens and calls fail fast until the open period has passed, after which a single
+ * trial call is let through to decide whether to close the circuit again. Client errors (4xx) are not failures of the
+ * integration and do not affect the circuit.
+ */
+public class IntegrationGuard {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IntegrationGuard.class);
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final Semaphore bulkhead;
+    private final int maxConcurrentCalls;
+    private final long maxWaitMillis;
+    private final int failureThreshold;
+    private final long openDurationMillis;
+    private final Timer successTimer;
+    private final Timer failureTimer;
+    private final Counter rejectedCounter;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private long rejectedCalls;
+
+    public IntegrationGuard(final String name,
+                            final int maxConcurrentCalls,
+                            final long maxWaitMillis,
+                            final int failureThreshold,
+                            final long openDurationMillis,
+                            final MeterRegistry meterRegistry) {
+        this.name = name;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitMillis = maxWaitMillis;
+        this.failureThreshold = failureThreshold;
+        this.openDurationMillis = openDurationMillis;
+        this.successTimer = meterRegistry.timer(METRIC_INTEGRATION_CALLS, TAG_INTEGRATION, name, TAG_OUTCOME, OUTCOME_SUCCESS);
+        this.failureTimer = meterRegistry.timer(METRIC_INTEGRATION_CALLS, TAG_INTEGRATION, name, TAG_OUTCOME, OUTCOME_FAILURE);
+        this.rejectedCounter = meterRegistry.counter(METRIC_INTEGRATION_REJECTED, TAG_INTEGRATION, name);
+        Gauge.builder(METRIC_INTEGRATION_ACTIVE, bulkhead, semaphore -> maxConcurrentCalls - semaphore.availablePermits())
+            .tag(TAG_INTEGRATION, name)
+            .register(meterRegistry);
+    }
+
+    public <T> T call(final Supplier<T> supplier) {
+        if (!allowCall()) {
+            throw reject();
+        }
+        final boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject();
+        }
+        if (!acquired) {
+            throw reject();
+        }
+        final long start = System.nanoTime();
+        try {
+            final T result = supplier.get();
+            onSuccess();
+            successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (final HttpClientErrorException e) {
+            onSuccess();
+            successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        } catch (final RuntimeException e) {
+            onFailure();
+            failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    public void run(final Runnable runnable) {
+        call(() -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> getStatus() {
+        final Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", state);
+        status.put("consecutiveFailures", consecutiveFailures);
+        status.put("rejectedCalls", rejectedCalls);
+        status.put("activeCalls", maxConcurrentCalls - bulkhead.availablePermits());
+        status.put("maxConcurrentCalls", maxConcurrentCalls);
+        return status;
+    }
+
+    private synchronized boolean allowCall() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openDurationMillis) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    private synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            LOG.info("Circuit for integration {} closed.", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    private synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                LOG.warn("Circuit for integration {} opened after {} consecutive failures.", name, consecutiveFailures);
+            }
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    private synchronized IntegrationUnavailableException reject() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+        rejectedCalls++;
+        rejectedCounter.increment();
+        return new IntegrationUnavailableException(name);
+    }
+}
@@ -0,0 +1,44 @@
+package fi.vm.yti.codelist.intake.integration;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.springframework.stereotype.Component;
+
+import fi.vm.yti.codelist.intake.configuration.IntegrationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Component
+public class IntegrationGuards {
+
+    public static final String INTEGRATION_TERMINOLOGY = "terminology";
+    public static final String INTEGRATION_GROUPMANAGEMENT = "groupmanagement";
+
+    private final Map<String, IntegrationGuard> guards = new LinkedHashMap<>();
+
+    @Inject
+    public IntegrationGuards(final IntegrationProperties integrationProperties,
+                             final MeterRegistry meterRegistry) {
+        Arrays.asList(INTEGRATION_TERMINOLOGY, INTEGRATION_GROUPMANAGEMENT).forEach(name -> guards.put(name, new IntegrationGuard(name,
+            integrationProperties.getMaxConcurrentCalls(),
+            integrationProperties.getMaxWaitMillis(),
+            integrationProperties.getFailureThreshold(),
+            integrationProperties.getOpenDurationSeconds() * 1000,
+            meterRegistry)));
+    }
+
+    public IntegrationGuard terminology() {
+        return guards.get(INTEGRATION_TERMINOLOGY);
+    }
+
+    public IntegrationGuard groupManagement() {
+        return guards.get(INTEGRATION_GROUPMANAGEMENT);
+    }
+
+    public Map<String, IntegrationGuard> getGuards() {
+        return guards;
+    }
+}
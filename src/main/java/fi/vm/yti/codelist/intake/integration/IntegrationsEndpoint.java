@@ -0,0 +1,29 @@
+package fi.vm.yti.codelist.intake.integration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+@Component
+@Endpoint(id = "integrations")
+public class IntegrationsEndpoint {
+
+    private final IntegrationGuards integrationGuards;
+
+    @Inject
+    public IntegrationsEndpoint(final IntegrationGuards integrationGuards) {
+        this.integrationGuards = integrationGuards;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> integrations() {
+        final Map<String, Map<String, Object>> integrations = new LinkedHashMap<>();
+        integrationGuards.getGuards().forEach((name, guard) -> integrations.put(name, guard.getStatus()));
+        return integrations;
+    }
+}
@@ -4,22 +4,29 @@ import java.util.Date;
 import java.util.Set;
 import java.util.UUID;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import fi.vm.yti.codelist.intake.model.CodeRegistry;
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
 
 @Repository
 @Transactional
 public interface CodeRegistryRepository extends CrudRepository<CodeRegistry, String> {
 
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     CodeRegistry findByCodeValueIgnoreCase(final String codeValue);
 
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     CodeRegistry findById(final UUID id);
 
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     Set<CodeRegistry> findAll();
 
     @Query(value = "SELECT COUNT(cr) FROM coderegistry AS cr WHERE cr.modified >= :modifiedAfter", nativeQuery = true)
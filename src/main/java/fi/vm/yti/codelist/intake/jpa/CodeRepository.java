@@ -1,6 +1,7 @@
 package fi.vm.yti.codelist.intake.jpa;
 
 import java.util.Date;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
@@ -51,6 +52,9 @@ public interface CodeRepository extends PagingAndSortingRepository<Code, String>
 
     Page<Code> findAll(final Pageable pageable);
 
+    List<Code> findByIdGreaterThan(final UUID id,
+                                   final Pageable pageable);
+
     @Query("SELECT COUNT(c) FROM Code as c")
     int getCodeCount();
 
@@ -1,10 +1,10 @@
 package fi.vm.yti.codelist.intake.jpa;
 
 import java.util.Date;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
@@ -38,16 +38,18 @@ public interface CodeSchemeRepository extends CrudRepository<CodeScheme, String>
         "where cs.id = ?1")
     CodeScheme findCodeSchemeAndEagerFetchTheChildren(final UUID id);
 
+    @Query(value = "WITH RECURSIVE versions (id, prev_codescheme_id, depth) AS (" +
+        "SELECT cs.id, cs.prev_codescheme_id, 0 FROM codescheme AS cs WHERE cs.id = :codeSchemeId " +
+        "UNION ALL SELECT cs.id, cs.prev_codescheme_id, v.depth + 1 FROM codescheme AS cs JOIN versions AS v ON cs.id = v.prev_codescheme_id WHERE v.depth < 1000) " +
+        "SELECT cs.* FROM codescheme AS cs JOIN versions AS v ON v.id = cs.id ORDER BY v.depth", nativeQuery = true)
+    List<CodeScheme> findVersionChain(@Param("codeSchemeId") final UUID codeSchemeId);
+
     @Query(value = "SELECT COUNT(cs) FROM codescheme AS cs WHERE cs.modified >= :modifiedAfter", nativeQuery = true)
     long modifiedAfterCount(@Param("modifiedAfter") final Date modifiedAfter);
 
     @Query(value = "SELECT COUNT(cs) FROM codescheme AS cs WHERE cs.created >= :createdAfter", nativeQuery = true)
     long createdAfterCount(@Param("createdAfter") final Date createdAfter);
 
-    @Modifying
-    @Query(value = "UPDATE CodeScheme AS cs SET cs.contentModified = :timeStamp WHERE cs.id = :codeSchemeId")
-    int updateContentModified(@Param("codeSchemeId") final UUID codeSchemeId,
-                              @Param("timeStamp") final Date timeStamp);
 
     @Query(value = "SELECT DISTINCT language FROM code_preflabel WHERE code_id IN (SELECT id FROM code WHERE codescheme_id = :codeSchemeId) " +
         "UNION SELECT DISTINCT language FROM code_description WHERE code_id IN (SELECT id FROM code WHERE codescheme_id = :codeSchemeId) " +
@@ -0,0 +1,33 @@
+package fi.vm.yti.codelist.intake.jpa;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import fi.vm.yti.codelist.intake.model.IndexDeadLetter;
+
+@Repository
+@Transactional
+public interface IndexDeadLetterRepository extends CrudRepository<IndexDeadLetter, UUID> {
+
+    /**
+     * Dead letters are written in their own transaction, so that they are kept when the surrounding transaction rolls
+     * back and a failing insert does not mark the surrounding transaction rollback-only.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    <S extends IndexDeadLetter> S save(final S deadLetter);
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    <S extends IndexDeadLetter> Iterable<S> saveAll(final Iterable<S> deadLetters);
+
+    @Query(value = "SELECT d FROM IndexDeadLetter as d ORDER BY d.created DESC")
+    List<IndexDeadLetter> getLatestDeadLetters(final Pageable pageable);
+}
@@ -1,5 +1,7 @@
 package fi.vm.yti.codelist.intake.jpa;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Set;
 
 import org.springframework.data.jpa.repository.Query;
@@ -20,6 +22,13 @@ public interface IndexStatusRepository extends CrudRepository<IndexStatus, Strin
     @Query(value = "SELECT i FROM IndexStatus as i WHERE i.indexAlias = :aliasName AND i.status = 'running' ORDER BY i.modified DESC")
     Set<IndexStatus> getLatestRunningIndexStatusForIndexAlias(@Param("aliasName") final String aliasName);
 
+    @Query(value = "SELECT i FROM IndexStatus as i WHERE i.indexAlias IN :aliasNames AND i.created >= :since ORDER BY i.created ASC")
+    List<IndexStatus> getIndexStatusesForIndexAliasesSince(@Param("aliasNames") final Set<String> aliasNames,
+                                                           @Param("since") final Date since);
+
+    @Query(value = "SELECT i FROM IndexStatus as i WHERE i.status = 'resumable' ORDER BY i.modified DESC")
+    List<IndexStatus> getResumableIndexStatuses();
+
     @Query(value = "SELECT i FROM IndexStatus as i WHERE i.status = 'running' ORDER BY i.modified DESC")
     Set<IndexStatus> getRunningIndexStatuses();
 }
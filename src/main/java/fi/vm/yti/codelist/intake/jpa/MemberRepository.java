@@ -1,6 +1,7 @@
 package fi.vm.yti.codelist.intake.jpa;
 
 import java.util.Date;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
@@ -23,6 +24,9 @@ public interface MemberRepository extends CrudRepository<Member, String> {
 
     Page<Member> findAll(final Pageable pageable);
 
+    List<Member> findByIdGreaterThan(final UUID id,
+                                     final Pageable pageable);
+
     Set<Member> findByCodeId(final UUID id);
 
     @Query(value = "SELECT m.memberorder FROM member as m WHERE m.extension_id = :extensionId ORDER BY m.memberorder DESC LIMIT 1", nativeQuery = true)
@@ -3,23 +3,30 @@ package fi.vm.yti.codelist.intake.jpa;
 import java.util.Set;
 import java.util.UUID;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import fi.vm.yti.codelist.intake.model.Organization;
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
 
 @Repository
 @Transactional
 public interface OrganizationRepository extends CrudRepository<Organization, String> {
 
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     Organization findById(final UUID id);
 
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     Set<Organization> findByRemovedIsFalse();
 
     Set<Organization> findByRemovedIsFalseAndCodeSchemesIsNotNullAndParentIsNull();
 
     Set<Organization> findByParentId(UUID parentId);
 
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     Set<Organization> findAll();
 }
@@ -3,22 +3,30 @@ package fi.vm.yti.codelist.intake.jpa;
 import java.util.Set;
 import java.util.UUID;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import fi.vm.yti.codelist.intake.model.PropertyType;
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
 
 @Repository
 @Transactional
 public interface PropertyTypeRepository extends CrudRepository<PropertyType, String> {
 
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     PropertyType findById(final UUID id);
 
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     PropertyType findByLocalName(final String localName);
 
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     PropertyType findByContextAndLocalName(final String context,
                                            final String localName);
 
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     Set<PropertyType> findAll();
 }
@@ -4,7 +4,6 @@ import java.util.List;
 
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,7 +13,6 @@ import fi.vm.yti.codelist.intake.model.UpdateStatus;
 @Transactional
 public interface UpdateStatusRepository extends CrudRepository<UpdateStatus, String> {
 
-    @Query(value = "SELECT u FROM UpdateStatus as u WHERE u.dataType = :dataType AND u.identifier = :identifier AND u.status = 'successful' ORDER BY u.modified DESC")
-    List<UpdateStatus> getLatestSuccessfulUpdatesForType(@Param("dataType") final String dataType,
-                                                         @Param("identifier") final String idenfifier);
+    @Query(value = "SELECT u FROM UpdateStatus as u WHERE u.status = 'successful' ORDER BY u.modified ASC")
+    List<UpdateStatus> getSuccessfulUpdates();
 }
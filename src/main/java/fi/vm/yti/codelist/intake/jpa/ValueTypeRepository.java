@@ -3,19 +3,26 @@ package fi.vm.yti.codelist.intake.jpa;
 import java.util.Set;
 import java.util.UUID;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import fi.vm.yti.codelist.intake.model.ValueType;
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
 
 @Repository
 @Transactional
 public interface ValueTypeRepository extends CrudRepository<ValueType, String> {
 
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     ValueType findById(final UUID id);
 
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     ValueType findByLocalName(final String localName);
 
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     Set<ValueType> findAll();
 }
@@ -0,0 +1,26 @@
+package fi.vm.yti.codelist.intake.language;
+
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of a language code, shared between requests instead of the persistent code entity.
+ */
+public final class LanguageCode {
+
+    private final UUID id;
+    private final String codeValue;
+
+    public LanguageCode(final UUID id,
+                        final String codeValue) {
+        this.id = id;
+        this.codeValue = codeValue;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getCodeValue() {
+        return codeValue;
+    }
+}
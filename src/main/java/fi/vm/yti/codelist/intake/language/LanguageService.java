@@ -1,14 +1,24 @@
 package fi.vm.yti.codelist.intake.language;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import fi.vm.yti.codelist.common.dto.ErrorModel;
 import fi.vm.yti.codelist.intake.dao.CodeDao;
@@ -21,13 +31,28 @@ import static fi.vm.yti.codelist.intake.configuration.ApplicationConstants.YTI_L
 import static fi.vm.yti.codelist.intake.exception.ErrorConstants.ERR_MSG_USER_BAD_LANGUAGECODE;
 import static fi.vm.yti.codelist.intake.parser.impl.AbstractBaseParser.YTI_REGISTRY;
 
+/**
+ * Registry of the language codes, keyed by the lower case code value.
+ * <p>
+ * The registry is immutable and replaced as a whole by {@link #loadLanguageCodes()}. It holds {@link LanguageCode} value
+ * objects only, the code entities are attached to the calling persistence context by id. The languages already attached
+ * to each code scheme are cached per code scheme, so that validating the labels of a bulk import does not walk the lazy
+ * language code collection of the code scheme for every label. The per code scheme cache only reflects committed state,
+ * it is populated after commit and evicted both immediately and after commit whenever the languages of a code scheme
+ * change.
+ */
 @Component
 public class LanguageService {
 
     private final CodeSchemeDao codeSchemeDao;
     private final CodeDao codeDao;
     private final YtiDataAccess ytiDataAccess;
-    private final Map<String, Code> languageCodes;
+    private final Map<UUID, Set<String>> codeSchemeLanguages;
+    private final AtomicLong codeSchemeLanguagesGeneration;
+    private volatile Map<String, LanguageCode> languageCodes;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     public LanguageService(@Lazy final CodeSchemeDao codeSchemeDao,
                            @Lazy final CodeDao codeDao,
@@ -36,7 +61,9 @@ public class LanguageService {
         this.codeSchemeDao = codeSchemeDao;
         this.codeDao = codeDao;
         this.ytiDataAccess = ytiDataAccess;
-        languageCodes = new HashMap<>();
+        codeSchemeLanguages = new ConcurrentHashMap<>();
+        codeSchemeLanguagesGeneration = new AtomicLong();
+        languageCodes = Collections.emptyMap();
     }
 
     @Transactional
@@ -47,28 +74,25 @@ public class LanguageService {
             if (codes == null || codes.isEmpty()) {
                 throw new YtiCodeListException(new ErrorModel(HttpStatus.NOT_ACCEPTABLE.value(), "No codes available for languagecodes, critical failure!"));
             }
-            codes.forEach(code -> languageCodes.put(code.getCodeValue().toLowerCase(), code));
+            final Map<String, LanguageCode> loadedLanguageCodes = new HashMap<>();
+            codes.forEach(code -> loadedLanguageCodes.put(normalize(code.getCodeValue()), new LanguageCode(code.getId(), code.getCodeValue())));
+            languageCodes = Collections.unmodifiableMap(loadedLanguageCodes);
+            codeSchemeLanguagesGeneration.incrementAndGet();
+            codeSchemeLanguages.clear();
         } else {
             throw new YtiCodeListException(new ErrorModel(HttpStatus.NOT_ACCEPTABLE.value(), "No language codescheme found, critical failure!"));
         }
     }
 
     public Code getLanguageCode(final String languageCodeValue) {
-        final Code languageCode = languageCodes.get(languageCodeValue.toLowerCase());
-        if (languageCode == null) {
-            throw new YtiCodeListException(new ErrorModel(HttpStatus.NOT_ACCEPTABLE.value(), ERR_MSG_USER_BAD_LANGUAGECODE, languageCodeValue));
-        }
-        return languageCode;
+        return entityManager.getReference(Code.class, findLanguageCode(languageCodeValue).getId());
     }
 
     public String getLanguageCodeCodeValue(final String languageCodeValue) {
         if (!ytiDataAccess.isInitializing()) {
-            final Code languageCode = languageCodes.get(languageCodeValue.toLowerCase());
-            if (languageCode == null) {
-                throw new YtiCodeListException(new ErrorModel(HttpStatus.NOT_ACCEPTABLE.value(), ERR_MSG_USER_BAD_LANGUAGECODE, languageCodeValue));
-            }
-            return languageCode.getCodeValue();
-        } return languageCodeValue;
+            return resolveLanguageCodeValue(languageCodeValue);
+        }
+        return languageCodeValue;
     }
 
     public String validateInputLanguageForCodeScheme(final CodeScheme codeScheme,
@@ -83,29 +107,168 @@ public class LanguageService {
                                                      final String languageCodeCodeValue,
                                                      final boolean saveCodeScheme) {
         if (!ytiDataAccess.isInitializing()) {
-            final Code inputLanguageCode = languageCodes.get(languageCodeCodeValue.toLowerCase());
-            if (inputLanguageCode == null) {
-                throw new YtiCodeListException(new ErrorModel(HttpStatus.NOT_ACCEPTABLE.value(), ERR_MSG_USER_BAD_LANGUAGECODE, languageCodeCodeValue));
+            final LanguageCode languageCode = findLanguageCode(languageCodeCodeValue);
+            final String languageCodeValue = languageCode.getCodeValue();
+            final String language = normalize(languageCodeValue);
+            final UUID codeSchemeId = codeScheme.getId();
+            if (isCachedCodeSchemeLanguage(codeSchemeId, language)) {
+                return languageCodeValue;
             }
             boolean found = false;
             Set<Code> codeSchemeLanguageCodes = codeScheme.getLanguageCodes();
             if (codeSchemeLanguageCodes == null) {
                 codeSchemeLanguageCodes = new HashSet<>();
             }
-            for (final Code languageCode : codeSchemeLanguageCodes) {
-                if (languageCode.getCodeValue().equalsIgnoreCase(languageCodeCodeValue)) {
+            for (final Code codeSchemeLanguageCode : codeSchemeLanguageCodes) {
+                if (languageCode.getId().equals(codeSchemeLanguageCode.getId())) {
                     found = true;
                 }
             }
             if (!found) {
-                codeSchemeLanguageCodes.add(inputLanguageCode);
+                codeSchemeLanguageCodes.add(entityManager.getReference(Code.class, languageCode.getId()));
                 codeScheme.setLanguageCodes(codeSchemeLanguageCodes);
                 if (saveCodeScheme) {
                     codeSchemeDao.save(codeScheme);
+                    cacheCodeSchemeLanguage(codeSchemeId, language);
                 }
+            } else {
+                cacheCodeSchemeLanguage(codeSchemeId, language);
             }
-            return inputLanguageCode.getCodeValue();
+            return languageCodeValue;
         }
         return languageCodeCodeValue;
     }
+
+    /**
+     * Evicts the cached languages of a code scheme. Must be called on every path that changes the language codes of a
+     * code scheme. Within a transaction the committed entry is ignored until commit and evicted again after commit, so
+     * that a concurrent transaction can not cache the languages it read before the change was committed.
+     *
+     * @param codeSchemeId Id of the code scheme, ignored if null.
+     */
+    public void evictCodeSchemeLanguages(final UUID codeSchemeId) {
+        if (codeSchemeId != null) {
+            final TransactionLanguages transactionLanguages = getTransactionLanguages();
+            if (transactionLanguages != null) {
+                transactionLanguages.evict(codeSchemeId);
+                codeSchemeLanguages.remove(codeSchemeId);
+            } else {
+                removeCodeSchemeLanguages(codeSchemeId);
+            }
+        }
+    }
+
+    private void removeCodeSchemeLanguages(final UUID codeSchemeId) {
+        codeSchemeLanguagesGeneration.incrementAndGet();
+        codeSchemeLanguages.remove(codeSchemeId);
+    }
+
+    private boolean isCachedCodeSchemeLanguage(final UUID codeSchemeId,
+                                               final String language) {
+        if (codeSchemeId == null) {
+            return false;
+        }
+        final TransactionLanguages transactionLanguages = getTransactionLanguages();
+        if (transactionLanguages != null) {
+            if (transactionLanguages.contains(codeSchemeId, language)) {
+                return true;
+            }
+            if (transactionLanguages.isEvicted(codeSchemeId)) {
+                return false;
+            }
+        }
+        return codeSchemeLanguages.getOrDefault(codeSchemeId, Collections.emptySet()).contains(language);
+    }
+
+    private void cacheCodeSchemeLanguage(final UUID codeSchemeId,
+                                         final String language) {
+        if (codeSchemeId == null) {
+            return;
+        }
+        final TransactionLanguages transactionLanguages = getTransactionLanguages();
+        if (transactionLanguages != null) {
+            transactionLanguages.add(codeSchemeId, language);
+        } else {
+            codeSchemeLanguages.computeIfAbsent(codeSchemeId, id -> ConcurrentHashMap.newKeySet()).add(language);
+        }
+    }
+
+    private TransactionLanguages getTransactionLanguages() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        TransactionLanguages transactionLanguages = (TransactionLanguages) TransactionSynchronizationManager.getResource(this);
+        if (transactionLanguages == null) {
+            transactionLanguages = new TransactionLanguages(codeSchemeLanguagesGeneration.get());
+            TransactionSynchronizationManager.bindResource(this, transactionLanguages);
+            TransactionSynchronizationManager.registerSynchronization(transactionLanguages);
+        }
+        return transactionLanguages;
+    }
+
+    private LanguageCode findLanguageCode(final String languageCodeValue) {
+        final LanguageCode languageCode = languageCodes.get(normalize(languageCodeValue));
+        if (languageCode == null) {
+            throw new YtiCodeListException(new ErrorModel(HttpStatus.NOT_ACCEPTABLE.value(), ERR_MSG_USER_BAD_LANGUAGECODE, languageCodeValue));
+        }
+        return languageCode;
+    }
+
+    private String resolveLanguageCodeValue(final String languageCodeValue) {
+        return findLanguageCode(languageCodeValue).getCodeValue();
+    }
+
+    private static String normalize(final String languageCodeValue) {
+        return languageCodeValue.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Languages validated and code schemes evicted within one transaction, applied to the shared cache after commit.
+     * The validated languages are dropped if another transaction evicted anything since this one started caching.
+     */
+    private final class TransactionLanguages implements TransactionSynchronization {
+
+        private final long generation;
+        private final Map<UUID, Set<String>> languages;
+        private final Set<UUID> evictedCodeSchemeIds;
+
+        private TransactionLanguages(final long generation) {
+            this.generation = generation;
+            languages = new HashMap<>();
+            evictedCodeSchemeIds = new HashSet<>();
+        }
+
+        private boolean contains(final UUID codeSchemeId,
+                                 final String language) {
+            return languages.getOrDefault(codeSchemeId, Collections.emptySet()).contains(language);
+        }
+
+        private boolean isEvicted(final UUID codeSchemeId) {
+            return evictedCodeSchemeIds.contains(codeSchemeId);
+        }
+
+        private void add(final UUID codeSchemeId,
+                         final String language) {
+            languages.computeIfAbsent(codeSchemeId, id -> new HashSet<>()).add(language);
+        }
+
+        private void evict(final UUID codeSchemeId) {
+            evictedCodeSchemeIds.add(codeSchemeId);
+            languages.remove(codeSchemeId);
+        }
+
+        @Override
+        public void afterCommit() {
+            final boolean unchanged = codeSchemeLanguagesGeneration.get() == generation;
+            evictedCodeSchemeIds.forEach(LanguageService.this::removeCodeSchemeLanguages);
+            if (unchanged) {
+                languages.forEach((codeSchemeId, codeSchemeLanguageValues) -> codeSchemeLanguages.computeIfAbsent(codeSchemeId, id -> ConcurrentHashMap.newKeySet()).addAll(codeSchemeLanguageValues));
+            }
+        }
+
+        @Override
+        public void afterCompletion(final int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(LanguageService.this);
+        }
+    }
 }
@@ -5,6 +5,7 @@ import java.util.Set;
 import fi.vm.yti.codelist.intake.model.Code;
 import fi.vm.yti.codelist.intake.model.CodeRegistry;
 import fi.vm.yti.codelist.intake.model.CodeScheme;
+import fi.vm.yti.codelist.intake.model.Commit;
 import fi.vm.yti.codelist.intake.model.Extension;
 import fi.vm.yti.codelist.intake.model.ExternalReference;
 import fi.vm.yti.codelist.intake.model.Member;
@@ -32,4 +33,6 @@ public interface EntityChangeLogger {
     void logMemberChanges(final Set<Member> members);
 
     void logValueTypeChange(final ValueType member);
+
+    Commit getOrCreateCommit();
 }
@@ -137,6 +137,11 @@ public class EntityChangeLoggerImpl implements EntityChangeLogger {
         editedEntityRepository.save(editedEntity);
     }
 
+    @Transactional
+    public Commit getOrCreateCommit() {
+        return createCommit();
+    }
+
     private Commit createCommit() {
         final String traceId = getTraceId();
         Commit commit = null;
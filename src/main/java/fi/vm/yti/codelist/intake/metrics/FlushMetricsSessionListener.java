@@ -0,0 +1,59 @@
+package fi.vm.yti.codelist.intake.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.BaseSessionEventListener;
+
+import io.micrometer.core.instrument.Metrics;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.METRIC_DAO_FLUSH_DURATION;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.METRIC_DAO_FLUSH_ENTITIES;
+
+/**
+ * Hibernate session listener that records flush times and the number of entities flushed, and feeds flushes and JDBC
+ * statement counts to the {@link ImportProfile} of a profiled request.
+ * <p>
+ * Hibernate instantiates the listener for every session, so it reports to the global registry, which Spring Boot
+ * populates with the application registry.
+ */
+public class FlushMetricsSessionListener extends BaseSessionEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private long flushStart;
+
+    @Override
+    public void flushStart() {
+        flushStart = System.nanoTime();
+        final ImportProfile profile = ImportProfile.current();
+        if (profile != null) {
+            profile.enter(ImportProfile.PHASE_FLUSH);
+        }
+    }
+
+    @Override
+    public void flushEnd(final int numberOfEntities,
+                         final int numberOfCollections) {
+        Metrics.timer(METRIC_DAO_FLUSH_DURATION).record(System.nanoTime() - flushStart, TimeUnit.NANOSECONDS);
+        Metrics.summary(METRIC_DAO_FLUSH_ENTITIES).record(numberOfEntities);
+        final ImportProfile profile = ImportProfile.current();
+        if (profile != null) {
+            profile.exit(ImportProfile.PHASE_FLUSH);
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        final ImportProfile profile = ImportProfile.current();
+        if (profile != null) {
+            profile.countStatement();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        final ImportProfile profile = ImportProfile.current();
+        if (profile != null) {
+            profile.countBatch();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package fi.vm.yti.codelist.intake.metrics;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phase timings for a single profiled intake request, bound to the request thread.
+ * <p>
+ * Phases nest, a phase entered while another one is running is subtracted from the outer phase, so that each phase
+ * reports only its own time and the phases together never exceed the request total.
+ */
+public final class ImportProfile {
+
+    public static final String PHASE_PARSING = "parsing";
+    public static final String PHASE_ENTITY_MAPPING = "entityMapping";
+    public static final String PHASE_PERSISTENCE = "persistence";
+    public static final String PHASE_FLUSH = "flush";
+    public static final String PHASE_CHANGE_LOGGING = "changeLogging";
+    public static final String PHASE_PAYLOAD_LOGGING = "payloadLogging";
+    public static final String PHASE_INDEXING = "indexing";
+
+    private static final ThreadLocal<ImportProfile> CURRENT = new ThreadLocal<>();
+
+    private final long start = System.nanoTime();
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    private final Map<String, Integer> phaseCalls = new LinkedHashMap<>();
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private int statements;
+    private int batches;
+
+    private ImportProfile() {
+    }
+
+    public static ImportProfile start() {
+        final ImportProfile profile = new ImportProfile();
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    public static ImportProfile current() {
+        return CURRENT.get();
+    }
+
+    public static ImportProfile finish() {
+        final ImportProfile profile = CURRENT.get();
+        CURRENT.remove();
+        return profile;
+    }
+
+    public void enter(final String phase) {
+        frames.push(new Frame(phase, System.nanoTime()));
+    }
+
+    /**
+     * Ends the innermost running frame of the given phase. Frames entered after it that were never exited, such as a
+     * flush aborted by an exception, are discarded and their time stays with the phase being exited.
+     */
+    public void exit(final String phase) {
+        if (frames.stream().noneMatch(frame -> frame.phase.equals(phase))) {
+            return;
+        }
+        Frame frame = frames.pop();
+        while (!frame.phase.equals(phase)) {
+            frame = frames.pop();
+        }
+        final long elapsed = System.nanoTime() - frame.start;
+        phaseNanos.merge(frame.phase, elapsed - frame.childNanos, Long::sum);
+        phaseCalls.merge(frame.phase, 1, Integer::sum);
+        final Frame parent = frames.peek();
+        if (parent != null) {
+            parent.childNanos += elapsed;
+        }
+    }
+
+    public void countStatement() {
+        statements++;
+    }
+
+    public void countBatch() {
+        batches++;
+    }
+
+    public Map<String, Object> toReport() {
+        final long totalNanos = System.nanoTime() - start;
+        long accountedNanos = 0;
+        final Map<String, Object> phases = new LinkedHashMap<>();
+        for (final Map.Entry<String, Long> entry : phaseNanos.entrySet()) {
+            final Map<String, Object> phase = new LinkedHashMap<>();
+            phase.put("ms", TimeUnit.NANOSECONDS.toMillis(entry.getValue()));
+            phase.put("calls", phaseCalls.get(entry.getKey()));
+            phases.put(entry.getKey(), phase);
+            accountedNanos += entry.getValue();
+        }
+        final Map<String, Object> report = new LinkedHashMap<>();
+        report.put("totalMs", TimeUnit.NANOSECONDS.toMillis(totalNanos));
+        report.put("phases", phases);
+        report.put("otherMs", TimeUnit.NANOSECONDS.toMillis(totalNanos - accountedNanos));
+        report.put("statements", statements);
+        report.put("batches", batches);
+        return report;
+    }
+
+    private static final class Frame {
+
+        private final String phase;
+        private final long start;
+        private long childNanos;
+
+        private Frame(final String phase,
+                      final long start) {
+            this.phase = phase;
+            this.start = start;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package fi.vm.yti.codelist.intake.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import static fi.vm.yti.codelist.intake.metrics.ImportProfile.*;
+
+/**
+ * Attributes time to the phases of an import when the request is being profiled. Does nothing otherwise.
+ * <p>
+ * Persistence is measured at the repositories rather than at the DAO save methods, the DAOs call their own save methods
+ * and such calls never pass through an aspect.
+ */
+@Aspect
+@Component
+public class ImportProfilingAspect {
+
+    @Around("execution(public * fi.vm.yti.codelist.intake.parser.impl.*ParserImpl.parse*(..))")
+    public Object profileParsing(final ProceedingJoinPoint joinPoint) throws Throwable {
+        return profile(joinPoint, PHASE_PARSING);
+    }
+
+    @Around("execution(public * fi.vm.yti.codelist.intake.dao.impl.*DaoImpl.update*(..))")
+    public Object profileEntityMapping(final ProceedingJoinPoint joinPoint) throws Throwable {
+        return profile(joinPoint, PHASE_ENTITY_MAPPING);
+    }
+
+    @Around("execution(* org.springframework.data.repository.CrudRepository+.save*(..)) || execution(* org.springframework.data.repository.CrudRepository+.delete*(..))")
+    public Object profilePersistence(final ProceedingJoinPoint joinPoint) throws Throwable {
+        return profile(joinPoint, PHASE_PERSISTENCE);
+    }
+
+    @Around("execution(public * fi.vm.yti.codelist.intake.log.EntityChangeLoggerImpl.*(..))")
+    public Object profileChangeLogging(final ProceedingJoinPoint joinPoint) throws Throwable {
+        return profile(joinPoint, PHASE_CHANGE_LOGGING);
+    }
+
+    @Around("execution(public * fi.vm.yti.codelist.intake.log.EntityPayloadLoggerImpl.*(..))")
+    public Object profilePayloadLogging(final ProceedingJoinPoint joinPoint) throws Throwable {
+        return profile(joinPoint, PHASE_PAYLOAD_LOGGING);
+    }
+
+    @Around("execution(public * fi.vm.yti.codelist.intake.indexing.impl.IndexingImpl.*(..))")
+    public Object profileIndexing(final ProceedingJoinPoint joinPoint) throws Throwable {
+        return profile(joinPoint, PHASE_INDEXING);
+    }
+
+    private static Object profile(final ProceedingJoinPoint joinPoint,
+                                  final String phase) throws Throwable {
+        final ImportProfile profile = ImportProfile.current();
+        if (profile == null) {
+            return joinPoint.proceed();
+        }
+        profile.enter(phase);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            profile.exit(phase);
+        }
+    }
+}
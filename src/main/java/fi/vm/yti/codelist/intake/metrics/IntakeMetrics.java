@@ -0,0 +1,160 @@
+package fi.vm.yti.codelist.intake.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Meters for the intake, parsing, persistence and indexing paths.
+ * <p>
+ * Meter names and tag keys are part of the monitoring contract, dashboards and alerts are built on them, so they must
+ * not be renamed. Tag values are always taken from a small fixed set so that the number of time series stays bounded.
+ */
+@Component
+public class IntakeMetrics {
+
+    public static final String METRIC_PARSER_DURATION = "intake.parser.duration";
+    public static final String METRIC_PARSER_ROWS = "intake.parser.rows";
+    public static final String METRIC_DAO_BATCH_SIZE = "intake.dao.batch.size";
+    public static final String METRIC_DAO_SAVE_DURATION = "intake.dao.save.duration";
+    public static final String METRIC_DAO_FLUSH_DURATION = "intake.dao.flush.duration";
+    public static final String METRIC_DAO_FLUSH_ENTITIES = "intake.dao.flush.entities";
+    public static final String METRIC_INDEXING_BULK_DURATION = "intake.indexing.bulk.duration";
+    public static final String METRIC_INDEXING_BULK_BYTES = "intake.indexing.bulk.bytes";
+    public static final String METRIC_INDEXING_BULK_FAILURES = "intake.indexing.bulk.failures";
+    public static final String METRIC_INDEXING_DEADLETTERS = "intake.indexing.deadletters";
+    public static final String METRIC_INDEXING_DRIFT = "intake.indexing.drift";
+    public static final String METRIC_INDEXING_REINDEX_DURATION = "intake.indexing.reindex.duration";
+    public static final String METRIC_INTEGRATION_CALLS = "intake.integration.calls";
+    public static final String METRIC_INTEGRATION_ACTIVE = "intake.integration.active";
+    public static final String METRIC_INTEGRATION_REJECTED = "intake.integration.rejected";
+    public static final String METRIC_IMPORTS_ACTIVE = "intake.imports.active";
+
+    public static final String TAG_FORMAT = "format";
+    public static final String TAG_ENTITY = "entity";
+    public static final String TAG_INDEX = "index";
+    public static final String TAG_OPERATION = "operation";
+    public static final String TAG_ALIAS = "alias";
+    public static final String TAG_INTEGRATION = "integration";
+    public static final String TAG_OUTCOME = "outcome";
+    public static final String TAG_DRIFT = "drift";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_FAILURE = "failure";
+
+    public static final String ENTITY_CODEREGISTRY = "coderegistry";
+    public static final String ENTITY_CODESCHEME = "codescheme";
+    public static final String ENTITY_CODE = "code";
+    public static final String ENTITY_EXTENSION = "extension";
+    public static final String ENTITY_MEMBER = "member";
+    public static final String ENTITY_MEMBERVALUE = "membervalue";
+    public static final String ENTITY_EXTERNALREFERENCE = "externalreference";
+
+    public static final String OPERATION_INDEX = "index";
+    public static final String OPERATION_DELETE = "delete";
+
+    public static final String DRIFT_MISSING = "missing";
+    public static final String DRIFT_STALE = "stale";
+    public static final String DRIFT_ORPHANED = "orphaned";
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger activeImports;
+
+    @Inject
+    public IntakeMetrics(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.activeImports = meterRegistry.gauge(METRIC_IMPORTS_ACTIVE, new AtomicInteger());
+    }
+
+    public void importStarted() {
+        activeImports.incrementAndGet();
+    }
+
+    public void importFinished() {
+        activeImports.decrementAndGet();
+    }
+
+    public void recordParse(final String format,
+                            final String entity,
+                            final String outcome,
+                            final int rows,
+                            final long durationNanos) {
+        Timer.builder(METRIC_PARSER_DURATION)
+            .description("Time spent parsing source data")
+            .tags(TAG_FORMAT, format, TAG_ENTITY, entity, TAG_OUTCOME, outcome)
+            .register(meterRegistry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.counter(METRIC_PARSER_ROWS, TAG_FORMAT, format, TAG_ENTITY, entity).increment(rows);
+    }
+
+    public void recordSave(final String entity,
+                           final int batchSize,
+                           final long durationNanos) {
+        DistributionSummary.builder(METRIC_DAO_BATCH_SIZE)
+            .description("Number of entities saved in one batch")
+            .tags(TAG_ENTITY, entity)
+            .register(meterRegistry)
+            .record(batchSize);
+        Timer.builder(METRIC_DAO_SAVE_DURATION)
+            .description("Time spent saving a batch of entities")
+            .tags(TAG_ENTITY, entity)
+            .register(meterRegistry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordBulk(final String index,
+                           final String operation,
+                           final String outcome,
+                           final long bytes,
+                           final int failures,
+                           final long durationNanos) {
+        Timer.builder(METRIC_INDEXING_BULK_DURATION)
+            .description("ElasticSearch bulk request latency")
+            .tags(TAG_INDEX, index, TAG_OPERATION, operation, TAG_OUTCOME, outcome)
+            .register(meterRegistry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder(METRIC_INDEXING_BULK_BYTES)
+            .description("ElasticSearch bulk request payload size")
+            .baseUnit("bytes")
+            .tags(TAG_INDEX, index, TAG_OPERATION, operation)
+            .register(meterRegistry)
+            .record(bytes);
+        if (failures > 0) {
+            meterRegistry.counter(METRIC_INDEXING_BULK_FAILURES, TAG_INDEX, index, TAG_OPERATION, operation).increment(failures);
+        }
+    }
+
+    public void recordDeadLetter(final String index,
+                                 final String operation) {
+        meterRegistry.counter(METRIC_INDEXING_DEADLETTERS, TAG_INDEX, index, TAG_OPERATION, operation).increment();
+    }
+
+    public void recordIndexDrift(final String alias,
+                                 final String drift,
+                                 final int count) {
+        if (count > 0) {
+            meterRegistry.counter(METRIC_INDEXING_DRIFT, TAG_ALIAS, alias, TAG_DRIFT, drift).increment(count);
+        }
+    }
+
+    public void recordReindex(final String alias,
+                              final String outcome,
+                              final long durationNanos) {
+        Timer.builder(METRIC_INDEXING_REINDEX_DURATION)
+            .description("Duration of a full reindex of one alias")
+            .tags(TAG_ALIAS, alias, TAG_OUTCOME, outcome)
+            .register(meterRegistry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public static String outcome(final boolean success) {
+        return success ? OUTCOME_SUCCESS : OUTCOME_FAILURE;
+    }
+}
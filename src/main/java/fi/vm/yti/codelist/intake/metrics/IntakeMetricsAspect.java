@@ -0,0 +1,100 @@
+package fi.vm.yti.codelist.intake.metrics;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.OUTCOME_FAILURE;
+import static fi.vm.yti.codelist.intake.metrics.IntakeMetrics.OUTCOME_SUCCESS;
+
+/**
+ * Records parser throughput and the number of imports in progress without touching the individual parsers.
+ * <p>
+ * The format and entity tags are derived from the method and class names, which follow the
+ * parse[Entity]From[Csv|Excel|Json] convention. DAO batch saves are recorded in the DAOs themselves, since the DAOs
+ * call their own save methods and such calls never pass through an aspect.
+ */
+@Aspect
+@Component
+public class IntakeMetricsAspect {
+
+    private static final String PARSER_CLASS_SUFFIX = "ParserImpl";
+    private static final String FORMAT_CSV = "csv";
+    private static final String FORMAT_EXCEL = "excel";
+    private static final String FORMAT_JSON = "json";
+    private static final String FORMAT_OTHER = "other";
+
+    private final IntakeMetrics intakeMetrics;
+    private final ThreadLocal<Integer> importDepth = ThreadLocal.withInitial(() -> 0);
+
+    @Inject
+    public IntakeMetricsAspect(final IntakeMetrics intakeMetrics) {
+        this.intakeMetrics = intakeMetrics;
+    }
+
+    @Around("execution(public * fi.vm.yti.codelist.intake.parser.impl.*ParserImpl.parse*(..))")
+    public Object measureParser(final ProceedingJoinPoint joinPoint) throws Throwable {
+        final String format = resolveFormat(joinPoint.getSignature().getName());
+        final String entity = resolveEntity(joinPoint.getSignature().getDeclaringType().getSimpleName(), PARSER_CLASS_SUFFIX);
+        final long start = System.nanoTime();
+        try {
+            final Object result = joinPoint.proceed();
+            intakeMetrics.recordParse(format, entity, OUTCOME_SUCCESS, countRows(result), System.nanoTime() - start);
+            return result;
+        } catch (final Throwable t) {
+            intakeMetrics.recordParse(format, entity, OUTCOME_FAILURE, 0, System.nanoTime() - start);
+            throw t;
+        }
+    }
+
+    @Around("execution(public * fi.vm.yti.codelist.intake.service.impl.*ServiceImpl.parseAndPersist*(..)) && !within(fi.vm.yti.codelist.intake.service.impl.OrganizationServiceImpl)")
+    public Object countActiveImports(final ProceedingJoinPoint joinPoint) throws Throwable {
+        final int depth = importDepth.get();
+        if (depth == 0) {
+            intakeMetrics.importStarted();
+        }
+        importDepth.set(depth + 1);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            importDepth.set(depth);
+            if (depth == 0) {
+                importDepth.remove();
+                intakeMetrics.importFinished();
+            }
+        }
+    }
+
+    private static String resolveFormat(final String methodName) {
+        if (methodName.contains("Csv")) {
+            return FORMAT_CSV;
+        } else if (methodName.contains("Excel")) {
+            return FORMAT_EXCEL;
+        } else if (methodName.contains("Json")) {
+            return FORMAT_JSON;
+        }
+        return FORMAT_OTHER;
+    }
+
+    private static String resolveEntity(final String className,
+                                        final String suffix) {
+        final String entity = className.endsWith(suffix) ? className.substring(0, className.length() - suffix.length()) : className;
+        return entity.toLowerCase(Locale.ROOT);
+    }
+
+    private static int countRows(final Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        } else if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        return result != null ? 1 : 0;
+    }
+}
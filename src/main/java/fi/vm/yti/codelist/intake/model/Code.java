@@ -23,7 +23,11 @@ import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 
+import org.hibernate.annotations.BatchSize;
+import static fi.vm.yti.codelist.intake.configuration.ApplicationConstants.BATCH_FETCH_SIZE;
+
 @Entity
+@BatchSize(size = BATCH_FETCH_SIZE)
 @Table(name = "code")
 public class Code extends AbstractHistoricalCode implements Serializable {
 
@@ -93,6 +97,7 @@ public class Code extends AbstractHistoricalCode implements Serializable {
     @MapKeyColumn(name = "language")
     @Column(name = "preflabel")
     @OrderColumn
+    @BatchSize(size = BATCH_FETCH_SIZE)
     public Map<String, String> getPrefLabel() {
         return prefLabel;
     }
@@ -126,6 +131,7 @@ public class Code extends AbstractHistoricalCode implements Serializable {
     @MapKeyColumn(name = "language")
     @Column(name = "definition")
     @OrderColumn
+    @BatchSize(size = BATCH_FETCH_SIZE)
     public Map<String, String> getDefinition() {
         if (definition == null) {
             definition = new HashMap<>();
@@ -163,6 +169,7 @@ public class Code extends AbstractHistoricalCode implements Serializable {
     @MapKeyColumn(name = "language")
     @Column(name = "description")
     @OrderColumn
+    @BatchSize(size = BATCH_FETCH_SIZE)
     public Map<String, String> getDescription() {
         if (description == null) {
             description = new HashMap<>();
@@ -200,6 +207,7 @@ public class Code extends AbstractHistoricalCode implements Serializable {
             @JoinColumn(name = "code_id", referencedColumnName = "id", nullable = false, updatable = false) },
         inverseJoinColumns = {
             @JoinColumn(name = "externalreference_id", referencedColumnName = "id", nullable = false, updatable = false) })
+    @BatchSize(size = BATCH_FETCH_SIZE)
     public Set<ExternalReference> getExternalReferences() {
         return this.externalReferences;
     }
@@ -227,6 +235,7 @@ public class Code extends AbstractHistoricalCode implements Serializable {
     }
 
     @OneToMany(fetch = FetchType.LAZY, mappedBy = "code", cascade = CascadeType.ALL)
+    @BatchSize(size = BATCH_FETCH_SIZE)
     public Set<Member> getMembers() {
         return members;
     }
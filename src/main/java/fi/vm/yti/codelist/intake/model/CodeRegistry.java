@@ -6,6 +6,7 @@ import java.util.Map;
 import java.util.Set;
 
 import javax.persistence.CascadeType;
+import javax.persistence.Cacheable;
 import javax.persistence.CollectionTable;
 import javax.persistence.Column;
 import javax.persistence.ElementCollection;
@@ -19,7 +20,12 @@ import javax.persistence.OneToMany;
 import javax.persistence.OrderColumn;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "coderegistry")
 public class CodeRegistry extends AbstractCommonCode implements Serializable {
 
@@ -30,6 +36,7 @@ public class CodeRegistry extends AbstractCommonCode implements Serializable {
     private Set<CodeScheme> codeSchemes;
     private Set<Organization> organizations;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ElementCollection(targetClass = String.class, fetch = FetchType.EAGER)
     @CollectionTable(name = "coderegistry_preflabel", joinColumns = @JoinColumn(name = "coderegistry_id", referencedColumnName = "id"))
     @MapKeyColumn(name = "language")
@@ -66,6 +73,7 @@ public class CodeRegistry extends AbstractCommonCode implements Serializable {
         setPrefLabel(prefLabel);
     }
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ElementCollection(targetClass = String.class, fetch = FetchType.EAGER)
     @CollectionTable(name = "coderegistry_description", joinColumns = @JoinColumn(name = "coderegistry_id", referencedColumnName = "id"))
     @MapKeyColumn(name = "language")
@@ -24,7 +24,11 @@ import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 
+import org.hibernate.annotations.BatchSize;
+import static fi.vm.yti.codelist.intake.configuration.ApplicationConstants.BATCH_FETCH_SIZE;
+
 @Entity
+@BatchSize(size = BATCH_FETCH_SIZE)
 @Table(name = "codescheme")
 public class CodeScheme extends AbstractHistoricalCode implements Serializable {
 
@@ -435,6 +439,7 @@ public class CodeScheme extends AbstractHistoricalCode implements Serializable {
             @JoinColumn(name = "codescheme_id", referencedColumnName = "id", nullable = false, updatable = false) },
         inverseJoinColumns = {
             @JoinColumn(name = "organization_id", referencedColumnName = "id", nullable = false, updatable = false) })
+    @BatchSize(size = BATCH_FETCH_SIZE)
     public Set<Organization> getOrganizations() {
         return organizations;
     }
@@ -23,7 +23,11 @@ import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 
+import org.hibernate.annotations.BatchSize;
+import static fi.vm.yti.codelist.intake.configuration.ApplicationConstants.BATCH_FETCH_SIZE;
+
 @Entity
+@BatchSize(size = BATCH_FETCH_SIZE)
 @Table(name = "extension")
 public class Extension extends AbstractHistoricalIdentifyableCodeWithStatus implements Serializable {
 
@@ -69,6 +73,7 @@ public class Extension extends AbstractHistoricalIdentifyableCodeWithStatus impl
     @MapKeyColumn(name = "language")
     @Column(name = "preflabel")
     @OrderColumn
+    @BatchSize(size = BATCH_FETCH_SIZE)
     public Map<String, String> getPrefLabel() {
         return prefLabel;
     }
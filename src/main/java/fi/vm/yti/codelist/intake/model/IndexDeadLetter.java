@@ -0,0 +1,127 @@
+package fi.vm.yti.codelist.intake.model;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.UUID;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * A document that ElasticSearch rejected permanently or after all retries, kept for an operator to inspect.
+ */
+@Entity
+@Table(name = "index_deadletter")
+public class IndexDeadLetter implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private UUID id;
+    private String indexName;
+    private String indexAlias;
+    private String documentId;
+    private String operation;
+    private int httpStatus;
+    private String reason;
+    private int attempts;
+    private Date created;
+
+    @Id
+    @Column(name = "id", unique = true)
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(final UUID id) {
+        this.id = id;
+    }
+
+    @Column(name = "indexname")
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public void setIndexName(final String indexName) {
+        this.indexName = indexName;
+    }
+
+    @Column(name = "indexalias")
+    public String getIndexAlias() {
+        return indexAlias;
+    }
+
+    public void setIndexAlias(final String indexAlias) {
+        this.indexAlias = indexAlias;
+    }
+
+    @Column(name = "documentid")
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(final String documentId) {
+        this.documentId = documentId;
+    }
+
+    @Column(name = "operation")
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(final String operation) {
+        this.operation = operation;
+    }
+
+    @Column(name = "httpstatus")
+    public int getHttpStatus() {
+        return httpStatus;
+    }
+
+    public void setHttpStatus(final int httpStatus) {
+        this.httpStatus = httpStatus;
+    }
+
+    @Column(name = "reason")
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(final String reason) {
+        this.reason = reason;
+    }
+
+    @Column(name = "attempts")
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(final int attempts) {
+        this.attempts = attempts;
+    }
+
+    @Schema(name = "dateTime")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSX")
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created")
+    public Date getCreated() {
+        if (created != null) {
+            return new Date(created.getTime());
+        }
+        return null;
+    }
+
+    public void setCreated(final Date created) {
+        if (created != null) {
+            this.created = new Date(created.getTime());
+        } else {
+            this.created = null;
+        }
+    }
+}
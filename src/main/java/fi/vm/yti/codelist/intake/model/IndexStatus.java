@@ -24,6 +24,7 @@ public class IndexStatus implements Serializable {
     private String status;
     private String indexName;
     private String indexAlias;
+    private String checkpoint;
     private Date created;
     private Date modified;
 
@@ -64,6 +65,15 @@ public class IndexStatus implements Serializable {
         this.indexAlias = indexAlias;
     }
 
+    @Column(name = "checkpoint")
+    public String getCheckpoint() {
+        return checkpoint;
+    }
+
+    public void setCheckpoint(final String checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
     @Schema(name = "dateTime")
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSX")
     @Temporal(TemporalType.TIMESTAMP)
@@ -21,13 +21,17 @@ import javax.persistence.OneToMany;
 import javax.persistence.OrderColumn;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.BatchSize;
+
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonView;
 
 import fi.vm.yti.codelist.common.dto.Views;
 import io.swagger.v3.oas.annotations.media.Schema;
+import static fi.vm.yti.codelist.intake.configuration.ApplicationConstants.BATCH_FETCH_SIZE;
 
 @Entity
+@BatchSize(size = BATCH_FETCH_SIZE)
 @Table(name = "member")
 public class Member extends AbstractIdentifyableTimestampedCode implements Serializable {
 
@@ -96,6 +100,7 @@ public class Member extends AbstractIdentifyableTimestampedCode implements Seria
     @MapKeyColumn(name = "language")
     @Column(name = "preflabel")
     @OrderColumn
+    @BatchSize(size = BATCH_FETCH_SIZE)
     public Map<String, String> getPrefLabel() {
         if (prefLabel == null) {
             prefLabel = new HashMap<>();
@@ -164,6 +169,7 @@ public class Member extends AbstractIdentifyableTimestampedCode implements Seria
     }
 
     @OneToMany(fetch = FetchType.EAGER, mappedBy = "member", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = BATCH_FETCH_SIZE)
     public Set<MemberValue> getMemberValues() {
         return memberValues;
     }
@@ -7,7 +7,12 @@ import java.util.Set;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "organization")
 public class Organization extends AbstractIdentifyableCode implements Serializable {
 
@@ -39,6 +44,7 @@ public class Organization extends AbstractIdentifyableCode implements Serializab
         this.removed = removed;
     }
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ElementCollection(targetClass = String.class, fetch = FetchType.EAGER)
     @CollectionTable(name = "organization_preflabel", joinColumns = @JoinColumn(name = "organization_id", referencedColumnName = "id"))
     @MapKeyColumn(name = "language")
@@ -72,6 +78,7 @@ public class Organization extends AbstractIdentifyableCode implements Serializab
         setPrefLabel(this.prefLabel);
     }
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ElementCollection(targetClass = String.class, fetch = FetchType.EAGER)
     @CollectionTable(name = "organization_description", joinColumns = @JoinColumn(name = "organization_id", referencedColumnName = "id"))
     @MapKeyColumn(name = "language")
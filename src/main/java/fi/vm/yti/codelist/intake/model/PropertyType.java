@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CollectionTable;
 import javax.persistence.Column;
 import javax.persistence.ElementCollection;
@@ -17,7 +18,12 @@ import javax.persistence.MapKeyColumn;
 import javax.persistence.OrderColumn;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "propertytype")
 public class PropertyType extends AbstractIdentifyableTimestampedCode implements Serializable {
 
@@ -57,6 +63,7 @@ public class PropertyType extends AbstractIdentifyableTimestampedCode implements
         this.uri = uri;
     }
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ElementCollection(targetClass = String.class, fetch = FetchType.EAGER)
     @CollectionTable(name = "propertytype_preflabel", joinColumns = @JoinColumn(name = "propertytype_id", referencedColumnName = "id"))
     @MapKeyColumn(name = "language")
@@ -93,6 +100,7 @@ public class PropertyType extends AbstractIdentifyableTimestampedCode implements
         setPrefLabel(prefLabel);
     }
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ElementCollection(targetClass = String.class, fetch = FetchType.EAGER)
     @CollectionTable(name = "propertytype_definition", joinColumns = @JoinColumn(name = "propertytype_id", referencedColumnName = "id"))
     @MapKeyColumn(name = "language")
@@ -129,6 +137,7 @@ public class PropertyType extends AbstractIdentifyableTimestampedCode implements
         setDefinition(definition);
     }
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "propertytype_valuetype",
         joinColumns = {
@@ -4,6 +4,7 @@ import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CollectionTable;
 import javax.persistence.Column;
 import javax.persistence.ElementCollection;
@@ -14,7 +15,12 @@ import javax.persistence.MapKeyColumn;
 import javax.persistence.OrderColumn;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "valuetype")
 public class ValueType extends AbstractIdentifyableCode implements Serializable {
 
@@ -54,6 +60,7 @@ public class ValueType extends AbstractIdentifyableCode implements Serializable
         this.uri = uri;
     }
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ElementCollection(targetClass = String.class, fetch = FetchType.EAGER)
     @CollectionTable(name = "valuetype_preflabel", joinColumns = @JoinColumn(name = "valuetype_id", referencedColumnName = "id"))
     @MapKeyColumn(name = "language")
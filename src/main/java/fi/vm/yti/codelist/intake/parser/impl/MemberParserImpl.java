@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -13,8 +14,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import javax.inject.Inject;
+
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
@@ -40,6 +44,7 @@ import fi.vm.yti.codelist.common.dto.ErrorModel;
 import fi.vm.yti.codelist.common.dto.MemberDTO;
 import fi.vm.yti.codelist.common.dto.MemberValueDTO;
 import fi.vm.yti.codelist.common.dto.ValueTypeDTO;
+import fi.vm.yti.codelist.intake.cache.ValueTypePatternCache;
 import fi.vm.yti.codelist.intake.exception.CsvParsingException;
 import fi.vm.yti.codelist.intake.exception.DuplicateSequenceIdInFileUploadException;
 import fi.vm.yti.codelist.intake.exception.ExcelParsingException;
@@ -52,13 +57,19 @@ import fi.vm.yti.codelist.intake.model.ValueType;
 import fi.vm.yti.codelist.intake.parser.MemberParser;
 import static fi.vm.yti.codelist.common.constants.ApiConstants.*;
 import static fi.vm.yti.codelist.intake.exception.ErrorConstants.*;
-import static fi.vm.yti.codelist.intake.util.ValidationUtils.validateStringAgainstRegexp;
 
 @Component
 public class MemberParserImpl extends AbstractBaseParser implements MemberParser {
 
     private static final Logger LOG = LoggerFactory.getLogger(MemberParserImpl.class);
 
+    private final ValueTypePatternCache valueTypePatternCache;
+
+    @Inject
+    public MemberParserImpl(final ValueTypePatternCache valueTypePatternCache) {
+        this.valueTypePatternCache = valueTypePatternCache;
+    }
+
     public MemberDTO parseMemberFromJson(final String jsonPayload) {
         final ObjectMapper mapper = createObjectMapper();
         final MemberDTO member;
@@ -97,11 +108,13 @@ public class MemberParserImpl extends AbstractBaseParser implements MemberParser
              final CSVParser csvParser = new CSVParser(in, CSVFormat.newFormat(',').withQuote('"').withQuoteMode(QuoteMode.MINIMAL).withHeader())) {
             final Map<String, Integer> headerMap = csvParser.getHeaderMap();
             final Map<String, Integer> prefLabelHeaders = parseHeadersWithPrefix(headerMap, CONTENT_HEADER_PREFLABEL_PREFIX);
-            validateRequiredHeaders(filterRequiredValueTypes(valueTypes), headerMap);
+            final Set<ValueType> requiredValueTypes = filterRequiredValueTypes(valueTypes);
+            validateRequiredHeaders(requiredValueTypes, headerMap);
+            final List<ValueTypeColumn> valueTypeColumns = bindValueTypeColumns(valueTypes, headerMap);
             final List<CSVRecord> records = csvParser.getRecords();
             for (final CSVRecord record : records) {
                 final String recordIdentifier = getRecordIdentifier(record);
-                validateRequiredDataOnRecord(filterRequiredValueTypes(valueTypes), record);
+                validateRequiredDataOnRecord(requiredValueTypes, record);
                 final MemberDTO member = new MemberDTO();
                 member.setOrder(resolveOrderFromCsvRecord(record));
                 member.setSequenceId(resolveSequenceIdFromCsvRecord(record));
@@ -109,17 +122,9 @@ public class MemberParserImpl extends AbstractBaseParser implements MemberParser
                 member.setPrefLabel(parseLocalizedValueFromCsvRecord(prefLabelHeaders, record));
                 if (!valueTypes.isEmpty()) {
                     final HashSet<MemberValueDTO> memberValues = new HashSet<>();
-                    for (final ValueType valueType : valueTypes) {
-                        final String headerName = valueType.getLocalName().toUpperCase();
-                        if (headerMap.containsKey(headerName)) {
-                            final String value = parseStringFromCsvRecord(record, headerName).trim();
-                            if (!value.isEmpty()) {
-                                validateMemberValue(valueType.getRegexp(), value, recordIdentifier);
-                                memberValues.add(createMemberValueWithValue(value, valueType.getLocalName()));
-                            } else if (valueType.getRequired()) {
-                                throw new YtiCodeListException(new ErrorModel(HttpStatus.NOT_ACCEPTABLE.value(), ERR_MSG_USER_ROW_MISSING_MEMBERVALUE));
-                            }
-                        }
+                    for (final ValueTypeColumn column : valueTypeColumns) {
+                        final String value = parseStringFromCsvRecord(record, column.headerName).trim();
+                        addMemberValue(memberValues, column, value, recordIdentifier);
                     }
                     member.setMemberValues(memberValues);
                 }
@@ -192,6 +197,8 @@ public class MemberParserImpl extends AbstractBaseParser implements MemberParser
         final Iterator<Row> rowIterator = sheet.rowIterator();
         Map<String, Integer> headerMap = null;
         Map<String, Integer> prefLabelHeaders = null;
+        List<ValueTypeColumn> valueTypeColumns = null;
+        final Set<ValueType> requiredValueTypes = filterRequiredValueTypes(valueTypes);
         boolean firstRow = true;
         checkIfExcelEmpty(rowIterator);
         List<Integer> sequenceIds = new LinkedList<>();
@@ -201,30 +208,23 @@ public class MemberParserImpl extends AbstractBaseParser implements MemberParser
                 firstRow = false;
                 headerMap = resolveHeaderMap(row);
                 prefLabelHeaders = parseHeadersWithPrefix(headerMap, CONTENT_HEADER_PREFLABEL_PREFIX);
-                validateRequiredHeaders(filterRequiredValueTypes(valueTypes), headerMap);
+                validateRequiredHeaders(requiredValueTypes, headerMap);
+                valueTypeColumns = bindValueTypeColumns(valueTypes, headerMap);
             } else if (!checkIfRowIsEmpty(row)) {
                 final String rowIdentifier = getRowIdentifier(row);
                 final MemberDTO member = new MemberDTO();
                 final String codeIdentifier = formatter.formatCellValue(row.getCell(headerMap.get(CONTENT_HEADER_CODE)));
                 member.setCode(createCodeUsingIdentifier(codeIdentifier, rowIdentifier));
-                validateRequiredDataOnRow(filterRequiredValueTypes(valueTypes), row, headerMap, formatter);
+                validateRequiredDataOnRow(requiredValueTypes, row, headerMap, formatter);
                 member.setPrefLabel(parseLocalizedValueFromExcelRow(prefLabelHeaders, row, formatter));
                 member.setOrder(resolveOrderFromExcelRow(headerMap, row, formatter));
                 member.setSequenceId(resolveSequenceIdFromExcelRow(headerMap, row, formatter));
                 sequenceIds.add(member.getSequenceId());
                 if (!valueTypes.isEmpty()) {
                     final HashSet<MemberValueDTO> memberValues = new HashSet<>();
-                    for (final ValueType valueType : valueTypes) {
-                        if (headerMap.containsKey(valueType.getLocalName().toUpperCase())) {
-                            final String headerName = valueType.getLocalName().toUpperCase();
-                            final String value = formatter.formatCellValue(row.getCell(headerMap.get(headerName))).trim();
-                            if (!value.isEmpty()) {
-                                validateMemberValue(valueType.getRegexp(), value, rowIdentifier);
-                                memberValues.add(createMemberValueWithValue(value, valueType.getLocalName()));
-                            } else if (valueType.getRequired()) {
-                                throw new YtiCodeListException(new ErrorModel(HttpStatus.NOT_ACCEPTABLE.value(), ERR_MSG_USER_ROW_MISSING_MEMBERVALUE));
-                            }
-                        }
+                    for (final ValueTypeColumn column : valueTypeColumns) {
+                        final String value = formatter.formatCellValue(row.getCell(column.index)).trim();
+                        addMemberValue(memberValues, column, value, rowIdentifier);
                     }
                     member.setMemberValues(memberValues);
                 }
@@ -249,10 +249,35 @@ public class MemberParserImpl extends AbstractBaseParser implements MemberParser
         return members;
     }
 
-    private void validateMemberValue(final String regexp,
+    private List<ValueTypeColumn> bindValueTypeColumns(final Set<ValueType> valueTypes,
+                                                       final Map<String, Integer> headerMap) {
+        final List<ValueTypeColumn> columns = new ArrayList<>();
+        for (final ValueType valueType : valueTypes) {
+            final String headerName = valueType.getLocalName().toUpperCase();
+            final Integer index = headerMap.get(headerName);
+            if (index != null) {
+                columns.add(new ValueTypeColumn(valueType, headerName, index, valueTypePatternCache.getPattern(valueType.getRegexp())));
+            }
+        }
+        return columns;
+    }
+
+    private void addMemberValue(final Set<MemberValueDTO> memberValues,
+                                final ValueTypeColumn column,
+                                final String value,
+                                final String identifier) {
+        if (!value.isEmpty()) {
+            validateMemberValue(column.pattern, value, identifier);
+            memberValues.add(createMemberValueWithValue(value, column.localName));
+        } else if (column.required) {
+            throw new YtiCodeListException(new ErrorModel(HttpStatus.NOT_ACCEPTABLE.value(), ERR_MSG_USER_ROW_MISSING_MEMBERVALUE));
+        }
+    }
+
+    private void validateMemberValue(final Pattern pattern,
                                      final String value,
                                      final String identifier) {
-        if (regexp != null && !regexp.isEmpty() && !validateStringAgainstRegexp(value, regexp)) {
+        if (pattern != null && !pattern.matcher(value).matches()) {
             throw new YtiCodeListException(new ErrorModel(HttpStatus.NOT_ACCEPTABLE.value(), ERR_MSG_USER_MEMBERVALUE_VALIDATION_FAILED_WITH_IDENTIFIER, identifier));
         }
     }
@@ -373,4 +398,27 @@ public class MemberParserImpl extends AbstractBaseParser implements MemberParser
             throw new ExcelParsingException(ERR_MSG_USER_ERROR_PARSING_EXCEL_FILE);
         }
     }
+
+    /**
+     * Value type bound to its column once per file, with the compiled pattern of the value type.
+     */
+    private static final class ValueTypeColumn {
+
+        private final String localName;
+        private final String headerName;
+        private final int index;
+        private final boolean required;
+        private final Pattern pattern;
+
+        private ValueTypeColumn(final ValueType valueType,
+                                final String headerName,
+                                final int index,
+                                final Pattern pattern) {
+            this.localName = valueType.getLocalName();
+            this.headerName = headerName;
+            this.index = index;
+            this.required = valueType.getRequired();
+            this.pattern = pattern;
+        }
+    }
 }
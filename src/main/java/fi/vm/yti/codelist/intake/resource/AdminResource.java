@@ -2,42 +2,47 @@ package fi.vm.yti.codelist.intake.resource;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.function.IntSupplier;
 
 import javax.inject.Inject;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import fi.vm.yti.codelist.common.dto.ExternalReferenceDTO;
 import fi.vm.yti.codelist.common.dto.PropertyTypeDTO;
 import fi.vm.yti.codelist.common.dto.ValueTypeDTO;
-import fi.vm.yti.codelist.intake.api.ApiUtils;
+import fi.vm.yti.codelist.intake.cache.ReferenceDataCache;
+import fi.vm.yti.codelist.intake.dao.UriRewriteDao;
 import fi.vm.yti.codelist.intake.groupmanagement.OrganizationUpdater;
-import fi.vm.yti.codelist.intake.indexing.Indexing;
-import fi.vm.yti.codelist.intake.jpa.CodeRegistryRepository;
-import fi.vm.yti.codelist.intake.jpa.CodeRepository;
-import fi.vm.yti.codelist.intake.jpa.CodeSchemeRepository;
-import fi.vm.yti.codelist.intake.jpa.ExtensionRepository;
-import fi.vm.yti.codelist.intake.jpa.MemberRepository;
-import fi.vm.yti.codelist.intake.model.Code;
-import fi.vm.yti.codelist.intake.model.CodeRegistry;
-import fi.vm.yti.codelist.intake.model.CodeScheme;
-import fi.vm.yti.codelist.intake.model.Extension;
-import fi.vm.yti.codelist.intake.model.Member;
+import fi.vm.yti.codelist.intake.indexing.ReIndexJob;
+import fi.vm.yti.codelist.intake.indexing.ReIndexJobManager;
+import fi.vm.yti.codelist.intake.jpa.IndexDeadLetterRepository;
 import fi.vm.yti.codelist.intake.security.AuthorizationManager;
 import fi.vm.yti.codelist.intake.service.ExternalReferenceService;
 import fi.vm.yti.codelist.intake.service.PropertyTypeService;
 import fi.vm.yti.codelist.intake.service.ValueTypeService;
 import fi.vm.yti.codelist.intake.util.FileUtils;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import static fi.vm.yti.codelist.common.constants.ApiConstants.*;
@@ -50,44 +55,36 @@ import static fi.vm.yti.codelist.intake.data.YtiDataAccess.*;
 public class AdminResource implements AbstractBaseResource {
 
     private static final Logger LOG = LoggerFactory.getLogger(AdminResource.class);
+    private static final int MAX_DEAD_LETTERS = 500;
     private final AuthorizationManager authorizationManager;
-    private final ExtensionRepository extensionRepository;
-    private final MemberRepository memberRepository;
-    private final CodeRegistryRepository codeRegistryRepository;
-    private final CodeSchemeRepository codeSchemeRepository;
-    private final CodeRepository codeRepository;
+    private final UriRewriteDao uriRewriteDao;
     private final PropertyTypeService propertyTypeService;
     private final ExternalReferenceService externalReferenceService;
-    private final ApiUtils apiUtils;
-    private final Indexing indexing;
+    private final ReIndexJobManager reIndexJobManager;
     private final OrganizationUpdater organizationUpdater;
     private final ValueTypeService valueTypeService;
+    private final ReferenceDataCache referenceDataCache;
+    private final IndexDeadLetterRepository indexDeadLetterRepository;
 
     @Inject
     public AdminResource(final AuthorizationManager authorizationManager,
-                         final ExtensionRepository extensionRepository,
-                         final MemberRepository memberRepository,
-                         final CodeRegistryRepository codeRegistryRepository,
-                         final CodeSchemeRepository codeSchemeRepository,
-                         final CodeRepository codeRepository,
+                         final UriRewriteDao uriRewriteDao,
                          final PropertyTypeService propertyTypeService,
                          final ExternalReferenceService externalReferenceService,
-                         final ApiUtils apiUtils,
-                         final Indexing indexing,
+                         final ReIndexJobManager reIndexJobManager,
                          final OrganizationUpdater organizationUpdater,
-                         final ValueTypeService valueTypeService) {
+                         final ValueTypeService valueTypeService,
+                         final ReferenceDataCache referenceDataCache,
+                         final IndexDeadLetterRepository indexDeadLetterRepository) {
         this.authorizationManager = authorizationManager;
-        this.extensionRepository = extensionRepository;
-        this.memberRepository = memberRepository;
-        this.codeRegistryRepository = codeRegistryRepository;
-        this.codeSchemeRepository = codeSchemeRepository;
-        this.codeRepository = codeRepository;
+        this.uriRewriteDao = uriRewriteDao;
         this.propertyTypeService = propertyTypeService;
         this.externalReferenceService = externalReferenceService;
-        this.apiUtils = apiUtils;
-        this.indexing = indexing;
+        this.reIndexJobManager = reIndexJobManager;
         this.organizationUpdater = organizationUpdater;
         this.valueTypeService = valueTypeService;
+        this.referenceDataCache = referenceDataCache;
+        this.indexDeadLetterRepository = indexDeadLetterRepository;
     }
 
     @Path("/updateorganizations")
@@ -98,6 +95,7 @@ public class AdminResource implements AbstractBaseResource {
     public Response updateOrganizations() {
         if (authorizationManager.isSuperUser()) {
             organizationUpdater.updateOrganizations();
+            referenceDataCache.evictOrganizations();
             return Response.ok().build();
         } else {
             return Response.status(Response.Status.UNAUTHORIZED).build();
@@ -109,17 +107,11 @@ public class AdminResource implements AbstractBaseResource {
     @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
     @Operation(summary = "Rewrites all coderegistry resource uris.", hidden = true)
     @ApiResponse(responseCode = "200", description = "Upon successful request.")
+    @ApiResponse(responseCode = "202", description = "Returns the queued reindex job for the affected indexes.")
     @Transactional
     public Response rewriteCodeRegistryUris() {
         if (authorizationManager.isSuperUser()) {
-            final Set<CodeRegistry> codeRegistries = codeRegistryRepository.findAll();
-            for (final CodeRegistry codeRegistry : codeRegistries) {
-                codeRegistry.setUri(apiUtils.createCodeRegistryUri(codeRegistry));
-            }
-            codeRegistryRepository.saveAll(codeRegistries);
-            indexing.reIndexEverything();
-            LOG.info("CodeRegistry uris rewritten.");
-            return Response.ok().build();
+            return rewriteUris(uriRewriteDao::rewriteCodeRegistryUris, "CodeRegistry", ELASTIC_INDEX_CODEREGISTRY, ELASTIC_INDEX_CODESCHEME, ELASTIC_INDEX_CODE, ELASTIC_INDEX_EXTENSION, ELASTIC_INDEX_MEMBER);
         } else {
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
@@ -130,17 +122,11 @@ public class AdminResource implements AbstractBaseResource {
     @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
     @Operation(summary = "Rewrites all codescheme resource uris.", hidden = true)
     @ApiResponse(responseCode = "200", description = "Upon successful request.")
+    @ApiResponse(responseCode = "202", description = "Returns the queued reindex job for the affected indexes.")
     @Transactional
     public Response rewriteCodeSchemeUris() {
         if (authorizationManager.isSuperUser()) {
-            final Set<CodeScheme> codeSchemes = codeSchemeRepository.findAll();
-            for (final CodeScheme codeScheme : codeSchemes) {
-                codeScheme.setUri(apiUtils.createCodeSchemeUri(codeScheme));
-            }
-            codeSchemeRepository.saveAll(codeSchemes);
-            indexing.reIndexEverything();
-            LOG.info("CodeScheme uris rewritten.");
-            return Response.ok().build();
+            return rewriteUris(uriRewriteDao::rewriteCodeSchemeUris, "CodeScheme", ELASTIC_INDEX_CODESCHEME, ELASTIC_INDEX_CODE, ELASTIC_INDEX_EXTENSION, ELASTIC_INDEX_MEMBER);
         } else {
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
@@ -151,17 +137,11 @@ public class AdminResource implements AbstractBaseResource {
     @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
     @Operation(summary = "Rewrites all code resource uris.", hidden = true)
     @ApiResponse(responseCode = "200", description = "Upon successful request.")
+    @ApiResponse(responseCode = "202", description = "Returns the queued reindex job for the affected indexes.")
     @Transactional
     public Response rewriteCodeUris() {
         if (authorizationManager.isSuperUser()) {
-            final Set<Code> codes = codeRepository.findAll();
-            for (final Code code : codes) {
-                code.setUri(apiUtils.createCodeUri(code));
-            }
-            codeRepository.saveAll(codes);
-            indexing.reIndexEverything();
-            LOG.info("Code uris rewritten.");
-            return Response.ok().build();
+            return rewriteUris(uriRewriteDao::rewriteCodeUris, "Code", ELASTIC_INDEX_CODESCHEME, ELASTIC_INDEX_CODE, ELASTIC_INDEX_MEMBER);
         } else {
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
@@ -172,17 +152,11 @@ public class AdminResource implements AbstractBaseResource {
     @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
     @Operation(summary = "Rewrites all code resource uris.", hidden = true)
     @ApiResponse(responseCode = "200", description = "Upon successful request.")
+    @ApiResponse(responseCode = "202", description = "Returns the queued reindex job for the affected indexes.")
     @Transactional
     public Response rewriteExtensionUris() {
         if (authorizationManager.isSuperUser()) {
-            final Set<Extension> extensions = extensionRepository.findAll();
-            for (final Extension extension : extensions) {
-                extension.setUri(apiUtils.createExtensionUrl(extension));
-            }
-            extensionRepository.saveAll(extensions);
-            indexing.reIndexEverything();
-            LOG.info("Extension uris rewritten.");
-            return Response.ok().build();
+            return rewriteUris(uriRewriteDao::rewriteExtensionUris, "Extension", ELASTIC_INDEX_CODESCHEME, ELASTIC_INDEX_EXTENSION, ELASTIC_INDEX_MEMBER);
         } else {
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
@@ -193,40 +167,51 @@ public class AdminResource implements AbstractBaseResource {
     @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
     @Operation(summary = "Rewrites all code resource uris.", hidden = true)
     @ApiResponse(responseCode = "200", description = "Upon successful request.")
+    @ApiResponse(responseCode = "202", description = "Returns the queued reindex job for the affected indexes.")
     @Transactional
     public Response rewriteMemberUris() {
         if (authorizationManager.isSuperUser()) {
-            final Set<Member> members = memberRepository.findAll();
-            for (final Member member : members) {
-                member.setUri(apiUtils.createMemberUri(member));
-            }
-            memberRepository.saveAll(members);
-            indexing.reIndexEverything();
-            LOG.info("Member uris rewritten.");
-            return Response.ok().build();
+            return rewriteUris(uriRewriteDao::rewriteMemberUris, "Member", ELASTIC_INDEX_MEMBER);
         } else {
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
     }
 
+    private Response rewriteUris(final IntSupplier rewrite,
+                                 final String entityName,
+                                 final String... affectedIndexAliases) {
+        final int count = rewrite.getAsInt();
+        LOG.info(String.format("%s uris rewritten: %d changed.", entityName, count));
+        if (count > 0) {
+            return submitReIndex(entityName + " uri rewrite", affectedIndexAliases);
+        }
+        return Response.ok().build();
+    }
+
+    private Response submitReIndex(final String name,
+                                   final String... indexAliases) {
+        final ReIndexJob job = reIndexJobManager.submit(name, new LinkedHashSet<>(Arrays.asList(indexAliases)));
+        return Response.accepted(job).build();
+    }
+
     @GET
     @Path("/externalreferences/reload")
     @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
     @Operation(summary = "Reloads global ExternalReferences from source data.", hidden = true)
     @ApiResponse(responseCode = "200", description = "Upon successful request.")
+    @ApiResponse(responseCode = "202", description = "Returns the queued reindex job for the affected indexes.")
     @Transactional
     public Response reloadGlobalExternalReferences() {
         if (authorizationManager.isSuperUser()) {
             try (final InputStream inputStream = FileUtils.loadFileFromClassPath("/" + DATA_EXTERNALREFERENCES + "/" + DEFAULT_EXTERNALREFERENCE_FILENAME)) {
                 final Set<ExternalReferenceDTO> externalReferenceDtos = externalReferenceService.parseAndPersistExternalReferencesFromSourceData(true, FORMAT_CSV, inputStream, null, null);
                 LOG.info(String.format("Reloaded %d ExternalReferences from initial data!", externalReferenceDtos.size()));
-                indexing.reIndexEverything();
-                LOG.info("Reindexing finished.");
             } catch (final IOException e) {
                 LOG.error("Issue with parsing ExternalReference file. ", e);
+                return Response.serverError().build();
             }
             LOG.info("ExternalReferences reloaded.");
-            return Response.ok().build();
+            return submitReIndex("ExternalReference reload", ELASTIC_INDEX_CODESCHEME, ELASTIC_INDEX_CODE, ELASTIC_INDEX_EXTERNALREFERENCE);
         } else {
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
@@ -237,19 +222,21 @@ public class AdminResource implements AbstractBaseResource {
     @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
     @Operation(summary = "Reloads PropertyTypes from source data.", hidden = true)
     @ApiResponse(responseCode = "200", description = "Upon successful request.")
+    @ApiResponse(responseCode = "202", description = "Returns the queued reindex job for the affected indexes.")
     @Transactional
     public Response reloadPropertyTypes() {
         if (authorizationManager.isSuperUser()) {
             try (final InputStream inputStream = FileUtils.loadFileFromClassPath("/" + DATA_PROPERTYTYPES + "/" + DEFAULT_PROPERTYTYPE_FILENAME)) {
                 final Set<PropertyTypeDTO> propertyTypeDtos = propertyTypeService.parseAndPersistPropertyTypesFromSourceData(true, FORMAT_CSV, inputStream, null);
                 LOG.info(String.format("Reloaded %d PropertyTypes from initial data!", propertyTypeDtos.size()));
-                indexing.reIndexEverything();
-                LOG.info("Reindexing finished.");
             } catch (final IOException e) {
                 LOG.error("Issue with parsing PropertyType file. ", e);
+                return Response.serverError().build();
+            } finally {
+                referenceDataCache.evictPropertyTypes();
             }
             LOG.info("PropertyTypes reloaded.");
-            return Response.ok().build();
+            return submitReIndex("PropertyType reload", ELASTIC_INDEX_PROPERTYTYPE, ELASTIC_INDEX_EXTERNALREFERENCE, ELASTIC_INDEX_EXTENSION, ELASTIC_INDEX_MEMBER);
         } else {
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
@@ -260,19 +247,21 @@ public class AdminResource implements AbstractBaseResource {
     @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
     @Operation(summary = "Reloads ValueTypes from source data.", hidden = true)
     @ApiResponse(responseCode = "200", description = "Upon successful request.")
+    @ApiResponse(responseCode = "202", description = "Returns the queued reindex job for the affected indexes.")
     @Transactional
     public Response reloadValueTypes() {
         if (authorizationManager.isSuperUser()) {
             try (final InputStream inputStream = FileUtils.loadFileFromClassPath("/" + DATA_VALUETYPES + "/" + DEFAULT_VALUETYPE_FILENAME)) {
                 final Set<ValueTypeDTO> valueTypeDtos = valueTypeService.parseAndPersistValueTypesFromSourceData(true, FORMAT_CSV, inputStream, null);
                 LOG.info(String.format("Reloaded %d ValueTypes from initial data!", valueTypeDtos.size()));
-                indexing.reIndexEverything();
-                LOG.info("Reindexing finished.");
             } catch (final IOException e) {
                 LOG.error("Issue with parsing ValueType file. ", e);
+                return Response.serverError().build();
+            } finally {
+                referenceDataCache.evictValueTypes();
             }
             LOG.info("ValueTypes reloaded.");
-            return Response.ok().build();
+            return submitReIndex("ValueType reload", ELASTIC_INDEX_PROPERTYTYPE, ELASTIC_INDEX_VALUETYPE, ELASTIC_INDEX_EXTENSION, ELASTIC_INDEX_MEMBER);
         } else {
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
@@ -281,13 +270,106 @@ public class AdminResource implements AbstractBaseResource {
     @GET
     @Path("/reindex")
     @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
-    @Operation(summary = "Reindex ElasticSearch data.", hidden = true)
-    @ApiResponse(responseCode = "200", description = "Upon successful request.")
-    @Transactional
+    @Operation(summary = "Starts a background reindex of all ElasticSearch data.", hidden = true)
+    @ApiResponse(responseCode = "202", description = "Returns the queued reindex job.")
     public Response reIndex() {
         if (authorizationManager.isSuperUser()) {
-            indexing.reIndexEverything();
-            LOG.info("Reindexing finished.");
+            return submitReIndex("Full reindex", ELASTIC_INDEX_CODEREGISTRY, ELASTIC_INDEX_CODESCHEME, ELASTIC_INDEX_CODE, ELASTIC_INDEX_PROPERTYTYPE, ELASTIC_INDEX_VALUETYPE, ELASTIC_INDEX_EXTERNALREFERENCE, ELASTIC_INDEX_EXTENSION, ELASTIC_INDEX_MEMBER);
+        } else {
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+    }
+
+    @GET
+    @Path("/verifyindexes")
+    @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
+    @Operation(summary = "Starts a background comparison of the ElasticSearch indexes with the database, repairing only the documents that differ.", hidden = true)
+    @ApiResponse(responseCode = "202", description = "Returns the queued verification job, the drift found per index is reported as the job result.")
+    public Response verifyIndexes(@Parameter(description = "Index alias to verify, all verifiable indexes when omitted.", in = ParameterIn.QUERY) @QueryParam("index") final String indexAlias) {
+        if (authorizationManager.isSuperUser()) {
+            final Set<String> indexAliases = reIndexJobManager.getVerifiableIndexAliases();
+            if (indexAlias != null && !indexAliases.contains(indexAlias)) {
+                return Response.status(Response.Status.BAD_REQUEST).build();
+            }
+            final ReIndexJob job = reIndexJobManager.submitVerification("Index verification", indexAlias != null ? Collections.singleton(indexAlias) : indexAliases);
+            return Response.accepted(job).build();
+        } else {
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+    }
+
+    @GET
+    @Path("/jobs")
+    @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
+    @Operation(summary = "Lists the most recent background reindex jobs.", hidden = true)
+    @ApiResponse(responseCode = "200", description = "Returns the jobs, newest first.")
+    public Response getReIndexJobs() {
+        if (authorizationManager.isSuperUser()) {
+            return Response.ok(reIndexJobManager.getJobs()).build();
+        } else {
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+    }
+
+    @GET
+    @Path("/jobs/{jobId}")
+    @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
+    @Operation(summary = "Returns the state of a background reindex job and the index statuses it has produced.", hidden = true)
+    @ApiResponse(responseCode = "200", description = "Returns the job.")
+    @ApiResponse(responseCode = "404", description = "Job not found.")
+    public Response getReIndexJob(@Parameter(description = "Job ID", required = true, in = ParameterIn.PATH) @PathParam("jobId") final UUID jobId) {
+        if (authorizationManager.isSuperUser()) {
+            final ReIndexJob job = reIndexJobManager.getJob(jobId);
+            if (job == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            final Map<String, Object> jobStatus = new LinkedHashMap<>();
+            jobStatus.put("job", job);
+            jobStatus.put("indexStatuses", reIndexJobManager.getIndexStatuses(job));
+            return Response.ok(jobStatus).build();
+        } else {
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+    }
+
+    @GET
+    @Path("/jobs/{jobId}/cancel")
+    @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
+    @Operation(summary = "Cancels a queued or running background reindex job.", hidden = true)
+    @ApiResponse(responseCode = "200", description = "Cancellation requested, the job stops after the current page of content.")
+    @ApiResponse(responseCode = "404", description = "Job not found or already finished.")
+    public Response cancelReIndexJob(@Parameter(description = "Job ID", required = true, in = ParameterIn.PATH) @PathParam("jobId") final UUID jobId) {
+        if (authorizationManager.isSuperUser()) {
+            if (reIndexJobManager.cancel(jobId)) {
+                return Response.ok(reIndexJobManager.getJob(jobId)).build();
+            }
+            return Response.status(Response.Status.NOT_FOUND).build();
+        } else {
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+    }
+
+    @GET
+    @Path("/deadletters")
+    @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
+    @Operation(summary = "Lists the most recent documents that ElasticSearch rejected permanently or after all retries.", hidden = true)
+    @ApiResponse(responseCode = "200", description = "Returns the dead letters, newest first.")
+    public Response getIndexDeadLetters() {
+        if (authorizationManager.isSuperUser()) {
+            return Response.ok(indexDeadLetterRepository.getLatestDeadLetters(PageRequest.of(0, MAX_DEAD_LETTERS))).build();
+        } else {
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+    }
+
+    @GET
+    @Path("/deadletters/clear")
+    @Operation(summary = "Removes all index dead letters, for example after a full reindex.", hidden = true)
+    @ApiResponse(responseCode = "200", description = "Dead letters removed.")
+    public Response clearIndexDeadLetters() {
+        if (authorizationManager.isSuperUser()) {
+            indexDeadLetterRepository.deleteAll();
+            LOG.info("Index dead letters cleared.");
             return Response.ok().build();
         } else {
             return Response.status(Response.Status.UNAUTHORIZED).build();
@@ -977,14 +977,9 @@ public class CodeRegistryResource implements AbstractBaseResource {
                                                          final String codeRegistryCodeValue,
                                                          final String pretty) {
         final HashSet<CodeSchemeDTO> codeSchemes = new HashSet<>();
-        codeSchemeService.populateAllVersionsToCodeSchemeDTO(codeScheme);
         codeSchemes.add(codeScheme);
-        LinkedHashSet<CodeSchemeDTO> previousVersions = new LinkedHashSet<>();
-        previousVersions = codeSchemeService.getPreviousVersions(codeScheme.getPrevCodeschemeId(), previousVersions);
-        for (CodeSchemeDTO prevVersion : previousVersions) {
-            codeSchemeService.populateAllVersionsToCodeSchemeDTO(prevVersion);
-        }
-        codeSchemes.addAll(previousVersions);
+        codeSchemes.addAll(codeSchemeService.getPreviousVersions(codeScheme.getPrevCodeschemeId(), new LinkedHashSet<>()));
+        codeSchemeService.populateAllVersionsToCodeSchemeDTOs(codeSchemes);
         indexing.updateCodeSchemes(codeSchemes);
         indexing.updateCodeRegistry(codeRegistryService.findByCodeValue(codeRegistryCodeValue));
         indexing.updateCodes(codeService.findByCodeSchemeId(codeScheme.getId()));
@@ -33,6 +33,7 @@ import fi.vm.yti.codelist.intake.api.ResponseWrapper;
 import fi.vm.yti.codelist.intake.configuration.GroupManagementProperties;
 import fi.vm.yti.codelist.intake.exception.UnauthorizedException;
 import fi.vm.yti.codelist.intake.groupmanagement.GroupManagementUserRequest;
+import fi.vm.yti.codelist.intake.integration.IntegrationGuards;
 import fi.vm.yti.codelist.intake.resource.AbstractBaseResource;
 import fi.vm.yti.security.AuthenticatedUserProvider;
 import fi.vm.yti.security.Role;
@@ -54,14 +55,17 @@ public class GroupManagementProxyResource implements AbstractBaseResource {
     private final AuthenticatedUserProvider authenticatedUserProvider;
     private final GroupManagementProperties groupManagementProperties;
     private final RestTemplate restTemplate;
+    private final IntegrationGuards integrationGuards;
 
     @Inject
     public GroupManagementProxyResource(final GroupManagementProperties groupManagementProperties,
                                         final AuthenticatedUserProvider authenticatedUserProvider,
-                                        final RestTemplate restTemplate) {
+                                        final RestTemplate restTemplate,
+                                        final IntegrationGuards integrationGuards) {
         this.groupManagementProperties = groupManagementProperties;
         this.authenticatedUserProvider = authenticatedUserProvider;
         this.restTemplate = restTemplate;
+        this.integrationGuards = integrationGuards;
     }
 
     @GET
@@ -74,7 +78,7 @@ public class GroupManagementProxyResource implements AbstractBaseResource {
         if (user.isAnonymous()) {
             throw new UnauthorizedException(new ErrorModel(HttpStatus.UNAUTHORIZED.value(), ERR_MSG_USER_401));
         }
-        final String response = restTemplate.getForObject(createGroupManagementRequestsApiUrl(user.getId().toString()), String.class);
+        final String response = integrationGuards.groupManagement().call(() -> restTemplate.getForObject(createGroupManagementRequestsApiUrl(user.getId().toString()), String.class));
         final ObjectMapper mapper = new ObjectMapper();
         mapper.setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
         final Meta meta = new Meta();
@@ -112,7 +116,7 @@ public class GroupManagementProxyResource implements AbstractBaseResource {
         final HttpHeaders headers = new HttpHeaders();
         headers.setContentType(org.springframework.http.MediaType.MULTIPART_FORM_DATA);
         final HttpEntity<LinkedMultiValueMap<String, Object>> entity = new HttpEntity<>(parameters, headers);
-        final ResponseEntity response = restTemplate.exchange(requestUrl, HttpMethod.POST, entity, String.class);
+        final ResponseEntity response = integrationGuards.groupManagement().call(() -> restTemplate.exchange(requestUrl, HttpMethod.POST, entity, String.class));
         if (response.getStatusCode() == HttpStatus.OK) {
             return Response.status(200).build();
         } else {
@@ -1,9 +1,12 @@
 package fi.vm.yti.codelist.intake.resource.externalresources;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
@@ -29,7 +32,6 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -37,6 +39,9 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import fi.vm.yti.codelist.common.dto.ErrorModel;
 import fi.vm.yti.codelist.common.dto.Meta;
@@ -44,9 +49,11 @@ import fi.vm.yti.codelist.intake.api.ResponseWrapper;
 import fi.vm.yti.codelist.intake.configuration.TerminologyProperties;
 import fi.vm.yti.codelist.intake.dto.ConceptsResponseDTO;
 import fi.vm.yti.codelist.intake.exception.ErrorConstants;
+import fi.vm.yti.codelist.intake.exception.IntegrationUnavailableException;
 import fi.vm.yti.codelist.intake.exception.UnauthorizedException;
 import fi.vm.yti.codelist.intake.exception.UnreachableTerminologyApiException;
 import fi.vm.yti.codelist.intake.exception.YtiCodeListException;
+import fi.vm.yti.codelist.intake.integration.IntegrationGuards;
 import fi.vm.yti.codelist.intake.resource.AbstractBaseResource;
 import fi.vm.yti.codelist.intake.terminology.Attribute;
 import fi.vm.yti.codelist.intake.terminology.Concept;
@@ -55,6 +62,8 @@ import fi.vm.yti.codelist.intake.terminology.ConceptSuggestionResponse;
 import fi.vm.yti.codelist.intake.terminology.Vocabulary;
 import fi.vm.yti.security.AuthenticatedUserProvider;
 import fi.vm.yti.security.YtiUser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
@@ -76,14 +85,40 @@ public class TerminologyProxyResource implements AbstractBaseResource {
     private final RestTemplate restTemplate;
     private final AuthenticatedUserProvider authenticatedUserProvider;
     private final TerminologyProperties terminologyProperties;
+    private final IntegrationGuards integrationGuards;
+    private final ObjectMapper mapper;
+    private final Cache<URI, Set<Vocabulary>> vocabularyCache;
+    private final Cache<URI, ConceptsResponseDTO> conceptCache;
 
     @Inject
     public TerminologyProxyResource(final TerminologyProperties terminologyProperties,
                                     final AuthenticatedUserProvider authenticatedUserProvider,
-                                    final RestTemplate restTemplate) {
+                                    final RestTemplate restTemplate,
+                                    final IntegrationGuards integrationGuards,
+                                    final MeterRegistry meterRegistry) {
         this.terminologyProperties = terminologyProperties;
         this.authenticatedUserProvider = authenticatedUserProvider;
         this.restTemplate = restTemplate;
+        this.integrationGuards = integrationGuards;
+        this.mapper = new ObjectMapper();
+        this.mapper.setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
+        this.vocabularyCache = createCache();
+        this.conceptCache = createCache();
+        GuavaCacheMetrics.monitor(meterRegistry, vocabularyCache, "terminology.vocabularies");
+        GuavaCacheMetrics.monitor(meterRegistry, conceptCache, "terminology.concepts");
+    }
+
+    /**
+     * Responses are cached by the full request URI, which carries the search parameters and the organization scope of
+     * the user, so users only ever get results fetched with their own scope. Concurrent requests for the same URI wait
+     * for a single in-flight fetch.
+     */
+    private <V> Cache<URI, V> createCache() {
+        return CacheBuilder.newBuilder()
+            .maximumSize(terminologyProperties.getCacheMaxSize())
+            .expireAfterWrite(terminologyProperties.getCacheTtlSeconds(), TimeUnit.SECONDS)
+            .recordStats()
+            .build();
     }
 
     @GET
@@ -103,35 +138,22 @@ public class TerminologyProxyResource implements AbstractBaseResource {
         } else {
             params.add("includeIncompleteFrom", getUserOrganizationsCsl(user));
         }
-        final ResponseEntity response;
+        final UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(createTerminologyVocabulariesApiUrl()).queryParams(params);
+        final URI uri = builder.build().encode().toUri();
+        final Set<Vocabulary> vocabularies;
         try {
-            final HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(org.springframework.http.MediaType.APPLICATION_JSON_UTF8);
-            final HttpEntity<?> entity = new HttpEntity<>(headers);
-            final UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(createTerminologyVocabulariesApiUrl()).queryParams(params);
-            final UriComponents uriComponents = builder.build().encode();
-            final ParameterizedTypeReference<String> parameterizedTypeReference = new ParameterizedTypeReference<String>() {
-            };
-            response = restTemplate.exchange(uriComponents.toUri(), HttpMethod.GET, entity, parameterizedTypeReference);
-        } catch (final Exception e) {
-            LOG.error("Error getting vocabularies from terminology response!", e);
+            vocabularies = vocabularyCache.get(uri, () -> this.parseVocabulariesFromResponse(fetchFromTerminologyApi(uri)));
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            rethrowIfUnavailable(e.getCause());
+            LOG.error("Error getting vocabularies from terminology-api!", e.getCause());
             throw new UnreachableTerminologyApiException(ErrorConstants.ERR_MSG_CANT_REACH_TERMINOLOGY_API);
         }
-        final ObjectMapper mapper = new ObjectMapper();
-        mapper.setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
         final Meta meta = new Meta();
         final ResponseWrapper<Vocabulary> wrapper = new ResponseWrapper<>(meta);
-        final Set<Vocabulary> vocabularies;
-        try {
-            vocabularies = this.parseVocabulariesFromResponse(response);
-            meta.setCode(200);
-            meta.setResultCount(vocabularies.size());
-            wrapper.setResults(vocabularies);
-            return Response.ok(wrapper).build();
-        } catch (final Exception e) {
-            LOG.error("Error parsing vocabularies from terminology response!", e);
-            throw new UnreachableTerminologyApiException(ErrorConstants.ERR_MSG_CANT_REACH_TERMINOLOGY_API);
-        }
+        meta.setCode(200);
+        meta.setResultCount(vocabularies.size());
+        wrapper.setResults(vocabularies);
+        return Response.ok(wrapper).build();
     }
 
     @GET
@@ -151,62 +173,61 @@ public class TerminologyProxyResource implements AbstractBaseResource {
         if (user.isAnonymous()) {
             throw new UnauthorizedException(new ErrorModel(HttpStatus.UNAUTHORIZED.value(), ERR_MSG_USER_401));
         }
-        ResponseEntity response = null;
-        try {
-            final LinkedMultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-            params.add("status", status);
-            if (searchTerm != null && !searchTerm.isEmpty()) {
-                params.add("searchTerm", searchTerm);
-            }
-            if (containerUri != null && !containerUri.isEmpty()) {
-                params.add("container", containerUri);
-            }
-            if (!LANGUAGES_ALL_SELECTED.equalsIgnoreCase(language) && !language.isEmpty()) {
-                params.add("language", language);
-            }
-            if (pageSize != null) {
-                params.add("pageSize", pageSize.toString());
-            }
-            params.add("from", from.toString());
-            if (user.isSuperuser()) {
-                params.add("includeIncomplete", "true");
-            } else {
-                params.add("includeIncompleteFrom", getUserOrganizationsCsl(user));
-            }
-            final HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(org.springframework.http.MediaType.APPLICATION_JSON_UTF8);
-            final HttpEntity<?> entity = new HttpEntity<>(headers);
-            final UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(createTerminologyConceptsApiUrl()).queryParams(params);
-            final UriComponents uriComponents = builder.build().encode();
-            final ParameterizedTypeReference<String> parameterizedTypeReference = new ParameterizedTypeReference<String>() {
-            };
-            response = restTemplate.exchange(uriComponents.toUri(), HttpMethod.GET, entity, parameterizedTypeReference);
-        } catch (HttpClientErrorException e) {
-            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
-                // ok to continue
-            } else {
-                LOG.error("Error getting concepts from terminology-api!", e);
-                throw new UnreachableTerminologyApiException(ErrorConstants.ERR_MSG_CANT_REACH_TERMINOLOGY_API);
-            }
-        } catch (Exception e) {
-            LOG.error("Error getting concepts from terminology-api!", e);
-            throw new UnreachableTerminologyApiException(ErrorConstants.ERR_MSG_CANT_REACH_TERMINOLOGY_API);
+        final LinkedMultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("status", status);
+        if (searchTerm != null && !searchTerm.isEmpty()) {
+            params.add("searchTerm", searchTerm);
+        }
+        if (containerUri != null && !containerUri.isEmpty()) {
+            params.add("container", containerUri);
         }
-        final ObjectMapper mapper = new ObjectMapper();
-        mapper.setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
+        if (!LANGUAGES_ALL_SELECTED.equalsIgnoreCase(language) && !language.isEmpty()) {
+            params.add("language", language);
+        }
+        if (pageSize != null) {
+            params.add("pageSize", pageSize.toString());
+        }
+        params.add("from", from.toString());
+        if (user.isSuperuser()) {
+            params.add("includeIncomplete", "true");
+        } else {
+            params.add("includeIncompleteFrom", getUserOrganizationsCsl(user));
+        }
+        final UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(createTerminologyConceptsApiUrl()).queryParams(params);
+        final URI uri = builder.build().encode().toUri();
         try {
-            final ConceptsResponseDTO conceptsResponseDto = this.parseResourcesFromResponse(response);
-            if (conceptsResponseDto != null) {
-                return Response.ok(conceptsResponseDto).build();
-            } else {
-                throw new UnreachableTerminologyApiException(ErrorConstants.ERR_MSG_CANT_REACH_TERMINOLOGY_API);
-            }
-        } catch (final Exception e) {
-            LOG.error("Error parsing concepts from terminology response!", e);
+            return Response.ok(conceptCache.get(uri, () -> {
+                final ConceptsResponseDTO conceptsResponseDto = this.parseResourcesFromResponse(fetchFromTerminologyApi(uri));
+                if (conceptsResponseDto == null) {
+                    throw new UnreachableTerminologyApiException(ErrorConstants.ERR_MSG_CANT_REACH_TERMINOLOGY_API);
+                }
+                return conceptsResponseDto;
+            })).build();
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            rethrowIfUnavailable(e.getCause());
+            LOG.error("Error getting concepts from terminology-api!", e.getCause());
             throw new UnreachableTerminologyApiException(ErrorConstants.ERR_MSG_CANT_REACH_TERMINOLOGY_API);
         }
     }
 
+    /**
+     * The cache wraps exceptions thrown by the loader, an open circuit is passed on as is so that it maps to a 503.
+     */
+    private static void rethrowIfUnavailable(final Throwable cause) {
+        if (cause instanceof IntegrationUnavailableException) {
+            throw (IntegrationUnavailableException) cause;
+        }
+    }
+
+    private ResponseEntity<String> fetchFromTerminologyApi(final URI uri) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(org.springframework.http.MediaType.APPLICATION_JSON_UTF8);
+        final HttpEntity<?> entity = new HttpEntity<>(headers);
+        final ParameterizedTypeReference<String> parameterizedTypeReference = new ParameterizedTypeReference<String>() {
+        };
+        return integrationGuards.terminology().call(() -> restTemplate.exchange(uri, HttpMethod.GET, entity, parameterizedTypeReference));
+    }
+
     private String createTerminologyConceptsApiUrl() {
         final String conceptsUrl = terminologyProperties.getUrl() + TERMINOLOGY_API_BASE_PATH + API_PATH_VERSION_V1 + API_PATH_INTEGRATION + API_PATH_RESOURCES;
         LOG.info("Terminology conceptsUrl created in Codelist TerminologyProxyResource is " + conceptsUrl);
@@ -236,21 +257,21 @@ public class TerminologyProxyResource implements AbstractBaseResource {
         final Attribute definition = new Attribute(contentLanguage, suggestedDefinition);
         final ConceptSuggestionRequest conceptSuggestionRequest = new ConceptSuggestionRequest(prefLabel, definition, user.getId(), terminologyUri);
 
-        final ObjectMapper objectMapper = new ObjectMapper();
-
         final HttpHeaders headers = new HttpHeaders();
         headers.setContentType(org.springframework.http.MediaType.APPLICATION_JSON_UTF8);
         headers.add("cookie", httpServletrequest.getHeader("cookie"));
 
         final HttpEntity<String> request;
         try {
-            request = new HttpEntity<>(objectMapper.writeValueAsString(conceptSuggestionRequest), headers);
+            request = new HttpEntity<>(mapper.writeValueAsString(conceptSuggestionRequest), headers);
         } catch (JsonProcessingException e) {
             LOG.error(ERROR_CREATING_A_CONCEPT_IN_TERMINOLOGY_API, e);
             throw new UnreachableTerminologyApiException(ErrorConstants.ERR_MSG_CANT_REACH_TERMINOLOGY_API);
         }
         try {
-            response = restTemplate.exchange(createTerminologyConceptSuggestionApiUrl(), HttpMethod.POST, request, String.class);
+            response = integrationGuards.terminology().call(() -> restTemplate.exchange(createTerminologyConceptSuggestionApiUrl(), HttpMethod.POST, request, String.class));
+        } catch (final IntegrationUnavailableException e) {
+            throw e;
         } catch (HttpClientErrorException e) {
             if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
                 // ok to continue
@@ -262,9 +283,6 @@ public class TerminologyProxyResource implements AbstractBaseResource {
             LOG.error(ERROR_CREATING_A_CONCEPT_IN_TERMINOLOGY_API, e);
             throw new UnreachableTerminologyApiException(ErrorConstants.ERR_MSG_CANT_REACH_TERMINOLOGY_API);
         }
-        final ObjectMapper mapper = new ObjectMapper();
-        mapper.setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
-
         try {
             meta.setCode(200);
             meta.setResultCount(1);
@@ -311,8 +329,6 @@ public class TerminologyProxyResource implements AbstractBaseResource {
         final Object responseBody = response.getBody();
         if (responseBody != null) {
             try {
-                final ObjectMapper mapper = new ObjectMapper();
-                mapper.setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
                 final String data = responseBody.toString();
                 final JsonNode jsonNode = mapper.readTree(data);
                 final String dataString;
@@ -335,8 +351,6 @@ public class TerminologyProxyResource implements AbstractBaseResource {
         final Object responseBody = response.getBody();
         if (responseBody != null) {
             try {
-                final ObjectMapper mapper = new ObjectMapper();
-                mapper.setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
                 final String data = responseBody.toString();
                 ConceptSuggestionResponse conceptSuggestionResponse = mapper.readValue(data, new TypeReference<ConceptSuggestionResponse>() {
                 });
@@ -353,8 +367,6 @@ public class TerminologyProxyResource implements AbstractBaseResource {
         final Object responseBody = response.getBody();
         if (responseBody != null) {
             try {
-                final ObjectMapper mapper = new ObjectMapper();
-                mapper.setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
                 final String data = responseBody.toString();
                 return mapper.readValue(data, new TypeReference<ConceptsResponseDTO>() {
                 });
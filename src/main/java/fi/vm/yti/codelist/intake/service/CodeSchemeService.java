@@ -53,6 +53,8 @@ public interface CodeSchemeService {
 
     void populateAllVersionsToCodeSchemeDTO(final CodeSchemeDTO codeSchemeDTO);
 
+    void populateAllVersionsToCodeSchemeDTOs(final Set<CodeSchemeDTO> codeSchemeDTOs);
+
     LinkedHashSet<CodeSchemeDTO> getPreviousVersions(final UUID uuid,
                                                      final LinkedHashSet<CodeSchemeDTO> result);
 
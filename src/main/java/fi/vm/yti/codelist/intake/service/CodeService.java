@@ -18,6 +18,9 @@ public interface CodeService {
 
     Set<CodeDTO> findAll(final PageRequest pageRequest);
 
+    Set<CodeDTO> findAllAfter(final UUID afterId,
+                              final int pageSize);
+
     CodeDTO findById(final UUID codeId);
 
     Set<CodeDTO> findByCodeSchemeId(final UUID codeSchemeId);
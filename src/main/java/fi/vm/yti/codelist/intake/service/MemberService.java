@@ -23,6 +23,9 @@ public interface MemberService {
 
     Set<MemberDTO> findAll(final PageRequest pageRequest);
 
+    Set<MemberDTO> findAllAfter(final UUID afterId,
+                                final int pageSize);
+
     MemberDTO findById(final UUID id);
 
     Set<MemberDTO> findByCodeId(final UUID id);
@@ -1,16 +1,12 @@
 package fi.vm.yti.codelist.intake.service.impl;
 
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 import javax.inject.Singleton;
 
@@ -18,8 +14,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import fi.vm.yti.codelist.common.dto.CodeDTO;
 import fi.vm.yti.codelist.common.dto.CodeSchemeDTO;
 import fi.vm.yti.codelist.common.dto.ErrorModel;
 import fi.vm.yti.codelist.common.dto.ExtensionDTO;
@@ -27,20 +21,17 @@ import fi.vm.yti.codelist.common.dto.ExternalReferenceDTO;
 import fi.vm.yti.codelist.common.model.CodeSchemeListItem;
 import fi.vm.yti.codelist.common.model.Status;
 import fi.vm.yti.codelist.intake.api.ApiUtils;
+import fi.vm.yti.codelist.intake.dao.CloneDao;
 import fi.vm.yti.codelist.intake.dao.CodeDao;
 import fi.vm.yti.codelist.intake.dao.CodeSchemeDao;
 import fi.vm.yti.codelist.intake.dao.ExtensionDao;
 import fi.vm.yti.codelist.intake.dao.ExternalReferenceDao;
-import fi.vm.yti.codelist.intake.dao.MemberDao;
 import fi.vm.yti.codelist.intake.exception.UnauthorizedException;
 import fi.vm.yti.codelist.intake.jpa.CodeSchemeRepository;
-import fi.vm.yti.codelist.intake.jpa.MemberRepository;
 import fi.vm.yti.codelist.intake.model.Code;
 import fi.vm.yti.codelist.intake.model.CodeScheme;
 import fi.vm.yti.codelist.intake.model.Extension;
 import fi.vm.yti.codelist.intake.model.ExternalReference;
-import fi.vm.yti.codelist.intake.model.Member;
-import fi.vm.yti.codelist.intake.model.MemberValue;
 import fi.vm.yti.codelist.intake.security.AuthorizationManager;
 import fi.vm.yti.codelist.intake.service.CloningService;
 import fi.vm.yti.codelist.intake.service.CodeSchemeService;
@@ -56,11 +47,10 @@ public class CloningServiceImpl implements CloningService {
     private final CodeDao codeDao;
     private final ExternalReferenceDao externalReferenceDao;
     private final ExtensionDao extensionDao;
-    private final MemberDao memberDao;
     private final AuthorizationManager authorizationManager;
     private final DtoMapperService dtoMapperService;
     private final ApiUtils apiUtils;
-    private final MemberRepository memberRepository;
+    private final CloneDao cloneDao;
 
     public CloningServiceImpl(final CodeSchemeRepository codeSchemeRepository,
                               final CodeSchemeService codeSchemeService,
@@ -71,8 +61,7 @@ public class CloningServiceImpl implements CloningService {
                               final AuthorizationManager authorizationManager,
                               final DtoMapperService dtoMapperService,
                               final ApiUtils apiUtils,
-                              final MemberDao memberDao,
-                              final MemberRepository memberRepository) {
+                              final CloneDao cloneDao) {
         this.codeSchemeRepository = codeSchemeRepository;
         this.codeSchemeService = codeSchemeService;
         this.codeSchemeDao = codeSchemeDao;
@@ -82,8 +71,7 @@ public class CloningServiceImpl implements CloningService {
         this.authorizationManager = authorizationManager;
         this.dtoMapperService = dtoMapperService;
         this.apiUtils = apiUtils;
-        this.memberDao = memberDao;
-        this.memberRepository = memberRepository;
+        this.cloneDao = cloneDao;
     }
 
     @Transactional
@@ -188,17 +176,14 @@ public class CloningServiceImpl implements CloningService {
 
         handleCodeSchemeExternalReferences(codeSchemeWithUserChangesFromUi, originalCodeScheme, externalReferenceMap);
 
-        final Set<Code> newCodes = handleCodes(codeSchemeWithUserChangesFromUi, originalCodeScheme.getCodes(), newCodeScheme, externalReferenceMap);
+        final Map<UUID, Extension> clonedExtensions = handleExtensions(newCodeScheme, originalCodeScheme.getExtensions());
 
-        final Set<Extension> originalExtensions = originalCodeScheme.getExtensions();
-
-        final Set<Extension> clonedExtensions = handleExtensions(newCodeScheme, originalExtensions);
+        final Map<UUID, UUID> codeIdMap = cloneDao.cloneCodeSchemeContent(originalCodeScheme, newCodeScheme, externalReferenceMap, clonedExtensions);
 
         if (!clonedExtensions.isEmpty()) {
-            handleMembers(originalExtensions, newCodes, originalCodeScheme, clonedExtensions);
             final Set<ExtensionDTO> extensionDTOS = new HashSet<>();
-            for (final Extension e : clonedExtensions) {
-                ExtensionDTO dto = dtoMapperService.mapExtensionDto(e, true);
+            for (final Extension e : clonedExtensions.values()) {
+                ExtensionDTO dto = dtoMapperService.mapExtensionDto(extensionDao.findById(e.getId()), true);
                 extensionDTOS.add(dto);
             }
             codeSchemeWithUserChangesFromUi.setExtensions(extensionDTOS);
@@ -208,9 +193,10 @@ public class CloningServiceImpl implements CloningService {
 
         //defaultCode is not coming in from the UI so we just take care of it here
         if (originalCodeScheme.getDefaultCode() != null) {
-            result.setDefaultCode(
-                dtoMapperService.mapDeepCodeDto(populateNewDefaultCode(originalCodeScheme, newCodeScheme,
-                    externalReferenceMap, newCodes)));
+            final Code newDefaultCode = populateNewDefaultCode(originalCodeScheme, newCodeScheme, codeIdMap);
+            if (newDefaultCode != null) {
+                result.setDefaultCode(dtoMapperService.mapDeepCodeDto(newDefaultCode));
+            }
         }
 
         return result;
@@ -219,17 +205,12 @@ public class CloningServiceImpl implements CloningService {
     @Transactional
     public Code populateNewDefaultCode(final CodeScheme originalCodeScheme,
                                        final CodeScheme newCodeScheme,
-                                       final Map<UUID, ExternalReference> externalReferenceMap,
-                                       final Set<Code> newCodes) {
-        UUID newDefauldCodeUuid = null;
-        for (Code newCode : newCodes) {
-            if (newCode.getCodeValue().equals(originalCodeScheme.getDefaultCode().getCodeValue())) {
-                newDefauldCodeUuid = newCode.getId();
-            }
+                                       final Map<UUID, UUID> codeIdMap) {
+        final UUID newDefaultCodeId = codeIdMap.get(originalCodeScheme.getDefaultCode().getId());
+        if (newDefaultCodeId == null) {
+            return null;
         }
-        Code newDefaultCode = cloneCode(originalCodeScheme.getDefaultCode(), newCodeScheme, externalReferenceMap);
-        newDefaultCode.setId(newDefauldCodeUuid);
-        codeDao.save(newDefaultCode);
+        final Code newDefaultCode = codeDao.findById(newDefaultCodeId);
         newCodeScheme.setDefaultCode(newDefaultCode);
         return newDefaultCode;
     }
@@ -237,113 +218,20 @@ public class CloningServiceImpl implements CloningService {
     @Transactional
     public LinkedHashSet<CodeScheme> getPreviousVersions(final UUID uuid,
                                                          final LinkedHashSet<CodeScheme> result) {
-        final CodeScheme prevVersion = codeSchemeDao.findById(uuid);
-        if (prevVersion == null) {
-            return result;
-        } else {
-            result.add(prevVersion);
-            if (prevVersion.getPrevCodeschemeId() == null) {
-                return result;
-            } else {
-                return getPreviousVersions(prevVersion.getPrevCodeschemeId(), result);
-            }
-        }
+        result.addAll(codeSchemeDao.findVersionChain(uuid));
+        return result;
     }
 
-    private Set<Extension> handleExtensions(final CodeScheme newCodeScheme,
-                                            final Set<Extension> originalExtensions) {
-        final Set<Extension> clonedExtensions = new HashSet<>();
+    private Map<UUID, Extension> handleExtensions(final CodeScheme newCodeScheme,
+                                                  final Set<Extension> originalExtensions) {
+        final Map<UUID, Extension> clonedExtensions = new HashMap<>();
         for (final Extension originalExtension : originalExtensions) {
-            clonedExtensions.add(cloneExtension(originalExtension, newCodeScheme));
+            clonedExtensions.put(originalExtension.getId(), cloneExtension(originalExtension, newCodeScheme));
         }
-        extensionDao.save(clonedExtensions);
+        extensionDao.save(new HashSet<>(clonedExtensions.values()));
         return clonedExtensions;
     }
 
-    private void handleMembers(final Set<Extension> originalExtensions,
-                               final Set<Code> newCodes,
-                               final CodeScheme originalCodeScheme,
-                               final Set<Extension> clonedExtensions) {
-        HashMap<String, Extension> originalToNewExtensionPointerMap = new HashMap<>();
-
-        for (Extension originalExtension : originalExtensions) {
-            String key = originalExtension.getCodeValue();
-            Extension value = null;
-            for (Extension clonedExtension : clonedExtensions) {
-                if (clonedExtension.getCodeValue().equals(key)) {
-                    value = clonedExtension;
-                }
-            }
-            originalToNewExtensionPointerMap.put(key, value);
-        }
-
-        for (Extension extension : originalExtensions) {
-            final HashSet<Member> newMembers = new HashSet<>();
-            Set<Member> originalMembers = memberDao.findByExtensionId(extension.getId());
-            Extension clonedExtension = originalToNewExtensionPointerMap.get(extension.getCodeValue());
-            HashMap<UUID, UUID> oldIdToNewIdPointerMap = new HashMap<>();
-            HashMap<UUID, UUID> oldIdToOldRelatedMemberIdMap = new HashMap<>();
-            HashMap<UUID, Member> newMembersMap = new HashMap<>();
-
-            for (final Member originalMember : originalMembers) {
-                final Member newMember = populateMember(newCodes, clonedExtension, new Date(System.currentTimeMillis()), originalMember, originalCodeScheme);
-                newMembers.add(newMember);
-                newMembersMap.put(newMember.getId(), newMember);
-                oldIdToNewIdPointerMap.put(originalMember.getId(), UUID.randomUUID());
-                oldIdToOldRelatedMemberIdMap.put(originalMember.getId(),
-                    originalMember.getRelatedMember() != null ?
-                        originalMember.getRelatedMember().getId() : null);
-            }
-
-            for (final Member newMember : newMembers) {
-                Member relatedMember = newMembersMap.get(oldIdToOldRelatedMemberIdMap.get(newMember.getId()));
-                newMember.setRelatedMember(relatedMember);
-                newMember.setId(oldIdToNewIdPointerMap.get(newMember.getId())); //Only at this point new UUIDs to everyone!!
-                newMember.setUri(apiUtils.createMemberUri(newMember));
-            }
-
-            Long nrOfItems = (long) newMembers.size();
-            Long nrOfItemsProcessed = 0L;
-            LinkedHashSet<Member> topLevel = new LinkedHashSet<>();
-
-            for (final Member member : newMembers) {
-                if (member.getRelatedMember() == null) {
-                    topLevel.add(member);
-                    nrOfItemsProcessed++;
-                }
-            }
-
-            final LinkedHashSet<Member> membersInOrderOfTheirLevelTopLevelFirst = new LinkedHashSet<>(topLevel);
-            if (nrOfItemsProcessed < nrOfItems) {
-                getNextLevelItemsOfMembers(newMembers, nrOfItemsProcessed, nrOfItems, topLevel, membersInOrderOfTheirLevelTopLevelFirst);
-            }
-
-            memberDao.save(membersInOrderOfTheirLevelTopLevelFirst);
-            clonedExtension.setMembers(membersInOrderOfTheirLevelTopLevelFirst);//order just to avoid referential integrity problems
-            extensionDao.save(clonedExtension);
-        }
-    }
-
-    private void getNextLevelItemsOfMembers(Set<Member> newMembers,
-                                            Long nrOfItemsProcessed,
-                                            Long nrOfItems,
-                                            LinkedHashSet<Member> currentLevelParents,
-                                            LinkedHashSet<Member> ordered) {
-        final LinkedHashSet<Member> newParents = new LinkedHashSet<>();
-
-        for (final Member member : newMembers) {
-            if (currentLevelParents.contains(member.getRelatedMember())) {
-                ordered.add(member);
-                newParents.add(member);
-                nrOfItemsProcessed++;
-            }
-        }
-
-        if (nrOfItemsProcessed < nrOfItems) {
-            getNextLevelItemsOfMembers(newMembers, nrOfItemsProcessed, nrOfItems, newParents, ordered);
-        }
-    }
-
     private Extension cloneExtension(final Extension original,
                                      final CodeScheme newCodeScheme) {
         final Extension copy = new Extension();
@@ -425,68 +313,6 @@ public class CloningServiceImpl implements CloningService {
         return result;
     }
 
-    private Member populateMember(final Set<Code> newCodes,
-                                  final Extension extension,
-                                  final Date timeStamp,
-                                  final Member originalMember,
-                                  final CodeScheme originalCodeScheme) {
-        final Member newMember = new Member();
-        getCodeForMember(newCodes, originalMember, newMember, originalCodeScheme);
-        newMember.setId(originalMember.getId());
-        newMember.setExtension(extension);
-        newMember.setOrder(originalMember.getOrder());
-        newMember.setSequenceId(memberRepository.getNextMemberSequenceId("seq_for_ext_" + extension.getId().toString().replaceAll("-", "_")));
-        newMember.setPrefLabel(originalMember.getPrefLabel());
-        newMember.setCreated(timeStamp);
-        newMember.setModified(timeStamp);
-        newMember.setStartDate(originalMember.getStartDate());
-        newMember.setEndDate(originalMember.getEndDate());
-
-        final Set<MemberValue> newMemberValues = new HashSet<>();
-
-        originalMember.getMemberValues().forEach(originalMemberValue -> {
-            MemberValue newMemberValue = new MemberValue();
-            newMemberValue.setId(UUID.randomUUID());
-            newMemberValue.setMember(newMember);
-            newMemberValue.setValue(originalMemberValue.getValue());
-            newMemberValue.setValueType(originalMemberValue.getValueType());
-            newMemberValue.setCreated(timeStamp);
-            newMemberValue.setModified(timeStamp);
-            newMemberValues.add(newMemberValue);
-        });
-
-        newMember.setMemberValues(newMemberValues);
-
-        return newMember;
-    }
-
-    /**
-     * If the code of the member we are copying is an inner code, that is, it is pointing to a code from the codescheme
-     * we are currently cloning (that is, making a new version of), then the code in the new member must point to the
-     * newly created code.
-     * <p>
-     * But if the code of the member we are copying points to somewhere else, that is perhaps to an older version of the
-     * codescheme, or to another codescheme entirely, then in that case we leave the code to point to that original
-     * location as is.
-     */
-    private void getCodeForMember(final Set<Code> newCodes,
-                                  final Member orig,
-                                  final Member newMember,
-                                  final CodeScheme codeSchemeWeAreCloningFrom) {
-        Optional<Code> desiredCodeToPopulateIntoTheNewExtension;
-        if (orig.getCode().getCodeScheme().getId().compareTo(codeSchemeWeAreCloningFrom.getId()) == 0) {
-            String codeValueOfTheOriginalCodeInTheExtension = orig.getCode().getCodeValue();
-            desiredCodeToPopulateIntoTheNewExtension =
-                newCodes.stream()
-                    .filter(code -> code.getCodeValue() != null &&
-                        code.getCodeValue().equals(codeValueOfTheOriginalCodeInTheExtension))
-                    .findFirst();
-            desiredCodeToPopulateIntoTheNewExtension.ifPresent(newMember::setCode);
-        } else {
-            newMember.setCode(orig.getCode());
-        }
-    }
-
     @Transactional
     public Map<UUID, ExternalReference> handleParentExternalReferences(final CodeScheme originalCodeScheme,
                                                                        final CodeScheme newCodeScheme) {
@@ -521,84 +347,6 @@ public class CloningServiceImpl implements CloningService {
         codeSchemeWithUserChangesFromUi.setExternalReferences(extRefDtos);
     }
 
-    @SuppressFBWarnings({ "UC_USELESS_OBJECT" })
-    private Set<Code> handleCodes(final CodeSchemeDTO codeSchemeWithUserChangesFromUi,
-                                  final Set<Code> originalCodes,
-                                  final CodeScheme newCodeScheme,
-                                  final Map<UUID, ExternalReference> externalReferenceMap) {
-        final Set<Code> clonedCodes = new HashSet<>();
-
-        final Map<UUID, Code> originalCodesMap = originalCodes.stream().collect(Collectors.toMap(Code::getId, code -> code));
-
-        final Map<String, Code> clonedCodesByCodeValueMap = new HashMap<>();
-
-        //needed to match kid to parent in hierarchical codeschemes (mapping is based on codeValue)
-        final Map<String, String> childToParentPointerMap = new HashMap<>();
-
-        final Set<CodeDTO> clonedCodeDTOs = new HashSet<>();
-
-        for (final Code code : originalCodes) {
-            final Code clonedCode = cloneCode(code, newCodeScheme, externalReferenceMap);
-            if (clonedCode.getBroaderCode() != null) {
-                childToParentPointerMap.put(clonedCode.getCodeValue(), originalCodesMap.get(clonedCode.getBroaderCode().getId()).getCodeValue());
-            }
-            clonedCodesByCodeValueMap.put(clonedCode.getCodeValue(), clonedCode);
-            clonedCodes.add(clonedCode);
-        }
-
-        for (final Code clonedCode : clonedCodes) {
-            if (childToParentPointerMap.keySet().contains(clonedCode.getCodeValue())) {
-                final String parentCodeValue = childToParentPointerMap.get(clonedCode.getCodeValue());
-                final Code parentCode = clonedCodesByCodeValueMap.get(parentCodeValue);
-                clonedCode.setBroaderCode(parentCode);
-            }
-        }
-
-        final Long nrOfItems = (long) clonedCodes.size();
-        Long nrOfItemsProcessed = 0L;
-        final LinkedHashSet<Code> topLevel = new LinkedHashSet<>();
-        for (final Code code : clonedCodes) {
-            if (code.getBroaderCode() == null) {
-                topLevel.add(code);
-                nrOfItemsProcessed++;
-            }
-        }
-        final LinkedHashSet<Code> codesInOrderOfTheirLevelTopLevelFirst = new LinkedHashSet<>(topLevel);
-        final LinkedHashSet<Code> currentLevelParents = topLevel;
-        if (nrOfItemsProcessed < nrOfItems) {
-            getNextLevelItemsOfCodes(clonedCodes, nrOfItemsProcessed, nrOfItems, currentLevelParents, codesInOrderOfTheirLevelTopLevelFirst);
-        }
-        final List<Code> orderedCodes = new ArrayList<>(codesInOrderOfTheirLevelTopLevelFirst);
-        orderedCodes.forEach(code -> {
-            codeDao.save(code);
-            final CodeDTO clonedCodeDTO = dtoMapperService.mapDeepCodeDto(code);
-            clonedCodeDTOs.add(clonedCodeDTO);
-        });
-
-        codeSchemeWithUserChangesFromUi.setCodes(clonedCodeDTOs);
-        return clonedCodes;
-    }
-
-    private void getNextLevelItemsOfCodes(Set<Code> codes,
-                                          Long nrOfItemsProcessed,
-                                          Long nrOfItems,
-                                          LinkedHashSet<Code> currentLevelParents,
-                                          LinkedHashSet<Code> ordered) {
-        final LinkedHashSet<Code> newParents = new LinkedHashSet<>();
-
-        for (Code code : codes) {
-            if (currentLevelParents.contains(code.getBroaderCode())) {
-                ordered.add(code);
-                newParents.add(code);
-                nrOfItemsProcessed++;
-            }
-        }
-
-        if (nrOfItemsProcessed < nrOfItems) {
-            getNextLevelItemsOfCodes(codes, nrOfItemsProcessed, nrOfItems, newParents, ordered);
-        }
-    }
-
     @Transactional
     public CodeScheme findById(final UUID id) {
         return codeSchemeRepository.findById(id);
@@ -626,40 +374,4 @@ public class CloningServiceImpl implements CloningService {
         copy.setModified(timeStamp);
         return copy;
     }
-
-    @Transactional
-    public Code cloneCode(final Code original,
-                          final CodeScheme newCodeScheme,
-                          final Map<UUID, ExternalReference> externalReferenceMap) {
-        final Code copy = new Code();
-        copy.setId(UUID.randomUUID());
-        copy.setCodeScheme(newCodeScheme);
-        copy.setCodeValue(original.getCodeValue());
-        copy.setConceptUriInVocabularies(original.getConceptUriInVocabularies());
-        copy.setBroaderCode(original.getBroaderCode());
-        copy.setHierarchyLevel(original.getHierarchyLevel());
-        copy.setDefinition(original.getDefinition());
-        copy.setDescription(original.getDescription());
-        copy.setOrder(original.getOrder());
-        copy.setPrefLabel(original.getPrefLabel());
-        copy.setShortName(original.getShortName());
-        final Set<ExternalReference> externalReferences = new HashSet<>();
-        original.getExternalReferences().forEach(originalExternalReference -> {
-            if (!originalExternalReference.getGlobal()) {
-                externalReferences.add(externalReferenceMap.get(originalExternalReference.getId()));
-            } else {
-                externalReferences.add(originalExternalReference);
-            }
-        });
-        copy.setExternalReferences(externalReferences);
-        copy.setMembers(original.getMembers());
-        copy.setStatus(Status.DRAFT.toString());
-        copy.setEndDate(original.getEndDate());
-        copy.setStartDate(original.getStartDate());
-        copy.setUri(apiUtils.createCodeUri(copy));
-        final Date timeStamp = new Date(System.currentTimeMillis());
-        copy.setCreated(timeStamp);
-        copy.setModified(timeStamp);
-        return copy;
-    }
 }
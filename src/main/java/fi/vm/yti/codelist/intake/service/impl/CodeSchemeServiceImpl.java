@@ -683,30 +683,65 @@ public class CodeSchemeServiceImpl implements CodeSchemeService, AbstractBaseSer
         if (currentCodeScheme.getLastCodeschemeId() == null) {
             return;
         }
-        LinkedHashSet<CodeSchemeDTO> allVersions = new LinkedHashSet<>();
-        CodeSchemeDTO latestVersion;
-        latestVersion = this.findById(currentCodeScheme.getLastCodeschemeId());
-        allVersions = getPreviousVersions(latestVersion.getId(), allVersions);
-        LinkedHashSet<CodeSchemeListItem> versionHistory = new LinkedHashSet<>();
-        for (CodeSchemeDTO version : allVersions) {
-            CodeSchemeListItem listItem = new CodeSchemeListItem(version.getId(), version.getPrefLabel(), version.getCodeValue(), version.getUri(), version.getStartDate(), version.getEndDate(), version.getStatus());
-            versionHistory.add(listItem);
+        final LinkedHashSet<CodeSchemeListItem> versionHistory = new LinkedHashSet<>();
+        for (final CodeScheme version : codeSchemeDao.findVersionChain(currentCodeScheme.getLastCodeschemeId())) {
+            versionHistory.add(new CodeSchemeListItem(version.getId(), version.getPrefLabel(), version.getCodeValue(), version.getUri(), version.getStartDate(), version.getEndDate(), version.getStatus()));
         }
         currentCodeScheme.setAllVersions(versionHistory);
     }
 
+    /**
+     * Populates the version histories of a set of code schemes, typically all of them during a full reindex.
+     * <p>
+     * The version graph is built once from the given code schemes by following the previous version links in memory,
+     * and each history is shared between the versions of the same chain. Chains that reach outside the given set are
+     * resolved from the database.
+     */
+    @Transactional
+    public void populateAllVersionsToCodeSchemeDTOs(final Set<CodeSchemeDTO> codeSchemes) {
+        final Map<UUID, CodeSchemeDTO> codeSchemesById = new HashMap<>();
+        codeSchemes.forEach(codeScheme -> codeSchemesById.put(codeScheme.getId(), codeScheme));
+        final Map<UUID, LinkedHashSet<CodeSchemeListItem>> versionHistories = new HashMap<>();
+        for (final CodeSchemeDTO codeScheme : codeSchemes) {
+            final UUID lastCodeSchemeId = codeScheme.getLastCodeschemeId();
+            if (lastCodeSchemeId == null) {
+                continue;
+            }
+            LinkedHashSet<CodeSchemeListItem> versionHistory = versionHistories.get(lastCodeSchemeId);
+            if (versionHistory == null) {
+                versionHistory = resolveVersionHistory(lastCodeSchemeId, codeSchemesById);
+                if (versionHistory == null) {
+                    populateAllVersionsToCodeSchemeDTO(codeScheme);
+                    versionHistory = codeScheme.getAllVersions();
+                }
+                versionHistories.put(lastCodeSchemeId, versionHistory);
+            }
+            codeScheme.setAllVersions(new LinkedHashSet<>(versionHistory));
+        }
+    }
+
+    @Nullable
+    private LinkedHashSet<CodeSchemeListItem> resolveVersionHistory(final UUID lastCodeSchemeId,
+                                                                    final Map<UUID, CodeSchemeDTO> codeSchemesById) {
+        final LinkedHashSet<CodeSchemeListItem> versionHistory = new LinkedHashSet<>();
+        final Set<UUID> visited = new HashSet<>();
+        UUID versionId = lastCodeSchemeId;
+        while (versionId != null && visited.add(versionId)) {
+            final CodeSchemeDTO version = codeSchemesById.get(versionId);
+            if (version == null) {
+                return null;
+            }
+            versionHistory.add(new CodeSchemeListItem(version.getId(), version.getPrefLabel(), version.getCodeValue(), version.getUri(), version.getStartDate(), version.getEndDate(), version.getStatus()));
+            versionId = version.getPrevCodeschemeId();
+        }
+        return versionHistory;
+    }
+
     @Transactional
-    @SuppressFBWarnings("RCN_REDUNDANT_NULLCHECK_OF_NONNULL_VALUE")
     public LinkedHashSet<CodeSchemeDTO> getPreviousVersions(final UUID uuid,
                                                             final LinkedHashSet<CodeSchemeDTO> result) {
-        CodeSchemeDTO prevVersion = this.findById(uuid);
-        if (prevVersion != null) {
-            result.add(prevVersion);
-            if (prevVersion.getPrevCodeschemeId() == null) {
-                return result;
-            } else {
-                return getPreviousVersions(prevVersion.getPrevCodeschemeId(), result);
-            }
+        for (final CodeScheme version : codeSchemeDao.findVersionChain(uuid)) {
+            result.add(dtoMapperService.mapDeepCodeSchemeDto(version));
         }
         return result;
     }
@@ -820,9 +855,7 @@ public class CodeSchemeServiceImpl implements CodeSchemeService, AbstractBaseSer
         LinkedHashSet<CodeSchemeDTO> allVersions = new LinkedHashSet<>();
         allVersions = this.getPreviousVersions(currentCodeScheme.getLastCodeschemeId(), allVersions);
 
-        for (final CodeSchemeDTO aVersion : allVersions) {
-            this.populateAllVersionsToCodeSchemeDTO(aVersion);
-        }
+        this.populateAllVersionsToCodeSchemeDTOs(allVersions);
         codeSchemeDTOsToIndex.addAll(allVersions);
     }
 }
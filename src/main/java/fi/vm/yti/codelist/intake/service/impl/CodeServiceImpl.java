@@ -91,6 +91,12 @@ public class CodeServiceImpl implements CodeService, AbstractBaseService {
         return dtoMapperService.mapDeepCodeDtos(codes);
     }
 
+    @Transactional
+    public Set<CodeDTO> findAllAfter(final UUID afterId,
+                                     final int pageSize) {
+        return dtoMapperService.mapDeepCodeDtos(codeDao.findAllAfter(afterId, pageSize));
+    }
+
     @Transactional
     public int getCodeCount() {
         return codeDao.getCodeCount();
@@ -5,6 +5,8 @@ import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -43,6 +45,13 @@ import fi.vm.yti.codelist.intake.model.ValueType;
 import static fi.vm.yti.codelist.common.constants.ApiConstants.CODE_EXTENSION;
 import static fi.vm.yti.codelist.intake.exception.ErrorConstants.ERR_MSG_USER_406;
 
+/**
+ * Maps entities to DTOs.
+ * <p>
+ * The set mapping methods share a {@link MappingCache} across the whole set, so that sub-DTOs common to many entities,
+ * such as the code scheme of codes or the extension and property type of members, are mapped once per set and reused.
+ * Lazy associations are prefetched in batches through the entity level batch fetch configuration.
+ */
 @Component
 @Singleton
 public class DtoMapperService {
@@ -72,6 +81,14 @@ public class DtoMapperService {
                               final boolean deep,
                               final boolean includeCodeScheme,
                               final boolean includeBroaderCode) {
+        return mapCodeDto(code, deep, includeCodeScheme, includeBroaderCode, new MappingCache());
+    }
+
+    private CodeDTO mapCodeDto(final Code code,
+                               final boolean deep,
+                               final boolean includeCodeScheme,
+                               final boolean includeBroaderCode,
+                               final MappingCache cache) {
         final CodeDTO codeDto = new CodeDTO();
         codeDto.setId(code.getId());
         codeDto.setCodeValue(code.getCodeValue());
@@ -87,7 +104,7 @@ public class DtoMapperService {
         codeDto.setPrefLabel(copyStringMap(code.getPrefLabel()));
         codeDto.setDefinition(copyStringMap(code.getDefinition()));
         if (includeCodeScheme) {
-            codeDto.setCodeScheme(mapCodeSchemeDto(code.getCodeScheme(), false, true));
+            codeDto.setCodeScheme(cache.codeSchemeDto(code.getCodeScheme(), codeScheme -> mapCodeSchemeDto(codeScheme, false, true)));
             codeDto.setUrl(apiUtils.createCodeUrl(codeDto));
         } else {
             codeDto.setUrl(apiUtils.createCodeUrl(code.getCodeScheme().getCodeRegistry().getCodeValue(), code.getCodeScheme().getCodeValue(), codeDto.getCodeValue()));
@@ -101,7 +118,7 @@ public class DtoMapperService {
                 codeDto.setExternalReferences(mapExternalReferenceDtos(code.getExternalReferences(), false));
             }
             if (code.getMembers() != null) {
-                codeDto.setMembers(mapMemberDtos(code.getMembers().stream().filter(member -> CODE_EXTENSION.equalsIgnoreCase(member.getExtension().getPropertyType().getContext())).collect(Collectors.toSet()), false));
+                codeDto.setMembers(mapMemberDtos(code.getMembers().stream().filter(member -> CODE_EXTENSION.equalsIgnoreCase(member.getExtension().getPropertyType().getContext())).collect(Collectors.toSet()), false, cache));
             }
             if (code.getCodeScheme().getExtensions() != null && !code.getCodeScheme().getExtensions().isEmpty()) {
                 final Set<Extension> codeExtensions = code.getCodeScheme().getExtensions().stream().filter(extension -> CODE_EXTENSION.equalsIgnoreCase(extension.getPropertyType().getContext())).collect(Collectors.toSet());
@@ -127,7 +144,8 @@ public class DtoMapperService {
                                     final boolean includeCodeScheme) {
         final Set<CodeDTO> codeDtos = new HashSet<>();
         if (codes != null && !codes.isEmpty()) {
-            codes.forEach(code -> codeDtos.add(mapCodeDto(code, deep, includeCodeScheme, true)));
+            final MappingCache cache = new MappingCache();
+            codes.forEach(code -> codeDtos.add(mapCodeDto(code, deep, includeCodeScheme, true, cache)));
         }
         return codeDtos;
     }
@@ -409,9 +427,14 @@ public class DtoMapperService {
 
     @Transactional
     public Set<MemberValueDTO> mapMemberValueDtos(final Set<MemberValue> memberValues) {
+        return mapMemberValueDtos(memberValues, new MappingCache());
+    }
+
+    private Set<MemberValueDTO> mapMemberValueDtos(final Set<MemberValue> memberValues,
+                                                   final MappingCache cache) {
         final Set<MemberValueDTO> memberValueDtos = new HashSet<>();
         if (memberValues != null && !memberValues.isEmpty()) {
-            memberValues.forEach(memberValue -> memberValueDtos.add(mapMemberValueDto(memberValue, false)));
+            memberValues.forEach(memberValue -> memberValueDtos.add(mapMemberValueDto(memberValue, false, cache)));
         }
         return memberValueDtos;
     }
@@ -424,12 +447,18 @@ public class DtoMapperService {
     @Transactional
     public MemberValueDTO mapMemberValueDto(final MemberValue memberValue,
                                             final boolean deep) {
+        return mapMemberValueDto(memberValue, deep, new MappingCache());
+    }
+
+    private MemberValueDTO mapMemberValueDto(final MemberValue memberValue,
+                                             final boolean deep,
+                                             final MappingCache cache) {
         final MemberValueDTO memberValueDto = new MemberValueDTO();
         memberValueDto.setId(memberValue.getId());
         memberValueDto.setCreated(memberValue.getCreated());
         memberValueDto.setModified(memberValue.getModified());
         memberValueDto.setValue(memberValue.getValue());
-        memberValueDto.setValueType(mapValueTypeDto(memberValue.getValueType()));
+        memberValueDto.setValueType(cache.valueTypeDto(memberValue.getValueType(), this::mapValueTypeDto));
         if (deep) {
             memberValueDto.setMember(mapMemberDto(memberValue.getMember()));
         }
@@ -449,21 +478,27 @@ public class DtoMapperService {
     @Transactional
     public MemberDTO mapMemberDto(final Member member,
                                   final boolean deep) {
+        return mapMemberDto(member, deep, new MappingCache());
+    }
+
+    private MemberDTO mapMemberDto(final Member member,
+                                   final boolean deep,
+                                   final MappingCache cache) {
         final MemberDTO memberDto = new MemberDTO();
         memberDto.setId(member.getId());
         memberDto.setOrder(member.getOrder());
         memberDto.setSequenceId(member.getSequenceId());
-        memberDto.setCode(mapCodeDto(member.getCode(), false, true, false));
+        memberDto.setCode(mapCodeDto(member.getCode(), false, true, false, cache));
         memberDto.setPrefLabel(copyStringMap(member.getPrefLabel()));
         if (member.getMemberValues() != null && !member.getMemberValues().isEmpty()) {
-            memberDto.setMemberValues(mapMemberValueDtos(member.getMemberValues()));
+            memberDto.setMemberValues(mapMemberValueDtos(member.getMemberValues(), cache));
         }
         if (deep) {
             if (member.getRelatedMember() != null) {
-                memberDto.setRelatedMember(mapMemberDto(member.getRelatedMember(), false));
+                memberDto.setRelatedMember(mapMemberDto(member.getRelatedMember(), false, cache));
             }
             if (member.getExtension() != null) {
-                memberDto.setExtension(mapExtensionDto(member.getExtension(), false, true, true));
+                memberDto.setExtension(cache.extensionDto(member.getExtension(), extension -> mapExtensionDto(extension, false, true, true, cache)));
             }
         }
         memberDto.setUri(member.getUri());
@@ -483,9 +518,15 @@ public class DtoMapperService {
     @Transactional
     public Set<MemberDTO> mapMemberDtos(final Set<Member> members,
                                         final boolean deep) {
+        return mapMemberDtos(members, deep, new MappingCache());
+    }
+
+    private Set<MemberDTO> mapMemberDtos(final Set<Member> members,
+                                         final boolean deep,
+                                         final MappingCache cache) {
         final Set<MemberDTO> memberDtos = new HashSet<>();
         if (members != null && !members.isEmpty()) {
-            members.forEach(member -> memberDtos.add(mapMemberDto(member, deep)));
+            members.forEach(member -> memberDtos.add(mapMemberDto(member, deep, cache)));
         }
         return memberDtos;
     }
@@ -511,9 +552,17 @@ public class DtoMapperService {
                                         final boolean deep,
                                         final boolean includeParentCodeScheme,
                                         final boolean includeCodeSchemes) {
+        return mapExtensionDto(extension, deep, includeParentCodeScheme, includeCodeSchemes, new MappingCache());
+    }
+
+    private ExtensionDTO mapExtensionDto(final Extension extension,
+                                         final boolean deep,
+                                         final boolean includeParentCodeScheme,
+                                         final boolean includeCodeSchemes,
+                                         final MappingCache cache) {
         final ExtensionDTO extensionDto = new ExtensionDTO();
         extensionDto.setId(extension.getId());
-        extensionDto.setPropertyType(mapPropertyTypeDto(extension.getPropertyType()));
+        extensionDto.setPropertyType(cache.propertyTypeDto(extension.getPropertyType(), this::mapPropertyTypeDto));
         extensionDto.setPrefLabel(copyStringMap(extension.getPrefLabel()));
         extensionDto.setStatus(extension.getStatus());
         final String codeValue = extension.getCodeValue();
@@ -523,14 +572,14 @@ public class DtoMapperService {
         extensionDto.setStartDate(extension.getStartDate());
         extensionDto.setEndDate(extension.getEndDate());
         if ((deep || includeParentCodeScheme) && extension.getParentCodeScheme() != null) {
-            extensionDto.setParentCodeScheme(mapCodeSchemeDto(extension.getParentCodeScheme(), false, true));
+            extensionDto.setParentCodeScheme(cache.codeSchemeDto(extension.getParentCodeScheme(), codeScheme -> mapCodeSchemeDto(codeScheme, false, true)));
         }
         if ((deep || includeCodeSchemes) && extension.getCodeSchemes() != null) {
             extensionDto.setCodeSchemes(mapCodeSchemeDtos(extension.getCodeSchemes(), false));
         }
 
         if (deep && extension.getMembers() != null) {
-            extensionDto.setMembers(mapMemberDtos(extension.getMembers(), false));
+            extensionDto.setMembers(mapMemberDtos(extension.getMembers(), false, cache));
         }
         if (extension.getParentCodeScheme() == null || extension.getParentCodeScheme().getCodeRegistry() == null) {
             throw new UnauthorizedException(new ErrorModel(HttpStatus.NOT_ACCEPTABLE.value(), ERR_MSG_USER_406));
@@ -552,7 +601,8 @@ public class DtoMapperService {
                                               final boolean deep) {
         final Set<ExtensionDTO> extensionDtos = new HashSet<>();
         if (extensions != null && !extensions.isEmpty()) {
-            extensions.forEach(extension -> extensionDtos.add(mapExtensionDto(extension, deep)));
+            final MappingCache cache = new MappingCache();
+            extensions.forEach(extension -> extensionDtos.add(mapExtensionDto(extension, deep, false, false, cache)));
         }
         return extensionDtos;
     }
@@ -626,4 +676,47 @@ public class DtoMapperService {
         }
         return null;
     }
+
+    /**
+     * Sub-DTOs mapped during a single mapping call, keyed by entity id.
+     */
+    private static final class MappingCache {
+
+        private final Map<UUID, CodeSchemeDTO> codeSchemes = new HashMap<>();
+        private final Map<UUID, ExtensionDTO> extensions = new HashMap<>();
+        private final Map<UUID, PropertyTypeDTO> propertyTypes = new HashMap<>();
+        private final Map<UUID, ValueTypeDTO> valueTypes = new HashMap<>();
+
+        private CodeSchemeDTO codeSchemeDto(final CodeScheme codeScheme,
+                                            final Function<CodeScheme, CodeSchemeDTO> mapper) {
+            return getOrMap(codeSchemes, codeScheme.getId(), codeScheme, mapper);
+        }
+
+        private ExtensionDTO extensionDto(final Extension extension,
+                                          final Function<Extension, ExtensionDTO> mapper) {
+            return getOrMap(extensions, extension.getId(), extension, mapper);
+        }
+
+        private PropertyTypeDTO propertyTypeDto(final PropertyType propertyType,
+                                                final Function<PropertyType, PropertyTypeDTO> mapper) {
+            return getOrMap(propertyTypes, propertyType.getId(), propertyType, mapper);
+        }
+
+        private ValueTypeDTO valueTypeDto(final ValueType valueType,
+                                          final Function<ValueType, ValueTypeDTO> mapper) {
+            return getOrMap(valueTypes, valueType.getId(), valueType, mapper);
+        }
+
+        private static <E, D> D getOrMap(final Map<UUID, D> dtos,
+                                         final UUID id,
+                                         final E entity,
+                                         final Function<E, D> mapper) {
+            D dto = dtos.get(id);
+            if (dto == null) {
+                dto = mapper.apply(entity);
+                dtos.put(id, dto);
+            }
+            return dto;
+        }
+    }
 }
@@ -100,6 +100,12 @@ public class MemberServiceImpl implements MemberService {
         return dtoMapperService.mapDeepMemberDtos(members);
     }
 
+    @Transactional
+    public Set<MemberDTO> findAllAfter(final UUID afterId,
+                                       final int pageSize) {
+        return dtoMapperService.mapDeepMemberDtos(memberDao.findAllAfter(afterId, pageSize));
+    }
+
     @Transactional
     public MemberDTO findById(final UUID id) {
         return dtoMapperService.mapDeepMemberDto(memberDao.findById(id));
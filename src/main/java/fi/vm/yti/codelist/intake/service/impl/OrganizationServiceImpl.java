@@ -1,7 +1,11 @@
 package fi.vm.yti.codelist.intake.service.impl;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 
@@ -18,12 +22,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import com.google.common.base.Stopwatch;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import fi.vm.yti.codelist.common.dto.OrganizationDTO;
+import fi.vm.yti.codelist.intake.cache.ReferenceDataCache;
 import fi.vm.yti.codelist.intake.dto.GroupManagementOrganizationDTO;
+import fi.vm.yti.codelist.intake.exception.JsonParsingException;
 import fi.vm.yti.codelist.intake.jpa.OrganizationRepository;
 import fi.vm.yti.codelist.intake.model.Organization;
 import fi.vm.yti.codelist.intake.service.OrganizationService;
+import static fi.vm.yti.codelist.intake.exception.ErrorConstants.ERR_MSG_USER_ORGANIZATION_PARSING_FAILED;
 
 @Singleton
 @Service
@@ -32,12 +38,15 @@ public class OrganizationServiceImpl implements OrganizationService {
     private static final Logger LOG = LoggerFactory.getLogger(OrganizationServiceImpl.class);
     private final OrganizationRepository organizationRepository;
     private final DtoMapperService dtoMapperService;
+    private final ReferenceDataCache referenceDataCache;
 
     @Inject
     public OrganizationServiceImpl(final OrganizationRepository organizationRepository,
-                                   final DtoMapperService dtoMapperService) {
+                                   final DtoMapperService dtoMapperService,
+                                   final ReferenceDataCache referenceDataCache) {
         this.organizationRepository = organizationRepository;
         this.dtoMapperService = dtoMapperService;
+        this.referenceDataCache = referenceDataCache;
     }
 
     @Transactional
@@ -64,12 +73,11 @@ public class OrganizationServiceImpl implements OrganizationService {
     }
 
     @Transactional
-    @SuppressFBWarnings("DLS_DEAD_LOCAL_STORE")
     public Set<OrganizationDTO> parseAndPersistGroupManagementOrganizationsFromJson(final String jsonPayload) {
         final Stopwatch watch = Stopwatch.createStarted();
         final ObjectMapper mapper = new ObjectMapper();
         mapper.setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
-        Set<GroupManagementOrganizationDTO> groupManagementOrganizations = new HashSet<>();
+        final Set<GroupManagementOrganizationDTO> groupManagementOrganizations;
         try {
             groupManagementOrganizations = mapper.readValue(jsonPayload, new TypeReference<Set<GroupManagementOrganizationDTO>>() {
             });
@@ -77,47 +85,57 @@ public class OrganizationServiceImpl implements OrganizationService {
             watch.reset().start();
         } catch (final IOException e) {
             LOG.error("Organization fetching and processing failed!", e);
+            throw new JsonParsingException(ERR_MSG_USER_ORGANIZATION_PARSING_FAILED);
         }
-        final Set<Organization> organizations = new HashSet<>();
+        final Map<UUID, Organization> organizationsById = new HashMap<>();
+        organizationRepository.findAll().forEach(organization -> organizationsById.put(organization.getId(), organization));
+        final Set<Organization> changedOrganizations = new HashSet<>();
         for (final GroupManagementOrganizationDTO groupManagementOrganization : groupManagementOrganizations) {
-            final Organization organization = createOrUpdateOrganizationFromGroupManagementOrganizationDto(groupManagementOrganization);
-            if (organization.getCodeRegistries() != null) {
-                // Below used to resolve lazy
-                final Integer size = organization.getCodeRegistries().size();
+            organizationsById.computeIfAbsent(groupManagementOrganization.getUuid(), id -> {
+                final Organization organization = new Organization();
+                organization.setId(id);
+                changedOrganizations.add(organization);
+                return organization;
+            });
+        }
+        for (final GroupManagementOrganizationDTO groupManagementOrganization : groupManagementOrganizations) {
+            final Organization organization = organizationsById.get(groupManagementOrganization.getUuid());
+            final Organization parent = findParentOrganization(groupManagementOrganization, organizationsById);
+            if (changedOrganizations.contains(organization) || !hasSameContent(organization, groupManagementOrganization, parent)) {
+                organization.setUrl(groupManagementOrganization.getUrl());
+                organization.setPrefLabel(groupManagementOrganization.getPrefLabel());
+                organization.setDescription(groupManagementOrganization.getDescription());
+                organization.setRemoved(groupManagementOrganization.getRemoved());
+                organization.setParent(parent);
+                changedOrganizations.add(organization);
             }
-            organizations.add(organization);
         }
-        if (!organizations.isEmpty()) {
-            organizationRepository.saveAll(organizations);
+        if (!changedOrganizations.isEmpty()) {
+            organizationRepository.saveAll(changedOrganizations);
+            referenceDataCache.evictOrganizations();
         }
-        return dtoMapperService.mapOrganizationDtos(organizations, true);
+        LOG.info("Organization data compared: " + changedOrganizations.size() + " of " + groupManagementOrganizations.size() + " Organizations changed in " + watch);
+        return dtoMapperService.mapOrganizationDtos(changedOrganizations, false);
     }
 
-    private Organization createOrUpdateOrganizationFromGroupManagementOrganizationDto(final GroupManagementOrganizationDTO groupManagementOrganizationDto) {
-        final Organization existingOrganization = organizationRepository.findById(groupManagementOrganizationDto.getUuid());
-        final Organization organization;
-        if (existingOrganization != null) {
-            existingOrganization.setUrl(groupManagementOrganizationDto.getUrl());
-            existingOrganization.setPrefLabel(groupManagementOrganizationDto.getPrefLabel());
-            existingOrganization.setDescription(groupManagementOrganizationDto.getDescription());
-            existingOrganization.setRemoved(groupManagementOrganizationDto.getRemoved());
-            existingOrganization.setParent(findParentOrganization(groupManagementOrganizationDto));
-            organization = existingOrganization;
-        } else {
-            organization = new Organization();
-            organization.setId(groupManagementOrganizationDto.getUuid());
-            organization.setUrl(groupManagementOrganizationDto.getUrl());
-            organization.setPrefLabel(groupManagementOrganizationDto.getPrefLabel());
-            organization.setDescription(groupManagementOrganizationDto.getDescription());
-            organization.setRemoved(groupManagementOrganizationDto.getRemoved());
-            organization.setParent(findParentOrganization(groupManagementOrganizationDto));
-        }
-        return organization;
+    private boolean hasSameContent(final Organization organization,
+                                   final GroupManagementOrganizationDTO groupManagementOrganizationDto,
+                                   final Organization parent) {
+        return Objects.equals(organization.getUrl(), groupManagementOrganizationDto.getUrl()) &&
+            Objects.equals(organization.getRemoved(), groupManagementOrganizationDto.getRemoved()) &&
+            Objects.equals(nullToEmpty(organization.getPrefLabel()), nullToEmpty(groupManagementOrganizationDto.getPrefLabel())) &&
+            Objects.equals(nullToEmpty(organization.getDescription()), nullToEmpty(groupManagementOrganizationDto.getDescription())) &&
+            Objects.equals(organization.getParent() != null ? organization.getParent().getId() : null, parent != null ? parent.getId() : null);
+    }
+
+    private Map<String, String> nullToEmpty(final Map<String, String> map) {
+        return map != null ? map : Collections.emptyMap();
     }
 
-    private Organization findParentOrganization(GroupManagementOrganizationDTO groupManagementOrganizationDTO) {
+    private Organization findParentOrganization(final GroupManagementOrganizationDTO groupManagementOrganizationDTO,
+                                                final Map<UUID, Organization> organizationsById) {
         if (groupManagementOrganizationDTO.getParentId() != null) {
-            Organization parent = organizationRepository.findById(groupManagementOrganizationDTO.getParentId());
+            final Organization parent = organizationsById.get(groupManagementOrganizationDTO.getParentId());
             if (parent == null) {
                 LOG.warn("Parent organization does not exist {}", groupManagementOrganizationDTO.getParentId());
             } else {
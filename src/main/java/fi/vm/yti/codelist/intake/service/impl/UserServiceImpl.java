@@ -1,25 +1,36 @@
 package fi.vm.yti.codelist.intake.service.impl;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.inject.Inject;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
 import fi.vm.yti.codelist.intake.configuration.GroupManagementProperties;
 import fi.vm.yti.codelist.intake.dto.UserDTO;
+import fi.vm.yti.codelist.intake.groupmanagement.ConditionalRequestState;
+import fi.vm.yti.codelist.intake.groupmanagement.GroupManagementSyncStatus;
+import fi.vm.yti.codelist.intake.integration.IntegrationGuards;
 import fi.vm.yti.codelist.intake.service.UserService;
 import static org.springframework.http.HttpMethod.GET;
 
+/**
+ * In-memory user directory synced from group management.
+ * <p>
+ * Users are held in an immutable snapshot that each sync builds off to the side and publishes with a single reference
+ * swap, so lookups never lock and never see a partially updated directory, and users removed upstream disappear.
+ */
 @Component
 public class UserServiceImpl implements UserService {
 
@@ -28,16 +39,22 @@ public class UserServiceImpl implements UserService {
 
     private static final Logger LOG = LoggerFactory.getLogger(UserServiceImpl.class);
 
-    private final Map<UUID, UserDTO> users;
+    private final ConditionalRequestState conditionalRequestState = new ConditionalRequestState();
+    private final AtomicReference<Map<UUID, UserDTO>> users = new AtomicReference<>(Collections.emptyMap());
     private final GroupManagementProperties groupManagementProperties;
     private final RestTemplate restTemplate;
+    private final IntegrationGuards integrationGuards;
+    private final GroupManagementSyncStatus groupManagementSyncStatus;
 
     @Inject
     public UserServiceImpl(final GroupManagementProperties groupManagementProperties,
-                           final RestTemplate restTemplate) {
+                           final RestTemplate restTemplate,
+                           final IntegrationGuards integrationGuards,
+                           final GroupManagementSyncStatus groupManagementSyncStatus) {
         this.groupManagementProperties = groupManagementProperties;
         this.restTemplate = restTemplate;
-        users = new HashMap<>();
+        this.integrationGuards = integrationGuards;
+        this.groupManagementSyncStatus = groupManagementSyncStatus;
     }
 
     @Scheduled(cron = "0 */5 * * * *")
@@ -46,17 +63,36 @@ public class UserServiceImpl implements UserService {
     }
 
     public void updateUsers() {
+        try {
+            syncUsers();
+            groupManagementSyncStatus.setUsersSynced(true);
+        } catch (final RuntimeException e) {
+            groupManagementSyncStatus.setUsersSynced(false);
+            throw e;
+        }
+    }
+
+    private void syncUsers() {
         final String url = groupManagementProperties.getUrl() + "/" + GROUPMANAGEMENT_API_PRIVATE_CONTEXT_PATH + "/" + GROUPMANAGEMENT_API_USERS;
         LOG.debug("Updating users from Groupmanagement URL: " + url);
-        final Set<UserDTO> fetchedUsers = restTemplate.exchange(url, GET, null, new ParameterizedTypeReference<Set<UserDTO>>() {
-        }).getBody();
-        if (fetchedUsers != null) {
-            LOG.info(String.format("Successfully synced %d users from groupmanagement service!", fetchedUsers.size()));
+        final ResponseEntity<Set<UserDTO>> response = integrationGuards.groupManagement().call(() -> restTemplate.exchange(url, GET, conditionalRequestState.createRequest(), new ParameterizedTypeReference<Set<UserDTO>>() {
+        }));
+        if (conditionalRequestState.isNotModified(response)) {
+            LOG.debug("Users not modified in groupmanagement service since last sync.");
+            return;
+        }
+        final Set<UserDTO> fetchedUsers = response.getBody();
+        if (fetchedUsers == null) {
+            throw new IllegalStateException("Empty user response from groupmanagement service!");
         }
-        Objects.requireNonNull(fetchedUsers).forEach(user -> users.put(user.getId(), user));
+        final Map<UUID, UserDTO> fetchedUsersById = new HashMap<>(fetchedUsers.size() * 2);
+        fetchedUsers.forEach(user -> fetchedUsersById.put(user.getId(), user));
+        users.set(Collections.unmodifiableMap(fetchedUsersById));
+        conditionalRequestState.update(response);
+        LOG.info(String.format("Successfully synced %d users from groupmanagement service!", fetchedUsers.size()));
     }
 
     public UserDTO getUserById(final UUID id) {
-        return users.get(id);
+        return users.get().get(id);
     }
 }
@@ -1,7 +1,8 @@
 package fi.vm.yti.codelist.intake.update;
 
 import java.util.Date;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.inject.Inject;
@@ -25,15 +26,22 @@ public class UpdateManager {
         this.updateStatusRepository = updateStatusRepository;
     }
 
-    public boolean shouldUpdateData(final String dataType,
+    /**
+     * Loads the version of the latest successful update for every data type and identifier with a single query.
+     *
+     * @return Versions keyed by data type and identifier, to be passed to {@link #shouldUpdateData(Map, String, String, String)}.
+     */
+    public Map<String, String> getLatestSuccessfulVersions() {
+        final Map<String, String> latestVersions = new HashMap<>();
+        updateStatusRepository.getSuccessfulUpdates().forEach(updateStatus -> latestVersions.put(createVersionKey(updateStatus.getDataType(), updateStatus.getIdentifier()), updateStatus.getVersion()));
+        return latestVersions;
+    }
+
+    public boolean shouldUpdateData(final Map<String, String> latestVersions,
+                                    final String dataType,
                                     final String identifier,
                                     final String version) {
-        final List<UpdateStatus> list = updateStatusRepository.getLatestSuccessfulUpdatesForType(dataType, identifier);
-        if (!list.isEmpty()) {
-            final UpdateStatus status = list.get(0);
-            return !status.getVersion().equals(version);
-        }
-        return true;
+        return !version.equals(latestVersions.get(createVersionKey(dataType, identifier)));
     }
 
     public UpdateStatus createStatus(final String dataType,
@@ -73,4 +81,9 @@ public class UpdateManager {
         updateStatusRepository.save(updateStatus);
         return updateStatus;
     }
+
+    private String createVersionKey(final String dataType,
+                                    final String identifier) {
+        return dataType + "/" + identifier;
+    }
 }
@@ -5,10 +5,18 @@ import java.io.InputStream;
 
 import org.springframework.core.io.ClassPathResource;
 
+import com.google.common.hash.Hashing;
+import com.google.common.io.Resources;
+
 public interface FileUtils {
 
     static InputStream loadFileFromClassPath(final String fileName) throws IOException {
         final ClassPathResource classPathResource = new ClassPathResource(fileName);
         return classPathResource.getInputStream();
     }
+
+    static String checksumFileFromClassPath(final String fileName) throws IOException {
+        final ClassPathResource classPathResource = new ClassPathResource(fileName);
+        return Resources.asByteSource(classPathResource.getURL()).hash(Hashing.sha256()).toString();
+    }
 }
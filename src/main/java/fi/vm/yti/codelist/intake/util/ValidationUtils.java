@@ -5,7 +5,6 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 import org.springframework.http.HttpStatus;
 
@@ -18,12 +17,6 @@ import static fi.vm.yti.codelist.intake.exception.ErrorConstants.ERR_MSG_USER_CO
 
 public interface ValidationUtils {
 
-    static boolean validateStringAgainstRegexp(final String input,
-                                               final String regexp) {
-        final Pattern pattern = Pattern.compile(regexp);
-        return pattern.matcher(input).matches();
-    }
-
     @SuppressWarnings("ArraysAsListWithZeroOrOneArgument")
     static void validateStatusTransitions(final String initialCodeStatus,
                                           final String endCodeStatus) {
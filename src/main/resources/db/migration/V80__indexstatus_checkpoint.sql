@@ -0,0 +1,3 @@
+-- add keyset checkpoint for resumable reindexing
+
+ALTER TABLE indexstatus ADD COLUMN checkpoint text;
@@ -0,0 +1,16 @@
+-- add dead letter table for documents that could not be indexed
+
+CREATE TABLE index_deadletter (
+  id uuid UNIQUE NOT NULL,
+  indexname text NOT NULL,
+  indexalias text NOT NULL,
+  documentid text NOT NULL,
+  operation text NOT NULL,
+  httpstatus integer NOT NULL,
+  reason text NULL,
+  attempts integer NOT NULL,
+  created timestamp without time zone NOT NULL,
+  CONSTRAINT index_deadletter_pkey PRIMARY KEY (id)
+);
+
+CREATE INDEX index_deadletter_created_idx ON index_deadletter (created);
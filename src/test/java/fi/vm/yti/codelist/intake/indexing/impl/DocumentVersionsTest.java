@@ -0,0 +1,73 @@
+package fi.vm.yti.codelist.intake.indexing.impl;
+
+import java.util.Date;
+
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.index.VersionType;
+import org.junit.Test;
+
+import fi.vm.yti.codelist.common.dto.CodeDTO;
+import fi.vm.yti.codelist.common.dto.CodeRegistryDTO;
+import fi.vm.yti.codelist.common.dto.CodeSchemeDTO;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DocumentVersionsTest {
+
+    private static final long CODE_MODIFIED = 1000L;
+    private static final long CODESCHEME_MODIFIED = 2000L;
+    private static final long CODESCHEME_CONTENT_MODIFIED = 3000L;
+
+    @Test
+    public void versionIsLatestModificationOfEmbeddedDocuments() {
+        final CodeDTO code = createCode(CODE_MODIFIED, CODESCHEME_MODIFIED, null);
+        assertEquals(Long.valueOf(CODESCHEME_MODIFIED), DocumentVersions.resolve(code));
+    }
+
+    @Test
+    public void cascadeThroughContentModificationBumpsVersion() {
+        final Long before = DocumentVersions.resolve(createCode(CODE_MODIFIED, CODESCHEME_MODIFIED, null));
+        final Long after = DocumentVersions.resolve(createCode(CODE_MODIFIED, CODESCHEME_MODIFIED, CODESCHEME_CONTENT_MODIFIED));
+        assertTrue(after > before);
+    }
+
+    @Test
+    public void documentWithoutModificationIsNotVersioned() {
+        final IndexRequest request = DocumentVersions.withVersion(new IndexRequest("code", "code", "id"), DocumentVersions.resolve(new CodeDTO()));
+        assertEquals(VersionType.INTERNAL, request.versionType());
+    }
+
+    @Test
+    public void equalVersionStaleWriteIsRejected() {
+        final Long indexed = DocumentVersions.resolve(createCode(CODE_MODIFIED, CODESCHEME_MODIFIED, CODESCHEME_CONTENT_MODIFIED));
+        final IndexRequest stale = DocumentVersions.withVersion(new IndexRequest("code", "code", "id"), DocumentVersions.resolve(createCode(CODE_MODIFIED, CODESCHEME_MODIFIED, CODESCHEME_CONTENT_MODIFIED)));
+        final IndexRequest older = DocumentVersions.withVersion(new IndexRequest("code", "code", "id"), DocumentVersions.resolve(createCode(CODE_MODIFIED, CODESCHEME_MODIFIED, null)));
+        final IndexRequest newer = DocumentVersions.withVersion(new IndexRequest("code", "code", "id"), DocumentVersions.resolve(createCode(CODE_MODIFIED, CODESCHEME_MODIFIED, CODESCHEME_CONTENT_MODIFIED + 1)));
+        assertEquals(VersionType.EXTERNAL, stale.versionType());
+        assertTrue(stale.versionType().isVersionConflictForWrites(indexed, stale.version(), false));
+        assertTrue(older.versionType().isVersionConflictForWrites(indexed, older.version(), false));
+        assertFalse(newer.versionType().isVersionConflictForWrites(indexed, newer.version(), false));
+    }
+
+    @Test
+    public void unknownDocumentHasNoVersion() {
+        assertNull(DocumentVersions.resolve(new Object()));
+    }
+
+    private static CodeDTO createCode(final long codeModified,
+                                      final long codeSchemeModified,
+                                      final Long codeSchemeContentModified) {
+        final CodeRegistryDTO codeRegistry = new CodeRegistryDTO();
+        codeRegistry.setModified(new Date(codeModified));
+        final CodeSchemeDTO codeScheme = new CodeSchemeDTO();
+        codeScheme.setModified(new Date(codeSchemeModified));
+        codeScheme.setContentModified(codeSchemeContentModified != null ? new Date(codeSchemeContentModified) : null);
+        codeScheme.setCodeRegistry(codeRegistry);
+        final CodeDTO code = new CodeDTO();
+        code.setModified(new Date(codeModified));
+        code.setCodeScheme(codeScheme);
+        return code;
+    }
+}
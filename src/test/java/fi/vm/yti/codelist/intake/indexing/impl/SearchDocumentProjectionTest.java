@@ -0,0 +1,56 @@
+package fi.vm.yti.codelist.intake.indexing.impl;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SearchDocumentProjectionTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void codeDocumentKeepsOwnFieldsAndReferencesParents() throws IOException {
+        final JsonNode document = mapper.readTree("{\"id\":\"c1\",\"codeValue\":\"code\",\"hierarchyLevel\":2,\"description\":{\"fi\":\"kuvaus\"}," +
+            "\"codeScheme\":{\"id\":\"s1\",\"uri\":\"uri:s1\",\"url\":\"url:s1\",\"codeValue\":\"scheme\",\"status\":\"VALID\",\"description\":{\"fi\":\"kuvaus\"}," +
+            "\"languageCodes\":[{\"id\":\"fi\"}],\"organizations\":[{\"id\":\"o1\",\"prefLabel\":{\"fi\":\"org\"},\"url\":\"url:o1\"}]," +
+            "\"codeRegistry\":{\"id\":\"r1\",\"codeValue\":\"registry\",\"description\":{\"fi\":\"kuvaus\"}}}," +
+            "\"members\":[{\"id\":\"m1\",\"uri\":\"uri:m1\",\"memberValues\":[{\"value\":\"1\"}]}]}");
+        SearchDocumentProjection.CODE_DOCUMENT.apply(document);
+        assertEquals(2, document.get("hierarchyLevel").asInt());
+        assertTrue(document.has("description"));
+        final JsonNode codeScheme = document.get("codeScheme");
+        assertEquals("url:s1", codeScheme.get("url").asText());
+        assertEquals("VALID", codeScheme.get("status").asText());
+        assertFalse(codeScheme.has("description"));
+        assertFalse(codeScheme.has("languageCodes"));
+        assertEquals("o1", codeScheme.get("organizations").get(0).get("id").asText());
+        assertFalse(codeScheme.get("organizations").get(0).has("url"));
+        assertEquals("registry", codeScheme.get("codeRegistry").get("codeValue").asText());
+        assertFalse(codeScheme.get("codeRegistry").has("description"));
+        assertEquals("uri:m1", document.get("members").get(0).get("uri").asText());
+        assertFalse(document.get("members").get(0).has("memberValues"));
+    }
+
+    @Test
+    public void memberDocumentKeepsOwnFieldsAndReferencesParents() throws IOException {
+        final JsonNode document = mapper.readTree("{\"id\":\"m1\",\"sequenceId\":1,\"memberValues\":[{\"value\":\"1\"}]," +
+            "\"extension\":{\"id\":\"e1\",\"codeValue\":\"extension\",\"members\":[{\"id\":\"m2\"}],\"parentCodeScheme\":{\"id\":\"s1\",\"extensions\":[]}}," +
+            "\"code\":{\"id\":\"c1\",\"codeValue\":\"code\",\"order\":3,\"codeScheme\":{\"id\":\"s1\",\"codeValue\":\"scheme\"}}," +
+            "\"relatedMember\":{\"id\":\"m3\",\"sequenceId\":2,\"code\":{\"id\":\"c2\"}}}");
+        SearchDocumentProjection.MEMBER_DOCUMENT.apply(document);
+        assertEquals("1", document.get("memberValues").get(0).get("value").asText());
+        assertFalse(document.get("extension").has("members"));
+        assertEquals("s1", document.get("extension").get("parentCodeScheme").get("id").asText());
+        assertFalse(document.get("extension").get("parentCodeScheme").has("extensions"));
+        assertFalse(document.get("code").has("order"));
+        assertEquals("scheme", document.get("code").get("codeScheme").get("codeValue").asText());
+        assertEquals(2, document.get("relatedMember").get("sequenceId").asInt());
+        assertFalse(document.get("relatedMember").has("code"));
+    }
+}
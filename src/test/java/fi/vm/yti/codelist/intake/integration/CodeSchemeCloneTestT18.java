@@ -0,0 +1,165 @@
+package fi.vm.yti.codelist.intake.integration;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import fi.vm.yti.codelist.common.dto.CodeSchemeDTO;
+import fi.vm.yti.codelist.intake.ContentIntakeServiceApplication;
+import fi.vm.yti.codelist.intake.jpa.CodeRegistryRepository;
+import fi.vm.yti.codelist.intake.jpa.CodeRepository;
+import fi.vm.yti.codelist.intake.jpa.CodeSchemeRepository;
+import fi.vm.yti.codelist.intake.jpa.ExtensionRepository;
+import fi.vm.yti.codelist.intake.jpa.MemberRepository;
+import fi.vm.yti.codelist.intake.model.Code;
+import fi.vm.yti.codelist.intake.model.CodeRegistry;
+import fi.vm.yti.codelist.intake.model.CodeScheme;
+import fi.vm.yti.codelist.intake.model.Extension;
+import fi.vm.yti.codelist.intake.model.Member;
+import fi.vm.yti.codelist.intake.model.MemberValue;
+import fi.vm.yti.codelist.intake.service.CloningService;
+import fi.vm.yti.codelist.intake.service.impl.DtoMapperService;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = { ContentIntakeServiceApplication.class }, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({ "automatedtest" })
+@TestPropertySource(locations = "classpath:test-port.properties")
+public class CodeSchemeCloneTestT18 extends AbstractIntegrationTestBase {
+
+    private static final String TEST_CODESCHEME_CODEVALUE = "xbrl-exttest";
+    private static final String TEST_CLONED_CODESCHEME_CODEVALUE = "xbrl-exttest-v2";
+    private static final String TEST_BROADER_CODE_CODEVALUE = "testcode01";
+    private static final String TEST_NARROWER_CODE_CODEVALUE = "testcode02";
+
+    @Inject
+    private CodeRegistryRepository codeRegistryRepository;
+
+    @Inject
+    private CodeSchemeRepository codeSchemeRepository;
+
+    @Inject
+    private CodeRepository codeRepository;
+
+    @Inject
+    private ExtensionRepository extensionRepository;
+
+    @Inject
+    private MemberRepository memberRepository;
+
+    @Inject
+    private CloningService cloningService;
+
+    @Inject
+    private DtoMapperService dtoMapperService;
+
+    @Inject
+    private EntityManager entityManager;
+
+    @Test
+    @Transactional
+    public void cloneCodeSchemeWithAllContentTest() {
+        final CodeRegistry codeRegistry = codeRegistryRepository.findByCodeValueIgnoreCase(TEST_CODEREGISTRY_CODEVALUE);
+        final CodeScheme original = codeSchemeRepository.findByCodeRegistryAndCodeValueIgnoreCase(codeRegistry, TEST_CODESCHEME_CODEVALUE);
+        assertNotNull(original);
+        assertNotNull(original.getDefaultCode());
+        final Code narrowerCode = codeRepository.findByCodeSchemeAndCodeValueIgnoreCase(original, TEST_NARROWER_CODE_CODEVALUE);
+        narrowerCode.setBroaderCode(codeRepository.findByCodeSchemeAndCodeValueIgnoreCase(original, TEST_BROADER_CODE_CODEVALUE));
+        narrowerCode.setHierarchyLevel(2);
+        codeRepository.save(narrowerCode);
+        assertFalse(extensionRepository.findByParentCodeSchemeId(original.getId()).isEmpty());
+
+        final CodeSchemeDTO newVersion = dtoMapperService.mapCodeSchemeDto(original, true, true);
+        newVersion.setId(null);
+        newVersion.setUri(null);
+        newVersion.setCodeValue(TEST_CLONED_CODESCHEME_CODEVALUE);
+        newVersion.setDefaultCode(null);
+        newVersion.setExtensions(null);
+        final CodeSchemeDTO result = cloningService.cloneCodeSchemeWithAllThePlumbing(newVersion, TEST_CODEREGISTRY_CODEVALUE, original.getId().toString());
+        entityManager.flush();
+        entityManager.clear();
+
+        final CodeScheme originalCodeScheme = codeSchemeRepository.findById(original.getId());
+        final CodeScheme clonedCodeScheme = codeSchemeRepository.findById(result.getId());
+        assertNotNull(clonedCodeScheme);
+        assertEquals(clonedCodeScheme.getId(), originalCodeScheme.getNextCodeschemeId());
+        assertEquals(originalCodeScheme.getId(), clonedCodeScheme.getPrevCodeschemeId());
+
+        final Set<Code> originalCodes = codeRepository.findByCodeSchemeId(originalCodeScheme.getId());
+        final Set<Code> clonedCodes = codeRepository.findByCodeSchemeId(clonedCodeScheme.getId());
+        assertEquals(describeCodes(originalCodes), describeCodes(clonedCodes));
+        for (final Code code : clonedCodes) {
+            if (code.getBroaderCode() != null) {
+                assertEquals(clonedCodeScheme.getId(), code.getBroaderCode().getCodeScheme().getId());
+            }
+        }
+        assertNotNull(clonedCodeScheme.getDefaultCode());
+        assertEquals(clonedCodeScheme.getId(), clonedCodeScheme.getDefaultCode().getCodeScheme().getId());
+        assertEquals(originalCodeScheme.getDefaultCode().getCodeValue(), clonedCodeScheme.getDefaultCode().getCodeValue());
+
+        final Set<Extension> originalExtensions = extensionRepository.findByParentCodeSchemeId(originalCodeScheme.getId());
+        final Set<Extension> clonedExtensions = extensionRepository.findByParentCodeSchemeId(clonedCodeScheme.getId());
+        assertEquals(describeExtensions(originalExtensions), describeExtensions(clonedExtensions));
+        for (final Extension extension : clonedExtensions) {
+            for (final Member member : memberRepository.findByExtensionId(extension.getId())) {
+                assertNotEquals(originalCodeScheme.getId(), member.getCode().getCodeScheme().getId());
+                if (member.getRelatedMember() != null) {
+                    assertEquals(extension.getId(), member.getRelatedMember().getExtension().getId());
+                }
+            }
+        }
+    }
+
+    private Set<String> describeCodes(final Set<Code> codes) {
+        final Set<String> descriptions = new TreeSet<>();
+        for (final Code code : codes) {
+            descriptions.add(String.join("|",
+                code.getCodeValue(),
+                String.valueOf(code.getPrefLabel()),
+                String.valueOf(code.getDescription()),
+                String.valueOf(code.getOrder()),
+                String.valueOf(code.getHierarchyLevel()),
+                code.getBroaderCode() != null ? code.getBroaderCode().getCodeValue() : ""));
+        }
+        return descriptions;
+    }
+
+    private Set<String> describeExtensions(final Set<Extension> extensions) {
+        final Set<String> descriptions = new TreeSet<>();
+        for (final Extension extension : extensions) {
+            descriptions.add(extension.getCodeValue() + "|" + extension.getPropertyType().getLocalName());
+            for (final Member member : memberRepository.findByExtensionId(extension.getId())) {
+                descriptions.add(String.join("|",
+                    extension.getCodeValue(),
+                    member.getCode().getCodeValue(),
+                    String.valueOf(member.getOrder()),
+                    String.valueOf(member.getSequenceId()),
+                    String.valueOf(member.getPrefLabel()),
+                    member.getRelatedMember() != null ? member.getRelatedMember().getCode().getCodeValue() : "",
+                    describeMemberValues(member.getMemberValues())));
+            }
+        }
+        return descriptions;
+    }
+
+    private String describeMemberValues(final Set<MemberValue> memberValues) {
+        final Set<String> descriptions = new TreeSet<>();
+        for (final MemberValue memberValue : memberValues) {
+            descriptions.add(memberValue.getValueType().getLocalName() + "=" + memberValue.getValue());
+        }
+        return descriptions.toString();
+    }
+}
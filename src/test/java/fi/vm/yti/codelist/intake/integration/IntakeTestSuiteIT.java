@@ -21,7 +21,8 @@ import org.junit.runners.Suite;
     CodeSchemeExtensionTestT14.class,
     CodeSchemeDcatTestT15.class,
     CodeSchemeWithExtensionsTestT16.class,
-    CodeSchemeCaseTestT17.class
+    CodeSchemeCaseTestT17.class,
+    CodeSchemeCloneTestT18.class
 })
 public class IntakeTestSuiteIT {
 
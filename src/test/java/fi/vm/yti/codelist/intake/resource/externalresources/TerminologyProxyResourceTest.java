@@ -0,0 +1,80 @@
+package fi.vm.yti.codelist.intake.resource.externalresources;
+
+import java.net.URI;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import fi.vm.yti.codelist.intake.configuration.IntegrationProperties;
+import fi.vm.yti.codelist.intake.configuration.TerminologyProperties;
+import fi.vm.yti.codelist.intake.exception.YtiCodeListException;
+import fi.vm.yti.codelist.intake.exception.exceptionmapping.YtiCodeListExceptionMapper;
+import fi.vm.yti.codelist.intake.integration.IntegrationGuards;
+import fi.vm.yti.security.AuthenticatedUserProvider;
+import fi.vm.yti.security.YtiUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TerminologyProxyResourceTest {
+
+    private static final int STATUS_UNREACHABLE = 500;
+    private static final int STATUS_UNAVAILABLE = 503;
+
+    private TerminologyProxyResource terminologyProxyResource;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        final TerminologyProperties terminologyProperties = new TerminologyProperties();
+        terminologyProperties.setUrl("http://localhost");
+        final IntegrationProperties integrationProperties = new IntegrationProperties();
+        integrationProperties.setFailureThreshold(1);
+        final YtiUser user = mock(YtiUser.class);
+        when(user.isSuperuser()).thenReturn(true);
+        final AuthenticatedUserProvider authenticatedUserProvider = mock(AuthenticatedUserProvider.class);
+        when(authenticatedUserProvider.getUser()).thenReturn(user);
+        final RestTemplate restTemplate = mock(RestTemplate.class);
+        when(restTemplate.exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+            .thenThrow(new ResourceAccessException("Connection refused"));
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+            .thenThrow(new ResourceAccessException("Connection refused"));
+        terminologyProxyResource = new TerminologyProxyResource(terminologyProperties, authenticatedUserProvider, restTemplate, new IntegrationGuards(integrationProperties, new SimpleMeterRegistry()), new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void cachedLookupsFailFastWithServiceUnavailableWhenCircuitIsOpen() {
+        assertEquals(STATUS_UNREACHABLE, statusOf(() -> terminologyProxyResource.getVocabularies()));
+        assertEquals(STATUS_UNAVAILABLE, statusOf(() -> terminologyProxyResource.getVocabularies()));
+        assertEquals(STATUS_UNAVAILABLE, statusOf(() -> terminologyProxyResource.getConcepts("term", null, "VALID", "fi", 10, 0)));
+    }
+
+    @Test
+    public void suggestionFailsFastWithServiceUnavailableWhenCircuitIsOpen() {
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        assertEquals(STATUS_UNREACHABLE, statusOf(() -> terminologyProxyResource.suggestAConcept("http://uri.suomi.fi/terminology/test", "fi", "suggestion", "definition", request)));
+        assertEquals(STATUS_UNAVAILABLE, statusOf(() -> terminologyProxyResource.suggestAConcept("http://uri.suomi.fi/terminology/test", "fi", "suggestion", "definition", request)));
+    }
+
+    private static int statusOf(final Runnable call) {
+        try {
+            call.run();
+        } catch (final YtiCodeListException e) {
+            return new YtiCodeListExceptionMapper().toResponse(e).getStatus();
+        }
+        fail("Expected the terminology call to fail.");
+        return 0;
+    }
+}
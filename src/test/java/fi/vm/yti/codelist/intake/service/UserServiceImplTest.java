@@ -0,0 +1,125 @@
+package fi.vm.yti.codelist.intake.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import fi.vm.yti.codelist.intake.configuration.GroupManagementProperties;
+import fi.vm.yti.codelist.intake.configuration.IntegrationProperties;
+import fi.vm.yti.codelist.intake.dto.UserDTO;
+import fi.vm.yti.codelist.intake.groupmanagement.GroupManagementSyncStatus;
+import fi.vm.yti.codelist.intake.integration.IntegrationGuards;
+import fi.vm.yti.codelist.intake.service.impl.UserServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UserServiceImplTest {
+
+    private static final int USER_COUNT = 1000;
+    private static final int SYNC_COUNT = 200;
+    private static final int READER_COUNT = 4;
+
+    private final List<UUID> stableUserIds = new ArrayList<>();
+    private final AtomicInteger generation = new AtomicInteger();
+    private UserServiceImpl userService;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        for (int i = 0; i < USER_COUNT; i++) {
+            stableUserIds.add(UUID.randomUUID());
+        }
+        final RestTemplate restTemplate = mock(RestTemplate.class);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+            .thenAnswer(invocation -> new ResponseEntity<>(createUsers(generation.incrementAndGet()), HttpStatus.OK));
+        final GroupManagementProperties groupManagementProperties = new GroupManagementProperties();
+        groupManagementProperties.setUrl("http://localhost");
+        userService = new UserServiceImpl(groupManagementProperties, restTemplate, new IntegrationGuards(new IntegrationProperties(), new SimpleMeterRegistry()), new GroupManagementSyncStatus());
+    }
+
+    @Test
+    public void removedUsersDisappearAfterSync() {
+        userService.updateUsers();
+        final UUID firstGenerationUserId = transientUserId(1);
+        assertNotNull(userService.getUserById(firstGenerationUserId));
+        userService.updateUsers();
+        assertNull(userService.getUserById(firstGenerationUserId));
+        assertNotNull(userService.getUserById(transientUserId(2)));
+    }
+
+    @Test
+    public void readersNeverSeePartialDirectoryDuringSyncs() throws Exception {
+        userService.updateUsers();
+        final ExecutorService executor = Executors.newFixedThreadPool(READER_COUNT);
+        final AtomicBoolean syncing = new AtomicBoolean(true);
+        final AtomicInteger missingLookups = new AtomicInteger();
+        final CountDownLatch readersStarted = new CountDownLatch(READER_COUNT);
+        final List<Future<?>> readers = new ArrayList<>();
+        for (int i = 0; i < READER_COUNT; i++) {
+            readers.add(executor.submit(() -> {
+                readersStarted.countDown();
+                while (syncing.get()) {
+                    for (final UUID userId : stableUserIds) {
+                        if (userService.getUserById(userId) == null) {
+                            missingLookups.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+        readersStarted.await();
+        for (int i = 0; i < SYNC_COUNT; i++) {
+            userService.updateUsers();
+        }
+        syncing.set(false);
+        for (final Future<?> reader : readers) {
+            reader.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertEquals(0, missingLookups.get());
+    }
+
+    private Set<UserDTO> createUsers(final int currentGeneration) {
+        final Set<UserDTO> users = new HashSet<>();
+        stableUserIds.forEach(id -> users.add(createUser(id)));
+        users.add(createUser(transientUserId(currentGeneration)));
+        return users;
+    }
+
+    private UUID transientUserId(final int userGeneration) {
+        return new UUID(0, userGeneration);
+    }
+
+    private UserDTO createUser(final UUID id) {
+        final UserDTO user = new UserDTO();
+        user.setId(id);
+        user.setFirstName("first");
+        user.setLastName("last");
+        return user;
+    }
+}